@@ -9,6 +9,7 @@ plugins {
     // Apply the application plugin to add support for building a CLI application in Java.
     application
     id("com.diffplug.spotless") version "6.25.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 spotless {
@@ -33,6 +34,9 @@ dependencies {
 
     // This dependency is used by the application.
     implementation(libs.guava)
+
+    // Generates bytecode for the JIT tier.
+    implementation(libs.asm)
 }
 
 // Apply a specific Java toolchain to ease working on different environments.
@@ -47,7 +51,47 @@ application {
     mainClass = "net.mcarolan.craftinginterpreters.Main"
 }
 
+jmh {
+    jmhVersion = "1.37"
+    // Allocation rate per benchmark comes from the GC profiler.
+    profilers.add("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+}
+
+// The JMH plugin's jar task keeps a reference to the project, which the configuration cache cannot
+// store, so builds that run it skip the cache instead of failing once the benchmarks are done.
+tasks.named("jmhJar") {
+    notCompatibleWithConfigurationCache("The JMH plugin's jar task holds a Project reference")
+}
+
+// Copies the latest JMH run over the committed baseline so reviewers can diff before and after.
+tasks.register<Copy>("updateJmhBaseline") {
+    mustRunAfter("jmh")
+    from(layout.buildDirectory.file("results/jmh/results.json"))
+    into(layout.projectDirectory.dir("src/jmh/baseline"))
+}
+
 tasks.named<Test>("test") {
     // Use JUnit Platform for unit tests.
-    useJUnitPlatform()
+    // Metrics stay off here, as in production; their own tests need them on and run separately.
+    useJUnitPlatform {
+        excludeTags("metrics")
+    }
+}
+
+// Metrics are switched on or off once per JVM, so their tests get a forked JVM with them on.
+val metricsTest by tasks.registering(Test::class) {
+    description = "Runs the tests tagged metrics with metrics enabled."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("metrics")
+    }
+    systemProperty("lox.metrics", "true")
+}
+
+tasks.named("check") {
+    dependsOn(metricsTest)
 }
@@ -0,0 +1,72 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.ExecutionLimits;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of enforcing execution limits on loop-heavy code: UNLIMITED is the default budget every
+ * backend runs with, LIMITED sets an iteration cap, a timeout and a scope depth that are never hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionBudgetBenchmark {
+
+  public enum Budget {
+    UNLIMITED,
+    LIMITED
+  }
+
+  @Param({"WHILE_LOOP", "STRING_CONCATENATION"})
+  Workload workload;
+
+  @Param({"1000"})
+  int size;
+
+  @Param({"TREE_WALKER", "CLOSURE", "VM"})
+  BackendType backendType;
+
+  @Param({"UNLIMITED", "LIMITED"})
+  Budget budget;
+
+  final SymbolTable symbols = new SymbolTable();
+  List<Statement> statements;
+
+  @Setup
+  public void setUp() {
+    final var parser = new Parser(new Scanner(workload.generate(size)).scanTokens());
+    statements = new Resolver(symbols).resolve(parser.parse());
+  }
+
+  @Benchmark
+  public void interpret(Blackhole blackhole) {
+    final var limits =
+        switch (budget) {
+          case UNLIMITED -> ExecutionLimits.none();
+          case LIMITED ->
+              ExecutionLimits.none()
+                  .withMaxIterations(1_000_000_000L)
+                  .withTimeout(Duration.ofMinutes(10))
+                  .withMaxScopeDepth(64);
+        };
+    final var backend =
+        backendType.create(
+            new GlobalEnvironmentAdapter(symbols), blackhole::consume, new ExecutionBudget(limits));
+    backend.interpret(statements);
+  }
+}
@@ -0,0 +1,77 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.flat.FlatAst;
+import net.mcarolan.craftinginterpreters.flat.FlatInterpreter;
+import net.mcarolan.craftinginterpreters.flat.FlatParser;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.Interpreter;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import net.mcarolan.craftinginterpreters.scanner.TokenBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Record trees against flat arrays for the same resolved program. {@code parse} allocates little
+ * besides the result, so its gc.alloc.rate.norm divided by the node count approximates bytes per
+ * node; {@link FlatAst#sizeInBytes()} gives the flat figure exactly. {@code interpret} compares the
+ * tree-walking interpreter with the flat one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatAstBenchmark {
+
+  public enum Representation {
+    RECORDS,
+    FLAT
+  }
+
+  @Param({"DEEP_EXPRESSIONS", "WHILE_LOOP", "MANY_VARIABLES"})
+  Workload workload;
+
+  @Param({"1000"})
+  int size;
+
+  @Param({"RECORDS", "FLAT"})
+  Representation representation;
+
+  final SymbolTable symbols = new SymbolTable();
+  TokenBuffer tokens;
+  List<Statement> statements;
+  FlatAst ast;
+
+  @Setup
+  public void setUp() {
+    tokens = new Scanner(workload.generate(size)).scanBuffer();
+    statements = new Resolver(symbols).resolve(new Parser(tokens).parse());
+    ast = new FlatParser(tokens).parse();
+  }
+
+  @Benchmark
+  public Object parse() {
+    return switch (representation) {
+      case RECORDS -> new Resolver(symbols).resolve(new Parser(tokens).parse());
+      case FLAT -> new FlatParser(tokens).parse();
+    };
+  }
+
+  @Benchmark
+  public void interpret(Blackhole blackhole) {
+    switch (representation) {
+      case RECORDS ->
+          new Interpreter(new GlobalEnvironmentAdapter(symbols), blackhole::consume)
+              .interpret(statements);
+      case FLAT ->
+          new FlatInterpreter(new GlobalEnvironmentAdapter(), blackhole::consume).interpret(ast);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.incremental.IncrementalParser;
+import net.mcarolan.craftinginterpreters.incremental.SourceEdit;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.parser.ScannerTokenStream;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A one-character edit in the middle of a program, reparsed from scratch and incrementally. The
+ * full parse grows with the program; the incremental one should stay flat as {@code size} grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalParserBenchmark {
+
+  @Param({"100", "1000"})
+  int size;
+
+  String source;
+  IncrementalParser parser;
+  int offset;
+  boolean edited;
+
+  @Setup
+  public void setUp() {
+    source = Workload.DEEP_EXPRESSIONS.generate(size);
+    parser = new IncrementalParser(source);
+    offset = source.indexOf("print ", source.length() / 2) + "print ".length();
+  }
+
+  @Benchmark
+  public Object full() {
+    return new Parser(new ScannerTokenStream(new Scanner(source))).parse();
+  }
+
+  // Alternately negates a printed expression and removes the minus again.
+  @Benchmark
+  public Object incremental() {
+    edited = !edited;
+    return parser.apply(edited ? SourceEdit.insert(offset, "-") : SourceEdit.delete(offset, 1));
+  }
+}
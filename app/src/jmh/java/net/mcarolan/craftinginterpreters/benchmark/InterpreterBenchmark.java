@@ -0,0 +1,47 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterpreterBenchmark {
+
+  @Param({"DEEP_EXPRESSIONS", "WHILE_LOOP", "STRING_CONCATENATION", "MANY_VARIABLES"})
+  Workload workload;
+
+  @Param({"10", "100", "1000"})
+  int size;
+
+  @Param({"TREE_WALKER", "CLOSURE", "VM"})
+  BackendType backendType;
+
+  final SymbolTable symbols = new SymbolTable();
+  List<Statement> statements;
+
+  @Setup
+  public void setUp() {
+    final var parser = new Parser(new Scanner(workload.generate(size)).scanTokens());
+    statements = new Resolver(symbols).resolve(parser.parse());
+  }
+
+  @Benchmark
+  public void interpret(Blackhole blackhole) {
+    final var backend =
+        backendType.create(new GlobalEnvironmentAdapter(symbols), blackhole::consume);
+    backend.interpret(statements);
+  }
+}
@@ -0,0 +1,52 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.Backend;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.optimizer.Optimizer;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runs the same program again and again on one backend, as a long-lived session would, so the JIT
+ * sees its statements go hot and compiles them, against the other backends doing the same.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JitBenchmark {
+
+  @Param({"WHILE_LOOP", "MANY_VARIABLES"})
+  Workload workload;
+
+  @Param({"1000", "100000"})
+  int size;
+
+  @Param({"TREE_WALKER", "CLOSURE", "VM", "JIT"})
+  BackendType backendType;
+
+  List<Statement> statements;
+  Backend backend;
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    final var parser = new Parser(new Scanner(workload.generate(size)).scanTokens());
+    final var globals = new GlobalEnvironmentAdapter();
+    statements = new Resolver(globals.symbols()).resolve(new Optimizer().optimize(parser.parse()));
+    backend = backendType.create(globals, blackhole::consume);
+  }
+
+  @Benchmark
+  public void interpret() {
+    backend.interpret(statements);
+  }
+}
@@ -0,0 +1,49 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.Session;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of collecting metrics on a whole session run. Metrics are fixed per JVM, so {@code disabled}
+ * runs in a fork without the {@value Metrics#PROPERTY} property and {@code enabled} in a fork with
+ * it; the disabled score should match a build without the instrumentation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetricsBenchmark {
+
+  @Param({"WHILE_LOOP", "STRING_CONCATENATION"})
+  Workload workload;
+
+  @Param({"1000"})
+  int size;
+
+  @Param({"TREE_WALKER", "CLOSURE", "VM"})
+  BackendType backendType;
+
+  String source;
+
+  @Setup
+  public void setUp() {
+    source = workload.generate(size);
+  }
+
+  @Benchmark
+  @Fork(1)
+  public void disabled(Blackhole blackhole) {
+    new Session(backendType, blackhole::consume).execute(source);
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-D" + Metrics.PROPERTY + "=true")
+  public void enabled(Blackhole blackhole) {
+    new Session(backendType, blackhole::consume).execute(source);
+  }
+}
@@ -0,0 +1,46 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+import net.mcarolan.craftinginterpreters.scanner.TokenBuffer;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+  @Param({"DEEP_EXPRESSIONS", "WHILE_LOOP", "STRING_CONCATENATION", "MANY_VARIABLES"})
+  Workload workload;
+
+  @Param({"10", "100", "1000"})
+  int size;
+
+  List<Token> tokens;
+
+  TokenBuffer buffer;
+
+  @Setup
+  public void setUp() {
+    final var source = workload.generate(size);
+    tokens = new Scanner(source).scanTokens();
+    buffer = new Scanner(source).scanBuffer();
+  }
+
+  @Benchmark
+  public List<Statement> parse() {
+    return new Parser(tokens).parse();
+  }
+
+  @Benchmark
+  public List<Statement> parseBuffer() {
+    return new Parser(buffer).parse();
+  }
+}
@@ -0,0 +1,46 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.scanner.ParallelScanner;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+import net.mcarolan.craftinginterpreters.scanner.TokenBuffer;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScannerBenchmark {
+
+  @Param({"DEEP_EXPRESSIONS", "WHILE_LOOP", "STRING_CONCATENATION", "MANY_VARIABLES"})
+  Workload workload;
+
+  @Param({"10", "100", "1000"})
+  int size;
+
+  String source;
+
+  @Setup
+  public void setUp() {
+    source = workload.generate(size);
+  }
+
+  @Benchmark
+  public List<Token> scanTokens() {
+    return new Scanner(source).scanTokens();
+  }
+
+  @Benchmark
+  public List<Token> scanTokensInParallel() {
+    return new ParallelScanner(source).scanTokens();
+  }
+
+  @Benchmark
+  public TokenBuffer scanBuffer() {
+    return new Scanner(source).scanBuffer();
+  }
+}
@@ -0,0 +1,70 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.SidecarCache;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time to get from a script on disk to a runnable program in a fresh JVM, compiling the source
+ * against loading its sidecar. Every measurement is a single shot in its own fork, so neither path
+ * has been warmed up by the JIT.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+  @State(Scope.Benchmark)
+  public abstract static class Script {
+    @Param({"DEEP_EXPRESSIONS", "MANY_VARIABLES"})
+    Workload workload;
+
+    @Param({"100", "1000"})
+    int size;
+
+    Path script;
+
+    void write() throws IOException {
+      script = Files.createTempDirectory("startup").resolve("script.lox");
+      Files.writeString(script, workload.generate(size));
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Source extends Script {
+    @Setup
+    public void setUp() throws IOException {
+      write();
+    }
+  }
+
+  // Building the sidecar runs the compiler in this fork, which only the compile benchmark would
+  // benefit from, so it gets a state of its own. JMH does not order setup methods inherited from a
+  // superclass before a subclass's own, so this one writes the script itself.
+  @State(Scope.Benchmark)
+  public static class Cached extends Script {
+    @Setup
+    public void setUp() throws IOException {
+      write();
+      SidecarCache.program(script, new SymbolTable());
+    }
+  }
+
+  @Benchmark
+  public List<Statement> compile(Source source) throws IOException {
+    return SidecarCache.compile(source.script, new SymbolTable());
+  }
+
+  @Benchmark
+  public List<Statement> loadSidecar(Cached cached) throws IOException {
+    return SidecarCache.program(cached.script, new SymbolTable()).orElseThrow();
+  }
+}
@@ -0,0 +1,87 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The same total work, summing numbers in a loop, split across tasks that send their sums back over
+ * a channel, against doing all of it on one task. With one task it shows the overhead of spawning
+ * and channels; with more it shows how far they scale on the cores available.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskBenchmark {
+
+  private static final int WORK = 100_000;
+
+  @Param({"1", "4", "16"})
+  int tasks;
+
+  final SymbolTable symbols = new SymbolTable();
+  List<Statement> sequential;
+  List<Statement> spawned;
+
+  @Setup
+  public void setUp() {
+    final var share = WORK / tasks;
+    sequential =
+        parse(
+            """
+            var total = 0;
+            var i = 0;
+            while (i < %d) { total = total + i; i = i + 1; }
+            print total;
+            """
+                .formatted(WORK));
+    spawned =
+        parse(
+            """
+            var sums = channel(%d);
+            var t = 0;
+            while (t < %d) {
+              spawn {
+                var sum = 0;
+                var i = t * %d;
+                while (i < (t + 1) * %d) { sum = sum + i; i = i + 1; }
+                send sums, sum;
+              };
+              t = t + 1;
+            }
+            var total = 0;
+            while (t > 0) { total = total + receive sums; t = t - 1; }
+            print total;
+            """
+                .formatted(tasks, tasks, share, share));
+  }
+
+  private List<Statement> parse(String source) {
+    return new Resolver(symbols).resolve(new Parser(new Scanner(source).scanTokens()).parse());
+  }
+
+  @Benchmark
+  public void sequential(Blackhole blackhole) {
+    BackendType.TREE_WALKER
+        .create(new GlobalEnvironmentAdapter(symbols), blackhole::consume)
+        .interpret(sequential);
+  }
+
+  @Benchmark
+  public void spawned(Blackhole blackhole) {
+    BackendType.TREE_WALKER
+        .create(new GlobalEnvironmentAdapter(symbols), blackhole::consume)
+        .interpret(spawned);
+  }
+}
@@ -0,0 +1,76 @@
+package net.mcarolan.craftinginterpreters.benchmark;
+
+/** Generated Lox programs whose size grows linearly with the benchmark's size parameter. */
+public enum Workload {
+  DEEP_EXPRESSIONS {
+    @Override
+    String generate(int size) {
+      final var builder = new StringBuilder();
+      for (var i = 0; i < size; i++) {
+        builder.append("print ").append(nestedExpression(8, i)).append(";\n");
+      }
+      return builder.toString();
+    }
+  },
+  WHILE_LOOP {
+    @Override
+    String generate(int size) {
+      return """
+          var i = 0;
+          var total = 0;
+          while (i < %d) {
+            var doubled = i * 2;
+            if (doubled > 10 and i != 3) total = total + doubled - 1;
+            i = i + 1;
+          }
+          print total;
+          """
+          .formatted(size * 100);
+    }
+  },
+  STRING_CONCATENATION {
+    @Override
+    String generate(int size) {
+      return """
+          var report = "";
+          var i = 0;
+          while (i < %d) {
+            report = report + "line " + "of the report" + "; ";
+            i = i + 1;
+          }
+          print report;
+          """
+          .formatted(size);
+    }
+  },
+  MANY_VARIABLES {
+    @Override
+    String generate(int size) {
+      final var builder = new StringBuilder();
+      for (var i = 0; i < size; i++) {
+        builder.append("var global").append(i).append(" = ").append(i).append(";\n");
+      }
+      builder.append("{\n");
+      for (var i = 0; i < size; i++) {
+        builder.append("  var local").append(i).append(" = global").append(i).append(" + 1;\n");
+      }
+      builder.append("  var sum = 0;\n");
+      for (var i = 0; i < size; i++) {
+        builder.append("  sum = sum + local").append(i).append(" * global").append(i).append(";\n");
+      }
+      builder.append("  print sum;\n}\n");
+      return builder.toString();
+    }
+  };
+
+  abstract String generate(int size);
+
+  private static String nestedExpression(int depth, int seed) {
+    if (depth == 0) {
+      return Integer.toString(seed % 7 + 1);
+    }
+    return "(%s + %d * (%s - %d) / 2)"
+        .formatted(
+            nestedExpression(depth - 1, seed + 1), depth, nestedExpression(depth - 1, seed), depth);
+  }
+}
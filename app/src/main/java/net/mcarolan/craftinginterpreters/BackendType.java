@@ -0,0 +1,67 @@
+package net.mcarolan.craftinginterpreters;
+
+import net.mcarolan.craftinginterpreters.closure.ClosureInterpreter;
+import net.mcarolan.craftinginterpreters.jit.JitPolicy;
+import net.mcarolan.craftinginterpreters.jit.TieredCompiler;
+import net.mcarolan.craftinginterpreters.lox.Backend;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.Interpreter;
+import net.mcarolan.craftinginterpreters.lox.SharedIOPort;
+import net.mcarolan.craftinginterpreters.lox.StatementObserver;
+import net.mcarolan.craftinginterpreters.vm.VirtualMachine;
+
+public enum BackendType {
+  TREE_WALKER,
+  CLOSURE,
+  VM,
+  JIT;
+
+  public Backend create(GlobalEnvironmentAdapter environment, IOPort io) {
+    return create(environment, io, ExecutionBudget.unlimited());
+  }
+
+  public Backend create(GlobalEnvironmentAdapter environment, IOPort io, ExecutionBudget budget) {
+    return create(environment, io, budget, StatementObserver.NONE);
+  }
+
+  /**
+   * The VM has no statement boundaries at run time, so it cannot be observed, and neither can code
+   * the JIT has compiled. Only the tree walker and the JIT, which leaves tasks to the tree walker,
+   * run tasks and channels; the other backends reject them as they compile.
+   */
+  public Backend create(
+      GlobalEnvironmentAdapter environment,
+      IOPort io,
+      ExecutionBudget budget,
+      StatementObserver observer) {
+    return switch (this) {
+      case TREE_WALKER -> new Interpreter(environment, io, budget, observer);
+      case CLOSURE -> new ClosureInterpreter(environment, io, budget, observer);
+      case VM -> {
+        if (observer != StatementObserver.NONE) {
+          throw new IllegalArgumentException("The VM backend does not support observers");
+        }
+        yield new VirtualMachine(environment, io, budget);
+      }
+      case JIT -> {
+        if (observer != StatementObserver.NONE) {
+          throw new IllegalArgumentException("The JIT backend does not support observers");
+        }
+        // Compiled code prints to the port it was compiled with, so share it before any task can.
+        final var shared = SharedIOPort.of(io);
+        yield new Interpreter(
+            environment,
+            shared,
+            budget,
+            observer,
+            new TieredCompiler(environment, shared, budget, JitPolicy.background()));
+      }
+    };
+  }
+
+  public boolean isObservable() {
+    return this != VM && this != JIT;
+  }
+}
@@ -0,0 +1,167 @@
+package net.mcarolan.craftinginterpreters;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.ExecutionLimits;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.LoxException;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+
+/**
+ * Runs many scripts in one JVM, one virtual thread per script. Every script gets a session of its
+ * own, so nothing is shared between them but immutable values, and its output is captured rather
+ * than printed so that results can be reported in the order the scripts were given, however the
+ * threads happened to finish.
+ */
+public class BatchRunner {
+
+  public record ScriptResult(
+      Path script, ExitCode exitCode, List<String> output, Optional<String> error, Duration time) {}
+
+  public record Summary(List<ScriptResult> results, Duration wallTime, Optional<Duration> cpuTime) {
+
+    public long failures() {
+      return results.stream().filter(result -> result.exitCode() != ExitCode.SUCCESS).count();
+    }
+
+    public ExitCode exitCode() {
+      return results.stream()
+          .map(ScriptResult::exitCode)
+          .filter(exitCode -> exitCode != ExitCode.SUCCESS)
+          .findFirst()
+          .orElse(ExitCode.SUCCESS);
+    }
+
+    public double throughput() {
+      final var seconds = wallTime.toNanos() / 1e9;
+      return seconds == 0 ? 0 : results.size() / seconds;
+    }
+
+    public void report(IOPort io) {
+      for (final var result : results) {
+        io.print(
+            String.format(
+                "== %s (exit %d, %d ms)",
+                result.script(), result.exitCode().getCode(), result.time().toMillis()));
+        result.output().forEach(io::print);
+        result.error().ifPresent(error -> io.print("error: " + error));
+      }
+      io.print(
+          String.format(
+              "%d scripts, %d failed, wall %d ms, cpu %s, %.1f scripts/s",
+              results.size(),
+              failures(),
+              wallTime.toMillis(),
+              cpuTime.map(time -> time.toMillis() + " ms").orElse("n/a"),
+              throughput()));
+    }
+  }
+
+  private final BackendType backendType;
+  private final ExecutionLimits limits;
+
+  public BatchRunner(BackendType backendType) {
+    this(backendType, ExecutionLimits.none());
+  }
+
+  /** Applies the limits to each script separately, its time limit included. */
+  public BatchRunner(BackendType backendType, ExecutionLimits limits) {
+    this.backendType = backendType;
+    this.limits = limits;
+  }
+
+  public Summary run(List<Path> scripts) {
+    final var wallStart = System.nanoTime();
+    final var cpuStart = processCpuTime();
+
+    final List<ScriptResult> results;
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final var futures = new ArrayList<Future<ScriptResult>>(scripts.size());
+      for (final var script : scripts) {
+        futures.add(executor.submit(() -> run(script)));
+      }
+      results = futures.stream().map(BatchRunner::join).toList();
+    }
+
+    final var wallTime = Duration.ofNanos(System.nanoTime() - wallStart);
+    final var cpuTime = cpuStart.flatMap(start -> processCpuTime().map(end -> end.minus(start)));
+    return new Summary(results, wallTime, cpuTime);
+  }
+
+  ScriptResult run(Path script) {
+    final var start = System.nanoTime();
+    final var output = new ArrayList<String>();
+    ExitCode exitCode;
+    String error = null;
+    try {
+      final var source = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+      final var session = new Session(backendType, output::add, new ExecutionBudget(limits));
+      session.execute(new Scanner(source));
+      session.awaitTasks();
+      exitCode = ExitCode.SUCCESS;
+    } catch (IOException e) {
+      exitCode = ExitCode.IO_ERROR;
+      error = e.toString();
+    } catch (LoxException e) {
+      exitCode = ExitCode.RUNTIME_ERROR;
+      error = e.getMessage();
+    } catch (RuntimeException | StackOverflowError e) {
+      exitCode = ExitCode.RUNTIME_ERROR;
+      error = e.toString();
+    }
+    final var time = Duration.ofNanos(System.nanoTime() - start);
+    return new ScriptResult(script, exitCode, output, Optional.ofNullable(error), time);
+  }
+
+  // A directory contributes every .lox file beneath it in path order; any other file is read as a
+  // list of scripts, one per line, relative to the list's own directory. Blank lines and lines
+  // starting with # are skipped.
+  public static List<Path> scripts(Path source) throws IOException {
+    if (Files.isDirectory(source)) {
+      try (final var files = Files.walk(source)) {
+        return files
+            .filter(Files::isRegularFile)
+            .filter(file -> file.getFileName().toString().endsWith(".lox"))
+            .sorted()
+            .toList();
+      }
+    }
+    final var base = source.toAbsolutePath().getParent();
+    return Files.readAllLines(source, StandardCharsets.UTF_8).stream()
+        .map(String::strip)
+        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+        .map(base::resolve)
+        .toList();
+  }
+
+  private static ScriptResult join(Future<ScriptResult> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a script", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Script runner failed", e.getCause());
+    }
+  }
+
+  private static Optional<Duration> processCpuTime() {
+    if (ManagementFactory.getOperatingSystemMXBean()
+        instanceof com.sun.management.OperatingSystemMXBean os) {
+      final var nanos = os.getProcessCpuTime();
+      return nanos < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(nanos));
+    }
+    return Optional.empty();
+  }
+}
@@ -1,8 +1,10 @@
 package net.mcarolan.craftinginterpreters;
 
 public enum ExitCode {
+  SUCCESS(0),
   BAD_CMDLINE_ARGUMENTS(64),
-  RUNTIME_ERROR(65);
+  RUNTIME_ERROR(65),
+  IO_ERROR(74);
 
   private final int code;
 
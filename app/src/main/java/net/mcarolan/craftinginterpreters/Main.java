@@ -1,45 +1,177 @@
 package net.mcarolan.craftinginterpreters;
 
-import com.google.common.base.Charsets;
 import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import net.mcarolan.craftinginterpreters.lox.DefaultEnvironmentAdapter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.BufferedIOPort;
 import net.mcarolan.craftinginterpreters.lox.DefaultIOPort;
-import net.mcarolan.craftinginterpreters.lox.Interpreter;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
 import net.mcarolan.craftinginterpreters.lox.LoxException;
-import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.lox.StatementObserver;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+import net.mcarolan.craftinginterpreters.profiler.ProfileReport;
+import net.mcarolan.craftinginterpreters.profiler.Profiler;
+import net.mcarolan.craftinginterpreters.scanner.MappedSourceReader;
 import net.mcarolan.craftinginterpreters.scanner.Scanner;
 
 public class Main {
   public static void main(String[] args) throws IOException {
-    switch (args.length) {
-      case 1 -> runFile(args[0]);
-      case 0 -> runPrompt();
-      default -> {
-        System.out.println("Usage: jlox [script]");
-        System.exit(ExitCode.BAD_CMDLINE_ARGUMENTS.getCode());
+    var backendType = BackendType.TREE_WALKER;
+    var batch = false;
+    var cache = false;
+    Optional<Profiler.Mode> profile = Optional.empty();
+    var stats = false;
+    final var scripts = new ArrayList<String>();
+
+    for (final var arg : args) {
+      if (arg.equals("--vm")) {
+        backendType = BackendType.VM;
+      } else if (arg.equals("--closure")) {
+        backendType = BackendType.CLOSURE;
+      } else if (arg.equals("--jit")) {
+        backendType = BackendType.JIT;
+      } else if (arg.equals("--batch")) {
+        batch = true;
+      } else if (arg.equals("--cache")) {
+        cache = true;
+      } else if (arg.equals("--profile") || arg.equals("--profile=exact")) {
+        profile = Optional.of(Profiler.Mode.EXACT);
+      } else if (arg.equals("--profile=sampling")) {
+        profile = Optional.of(Profiler.Mode.SAMPLING);
+      } else if (arg.equals("--stats")) {
+        stats = true;
+      } else if (arg.startsWith("--")) {
+        exitWithUsage();
+      } else {
+        scripts.add(arg);
       }
     }
+
+    if (stats) {
+      enableStats();
+    }
+
+    if (batch) {
+      if (scripts.size() != 1) {
+        exitWithUsage();
+      }
+      runBatch(scripts.get(0), backendType);
+      return;
+    }
+
+    if (profile.isPresent()) {
+      if (scripts.size() != 1 || !backendType.isObservable()) {
+        exitWithUsage();
+      }
+      profileFile(scripts.get(0), backendType, cache, profile.get());
+      return;
+    }
+
+    switch (scripts.size()) {
+      case 1 -> runFile(scripts.get(0), backendType, cache, StatementObserver.NONE);
+      case 0 -> runPrompt(backendType);
+      default -> exitWithUsage();
+    }
   }
 
-  static void run(String source) {
-    final var scanner = new Scanner(source);
-    final var tokens = scanner.scanTokens();
-    final var parser = new Parser(tokens);
-    final var statements = parser.parse();
-    final var interpreter = new Interpreter(new DefaultEnvironmentAdapter(), new DefaultIOPort());
-    interpreter.interpret(statements);
+  private static void exitWithUsage() {
+    System.out.println(
+        "Usage: jlox [--vm | --closure | --jit] [--stats]"
+            + " [[--cache] [--profile[=exact|sampling]] script | --batch directory-or-list]");
+    System.exit(ExitCode.BAD_CMDLINE_ARGUMENTS.getCode());
   }
 
-  static void runFile(String path) throws IOException {
-    final var bytes = Files.readAllBytes(Paths.get(path));
-    run(new String(bytes, Charsets.UTF_8));
+  // Metrics decides whether it is enabled when first loaded, so the property must be set before
+  // anything that is instrumented runs. The summary is printed at exit so that failing scripts and
+  // batches, which exit early, still report.
+  private static void enableStats() {
+    System.setProperty(Metrics.PROPERTY, "true");
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(() -> Metrics.snapshot().summary().forEach(System.err::println)));
   }
 
-  static void runPrompt() throws IOException {
+  static void runFile(
+      String path, BackendType backendType, boolean cache, StatementObserver observer)
+      throws IOException {
+    final var file = Paths.get(path);
+    // Asynchronous, so output still appears on time while the script computes between prints.
+    try (final var io =
+        new BufferedIOPort(
+            Channels.newChannel(new FileOutputStream(FileDescriptor.out)),
+            BufferedIOPort.DEFAULT_BUFFER_SIZE,
+            BufferedIOPort.DEFAULT_FLUSH_INTERVAL,
+            true)) {
+      if (Files.isRegularFile(file) && Files.size(file) <= Integer.MAX_VALUE) {
+        final var globals = new GlobalEnvironmentAdapter();
+        final var program =
+            cache
+                ? SidecarCache.program(file, globals.symbols())
+                : Optional.<List<Statement>>empty();
+        if (program.isPresent()) {
+          final var start = Metrics.ENABLED ? System.nanoTime() : 0;
+          try {
+            final var backend =
+                backendType.create(globals, io, ExecutionBudget.unlimited(), observer);
+            backend.interpret(program.get());
+            backend.awaitTasks();
+          } finally {
+            if (Metrics.ENABLED) {
+              Metrics.phase(Metrics.Phase.INTERPRET, start);
+            }
+          }
+          return;
+        }
+        final var session = new Session(backendType, io, ExecutionBudget.unlimited(), observer);
+        session.execute(new Scanner(MappedSourceReader.open(file)));
+        session.awaitTasks();
+        return;
+      }
+      try (final var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        final var session = new Session(backendType, io, ExecutionBudget.unlimited(), observer);
+        session.execute(new Scanner(reader));
+        session.awaitTasks();
+      }
+    }
+  }
+
+  // The report goes to standard error and the folded stacks beside the script, even if it fails.
+  static void profileFile(String path, BackendType backendType, boolean cache, Profiler.Mode mode)
+      throws IOException {
+    final var profiler = new Profiler(mode);
+    try (profiler) {
+      runFile(path, backendType, cache, profiler.start());
+    } finally {
+      final var report = new ProfileReport(profiler);
+      Files.write(Paths.get(path + ".folded"), report.folded(), StandardCharsets.UTF_8);
+      report.top(20).forEach(System.err::println);
+    }
+  }
+
+  static void runBatch(String path, BackendType backendType) throws IOException {
+    final var summary = new BatchRunner(backendType).run(BatchRunner.scripts(Paths.get(path)));
+    try (final var io =
+        new BufferedIOPort(Channels.newChannel(new FileOutputStream(FileDescriptor.out)))) {
+      summary.report(io);
+    }
+    if (summary.exitCode() != ExitCode.SUCCESS) {
+      System.exit(summary.exitCode().getCode());
+    }
+  }
+
+  static void runPrompt(BackendType backendType) throws IOException {
+    final var session = new Session(backendType, new DefaultIOPort());
     final var input = new InputStreamReader(System.in);
     try (final var reader = new BufferedReader(input)) {
       while (true) {
@@ -51,11 +183,16 @@ public class Main {
         }
 
         try {
-          run(line);
+          session.execute(line);
         } catch (LoxException e) {
           System.err.println(e.getMessage());
         }
       }
     }
+    try {
+      session.awaitTasks();
+    } catch (LoxException e) {
+      System.err.println(e.getMessage());
+    }
   }
 }
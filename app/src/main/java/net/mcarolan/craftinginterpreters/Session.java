@@ -0,0 +1,101 @@
+package net.mcarolan.craftinginterpreters;
+
+import java.util.List;
+import net.mcarolan.craftinginterpreters.lox.Backend;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.StatementObserver;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+import net.mcarolan.craftinginterpreters.optimizer.Optimizer;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.parser.ScannerTokenStream;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+/**
+ * A long-lived interpreter that source can be fed to piece by piece. Globals and the backend,
+ * including anything it has compiled or specialized, carry over from one input to the next, and
+ * each input is compiled and run one declaration at a time. A failing input leaves the session
+ * usable: declarations before the failure keep their effects and the next input starts afresh.
+ */
+public class Session {
+
+  private final GlobalEnvironmentAdapter globals = new GlobalEnvironmentAdapter();
+  private final Optimizer optimizer = new Optimizer();
+  private final Resolver resolver = new Resolver(globals.symbols());
+  private final Backend backend;
+
+  public Session(BackendType backendType, IOPort io) {
+    this(backendType, io, ExecutionBudget.unlimited());
+  }
+
+  /** Runs every input against the one budget, so its limits apply to the session as a whole. */
+  public Session(BackendType backendType, IOPort io, ExecutionBudget budget) {
+    this(backendType, io, budget, StatementObserver.NONE);
+  }
+
+  public Session(
+      BackendType backendType, IOPort io, ExecutionBudget budget, StatementObserver observer) {
+    this.backend = backendType.create(globals, io, budget, observer);
+  }
+
+  public void execute(String source) {
+    execute(new Scanner(source));
+  }
+
+  public void execute(Scanner scanner) {
+    if (Metrics.ENABLED) {
+      executeTimed(scanner);
+      return;
+    }
+    final var parser = new Parser(new ScannerTokenStream(scanner));
+    for (var declaration = parser.next(); declaration.isPresent(); declaration = parser.next()) {
+      backend.interpret(resolver.resolve(optimizer.optimize(List.of(declaration.get()))));
+    }
+  }
+
+  // Scanning is interleaved with parsing here, so each token pull is timed on its own and charged
+  // to the scan phase, leaving the parse phase with the rest of the parser's time.
+  private void executeTimed(Scanner scanner) {
+    final var timings = new Metrics.Timings();
+    final var parser =
+        new Parser(
+            new ScannerTokenStream(scanner) {
+              @Override
+              protected Token scan() {
+                timings.lap(Metrics.Phase.PARSE);
+                final var token = super.scan();
+                timings.lap(Metrics.Phase.SCAN);
+                return token;
+              }
+            });
+    try {
+      for (var declaration = parser.next(); declaration.isPresent(); declaration = parser.next()) {
+        timings.lap(Metrics.Phase.PARSE);
+        final var optimized = optimizer.optimize(List.of(declaration.get()));
+        timings.lap(Metrics.Phase.OPTIMIZE);
+        final var resolved = resolver.resolve(optimized);
+        timings.lap(Metrics.Phase.RESOLVE);
+        backend.interpret(resolved);
+        timings.lap(Metrics.Phase.INTERPRET);
+      }
+      timings.lap(Metrics.Phase.PARSE);
+    } finally {
+      timings.report();
+    }
+  }
+
+  /**
+   * Waits for the tasks spawned so far that were never awaited, and raises the first of their
+   * failures nobody awaited. Call it before reading the session's output as final.
+   */
+  public void awaitTasks() {
+    backend.awaitTasks();
+  }
+
+  public GlobalEnvironmentAdapter globals() {
+    return globals;
+  }
+}
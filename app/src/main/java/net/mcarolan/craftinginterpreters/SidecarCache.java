@@ -0,0 +1,147 @@
+package net.mcarolan.craftinginterpreters;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import net.mcarolan.craftinginterpreters.ast.AstCodec;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.LoxException;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.optimizer.Optimizer;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.MappedSourceReader;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+
+/**
+ * Keeps the resolved program for a script in a file beside it, so later runs of an unchanged script
+ * map that file and decode it instead of scanning, parsing, optimizing and resolving. The sidecar
+ * records the codec version and the SHA-256 of the source it was built from, and is ignored and
+ * rebuilt when either differs or it cannot be decoded. Writing the sidecar is best effort: a script
+ * in a read-only directory still runs, just without the cache.
+ */
+public final class SidecarCache {
+
+  public static final String SUFFIX = ".loxc";
+
+  private static final int MAGIC = 0x4C4F5843;
+  private static final int HASH_LENGTH = 32;
+
+  private SidecarCache() {}
+
+  public static Path sidecar(Path script) {
+    return script.resolveSibling(script.getFileName() + SUFFIX);
+  }
+
+  /**
+   * The program for the script resolved against the symbols, from its sidecar when that is current
+   * and otherwise compiled and written to the sidecar. Empty if the script does not compile, in
+   * which case it should be run declaration by declaration so that it fails as it would without the
+   * cache.
+   */
+  public static Optional<List<Statement>> program(Path script, SymbolTable symbols)
+      throws IOException {
+    final var source = map(script);
+    final var hash = sha256(source.duplicate());
+
+    final var cached = load(sidecar(script), hash, symbols);
+    if (cached.isPresent()) {
+      return cached;
+    }
+
+    final List<Statement> program;
+    try {
+      program = compile(new Scanner(new MappedSourceReader(source)), symbols);
+    } catch (LoxException e) {
+      return Optional.empty();
+    }
+    store(script, hash, program);
+    return Optional.of(program);
+  }
+
+  public static List<Statement> compile(Path script, SymbolTable symbols) throws IOException {
+    return compile(new Scanner(MappedSourceReader.open(script)), symbols);
+  }
+
+  static List<Statement> compile(Scanner scanner, SymbolTable symbols) {
+    final var statements = new Parser(scanner.scanBuffer()).parse();
+    return new Resolver(symbols).resolve(new Optimizer().optimize(statements));
+  }
+
+  private static Optional<List<Statement>> load(Path sidecar, byte[] hash, SymbolTable symbols) {
+    if (!Files.isRegularFile(sidecar)) {
+      return Optional.empty();
+    }
+    try {
+      final var buffer = map(sidecar);
+      if (buffer.getInt() != MAGIC || buffer.getInt() != AstCodec.VERSION) {
+        return Optional.empty();
+      }
+      final var recorded = new byte[HASH_LENGTH];
+      buffer.get(recorded);
+      if (!Arrays.equals(recorded, hash)) {
+        return Optional.empty();
+      }
+      return Optional.of(AstCodec.decode(buffer, symbols));
+    } catch (IOException | RuntimeException e) {
+      // A truncated, corrupt, unreadable or vanished sidecar is rebuilt like a stale one.
+      return Optional.empty();
+    }
+  }
+
+  // The temporary file is created readable by its owner only, so it takes on the script's
+  // permissions before it replaces the sidecar, or nobody else sharing the script could use it.
+  private static void store(Path script, byte[] hash, List<Statement> program) {
+    final var sidecar = sidecar(script);
+    final var encoded = AstCodec.encode(program);
+    final var contents = ByteBuffer.allocate(8 + HASH_LENGTH + encoded.length);
+    contents.putInt(MAGIC).putInt(AstCodec.VERSION).put(hash).put(encoded).flip();
+    try {
+      final var temporary =
+          Files.createTempFile(sidecar.toAbsolutePath().getParent(), ".loxc", ".tmp");
+      try {
+        Files.write(temporary, contents.array());
+        final var permissions = Files.getFileAttributeView(script, PosixFileAttributeView.class);
+        if (permissions != null) {
+          Files.setPosixFilePermissions(temporary, permissions.readAttributes().permissions());
+        }
+        Files.move(
+            temporary,
+            sidecar,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+    } catch (IOException e) {
+      // Not being able to cache only costs the next run a parse.
+    }
+  }
+
+  private static MappedByteBuffer map(Path path) throws IOException {
+    try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private static byte[] sha256(ByteBuffer source) {
+    try {
+      final var digest = MessageDigest.getInstance("SHA-256");
+      digest.update(source);
+      return digest.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
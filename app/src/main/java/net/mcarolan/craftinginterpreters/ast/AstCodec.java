@@ -0,0 +1,414 @@
+package net.mcarolan.craftinginterpreters.ast;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.ChannelValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NullValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.lox.value.StringValue;
+import net.mcarolan.craftinginterpreters.lox.value.TaskValue;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/**
+ * A compact binary form of a program. Every string, whether a lexeme or a string literal, is
+ * written once to a table at the front and referred to by index, integers are written as unsigned
+ * varints and each node starts with a one-byte tag, so decoding is a single forward pass that never
+ * touches the scanner or parser. Tokens keep their lexemes and lines so errors from a decoded
+ * program read the same as from a parsed one. Global symbols are only meaningful within one symbol
+ * table, so they are not written; decoding interns the names again into the table it is given.
+ * {@link #VERSION} changes whenever the encoding or the records it covers do.
+ */
+public final class AstCodec {
+
+  public static final int VERSION = 3;
+
+  private static final int BLOCK = 0;
+  private static final int EXPRESSION_STATEMENT = 1;
+  private static final int IF = 2;
+  private static final int LOCAL_VAR = 3;
+  private static final int PRINT = 4;
+  private static final int SCOPED_BLOCK = 5;
+  private static final int VAR = 6;
+  private static final int WHILE = 7;
+  private static final int SEND = 8;
+  private static final int GLOBAL_VAR = 9;
+
+  private static final int ASSIGN = 16;
+  private static final int BINARY = 17;
+  private static final int GROUPING = 18;
+  private static final int LITERAL = 19;
+  private static final int LOCAL_ASSIGN = 20;
+  private static final int LOCAL_VARIABLE = 21;
+  private static final int LOGICAL = 22;
+  private static final int UNARY = 23;
+  private static final int VARIABLE = 24;
+  private static final int SPAWN = 25;
+  private static final int GLOBAL_ASSIGN = 26;
+  private static final int GLOBAL_VARIABLE = 27;
+
+  private static final int ABSENT = 0;
+  private static final int NIL = 1;
+  private static final int FALSE = 2;
+  private static final int TRUE = 3;
+  private static final int NUMBER = 4;
+  private static final int STRING = 5;
+
+  private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+  private AstCodec() {}
+
+  public static byte[] encode(List<Statement> statements) {
+    final var encoder = new Encoder();
+    encoder.statements(statements);
+    return encoder.toByteArray();
+  }
+
+  /** Decodes a program from the buffer's position onwards, leaving the position after it. */
+  public static List<Statement> decode(ByteBuffer buffer, SymbolTable symbols) {
+    return new Decoder(buffer, symbols).program();
+  }
+
+  private static final class Encoder {
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    byte[] toByteArray() {
+      final var header = new ByteArrayOutputStream();
+      varint(header, strings.size());
+      for (final var string : strings.keySet()) {
+        final var bytes = string.getBytes(StandardCharsets.UTF_8);
+        varint(header, bytes.length);
+        header.writeBytes(bytes);
+      }
+      varint(header, body.size());
+      header.writeBytes(body.toByteArray());
+      return header.toByteArray();
+    }
+
+    void statements(List<Statement> statements) {
+      varint(statements.size());
+      statements.forEach(this::statement);
+    }
+
+    void statement(Statement statement) {
+      switch (statement) {
+        case Block block -> {
+          tag(BLOCK);
+          statements(block.statementList());
+        }
+        case ExpressionStatement expressionStatement -> {
+          tag(EXPRESSION_STATEMENT);
+          expression(expressionStatement.expression());
+        }
+        case If anIf -> {
+          tag(IF);
+          expression(anIf.condition());
+          statement(anIf.thenBranch());
+          varint(anIf.elseBranch().isPresent() ? 1 : 0);
+          anIf.elseBranch().ifPresent(this::statement);
+        }
+        case LocalVar localVar -> {
+          tag(LOCAL_VAR);
+          token(localVar.name());
+          expression(localVar.initialiser());
+          varint(localVar.slot());
+        }
+        case Print print -> {
+          tag(PRINT);
+          expression(print.expression());
+        }
+        case ScopedBlock block -> {
+          tag(SCOPED_BLOCK);
+          statements(block.statementList());
+          varint(block.slotCount());
+        }
+        case Var var -> {
+          tag(VAR);
+          token(var.name());
+          expression(var.initialiser());
+        }
+        case While loop -> {
+          tag(WHILE);
+          expression(loop.condition());
+          statement(loop.body());
+        }
+        case Send send -> {
+          tag(SEND);
+          token(send.keyword());
+          expression(send.channel());
+          expression(send.value());
+        }
+        case GlobalVar var -> {
+          tag(GLOBAL_VAR);
+          token(var.name());
+          expression(var.initialiser());
+        }
+      }
+    }
+
+    void expression(Expression expression) {
+      switch (expression) {
+        case Assign assign -> {
+          tag(ASSIGN);
+          token(assign.name());
+          expression(assign.value());
+        }
+        case Binary binary -> {
+          tag(BINARY);
+          expression(binary.left());
+          token(binary.operator());
+          expression(binary.right());
+        }
+        case Grouping grouping -> {
+          tag(GROUPING);
+          expression(grouping.expression());
+        }
+        case Literal literal -> {
+          tag(LITERAL);
+          value(literal.value());
+        }
+        case LocalAssign assign -> {
+          tag(LOCAL_ASSIGN);
+          token(assign.name());
+          expression(assign.value());
+          varint(assign.depth());
+          varint(assign.slot());
+        }
+        case LocalVariable variable -> {
+          tag(LOCAL_VARIABLE);
+          token(variable.name());
+          varint(variable.depth());
+          varint(variable.slot());
+        }
+        case Logical logical -> {
+          tag(LOGICAL);
+          expression(logical.left());
+          token(logical.operator());
+          expression(logical.right());
+        }
+        case Unary unary -> {
+          tag(UNARY);
+          token(unary.operator());
+          expression(unary.right());
+        }
+        case Variable variable -> {
+          tag(VARIABLE);
+          token(variable.name());
+        }
+        case Spawn spawn -> {
+          tag(SPAWN);
+          token(spawn.keyword());
+          statement(spawn.body());
+          varint(spawn.captures().size());
+          spawn.captures().forEach(this::expression);
+        }
+        case GlobalAssign assign -> {
+          tag(GLOBAL_ASSIGN);
+          token(assign.name());
+          expression(assign.value());
+        }
+        case GlobalVariable variable -> {
+          tag(GLOBAL_VARIABLE);
+          token(variable.name());
+        }
+      }
+      varint(expression.line());
+    }
+
+    void token(Token token) {
+      varint(token.type().ordinal());
+      string(token.lexeme());
+      value(token.literal());
+      varint(token.lineStart());
+      varint(token.lineEnd());
+    }
+
+    void value(LoxValue value) {
+      switch (value) {
+        case null -> tag(ABSENT);
+        case NullValue nil -> tag(NIL);
+        case BooleanValue bool -> tag(bool.value() ? TRUE : FALSE);
+        case NumberValue number -> {
+          tag(NUMBER);
+          final var bits = Double.doubleToRawLongBits(number.value());
+          for (var shift = 56; shift >= 0; shift -= 8) {
+            body.write((int) (bits >>> shift));
+          }
+        }
+        case StringValue string -> {
+          tag(STRING);
+          string(string.value());
+        }
+        case ChannelValue ignored ->
+            throw new IllegalArgumentException("Channels only exist at run time");
+        case TaskValue ignored ->
+            throw new IllegalArgumentException("Tasks only exist at run time");
+      }
+    }
+
+    void string(String string) {
+      varint(strings.computeIfAbsent(string, ignored -> strings.size()));
+    }
+
+    void tag(int tag) {
+      body.write(tag);
+    }
+
+    void varint(int value) {
+      varint(body, value);
+    }
+
+    static void varint(ByteArrayOutputStream out, int value) {
+      while ((value & ~0x7F) != 0) {
+        out.write((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.write(value);
+    }
+  }
+
+  private static final class Decoder {
+    private final ByteBuffer buffer;
+    private final SymbolTable symbols;
+    private String[] strings;
+
+    Decoder(ByteBuffer buffer, SymbolTable symbols) {
+      this.buffer = buffer;
+      this.symbols = symbols;
+    }
+
+    List<Statement> program() {
+      strings = new String[varint()];
+      for (var i = 0; i < strings.length; i++) {
+        final var bytes = new byte[varint()];
+        buffer.get(bytes);
+        strings[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+      final var bodyEnd = varint() + buffer.position();
+      final var program = statements();
+      if (buffer.position() != bodyEnd) {
+        throw new IllegalArgumentException("Encoded program has trailing or missing bytes");
+      }
+      return program;
+    }
+
+    List<Statement> statements() {
+      final var count = varint();
+      final var statements = new ArrayList<Statement>(count);
+      for (var i = 0; i < count; i++) {
+        statements.add(statement());
+      }
+      return List.copyOf(statements);
+    }
+
+    Statement statement() {
+      final var tag = buffer.get();
+      return switch (tag) {
+        case BLOCK -> new Block(statements());
+        case EXPRESSION_STATEMENT -> new ExpressionStatement(expression());
+        case IF -> {
+          final var condition = expression();
+          final var thenBranch = statement();
+          yield new If(
+              condition, thenBranch, varint() == 1 ? Optional.of(statement()) : Optional.empty());
+        }
+        case LOCAL_VAR -> new LocalVar(token(), expression(), varint());
+        case PRINT -> new Print(expression());
+        case SCOPED_BLOCK -> new ScopedBlock(statements(), varint());
+        case VAR -> new Var(token(), expression());
+        case WHILE -> new While(expression(), statement());
+        case SEND -> new Send(token(), expression(), expression());
+        case GLOBAL_VAR -> {
+          final var name = token();
+          yield new GlobalVar(name, expression(), symbol(name));
+        }
+        default -> throw new IllegalArgumentException("Unknown statement tag " + tag);
+      };
+    }
+
+    // Arguments are evaluated left to right, so each constructor call reads its fields in the
+    // order the encoder wrote them, with the line last.
+    Expression expression() {
+      final var tag = buffer.get();
+      return switch (tag) {
+        case ASSIGN -> new Assign(token(), expression(), varint());
+        case BINARY -> new Binary(expression(), token(), expression(), varint());
+        case GROUPING -> new Grouping(expression(), varint());
+        case LITERAL -> new Literal(value(), varint());
+        case LOCAL_ASSIGN -> new LocalAssign(token(), expression(), varint(), varint(), varint());
+        case LOCAL_VARIABLE -> new LocalVariable(token(), varint(), varint(), varint());
+        case LOGICAL -> new Logical(expression(), token(), expression(), varint());
+        case UNARY -> new Unary(token(), expression(), varint());
+        case VARIABLE -> new Variable(token(), varint());
+        case SPAWN -> new Spawn(token(), statement(), expressions(), varint());
+        case GLOBAL_ASSIGN -> {
+          final var name = token();
+          yield new GlobalAssign(name, expression(), symbol(name), varint());
+        }
+        case GLOBAL_VARIABLE -> {
+          final var name = token();
+          yield new GlobalVariable(name, symbol(name), varint());
+        }
+        default -> throw new IllegalArgumentException("Unknown expression tag " + tag);
+      };
+    }
+
+    List<Expression> expressions() {
+      final var count = varint();
+      final var expressions = new ArrayList<Expression>(count);
+      for (var i = 0; i < count; i++) {
+        expressions.add(expression());
+      }
+      return List.copyOf(expressions);
+    }
+
+    int symbol(Token name) {
+      return symbols.intern(name.lexeme());
+    }
+
+    Token token() {
+      return new Token(TOKEN_TYPES[varint()], string(), value(), varint(), varint());
+    }
+
+    LoxValue value() {
+      final var tag = buffer.get();
+      return switch (tag) {
+        case ABSENT -> null;
+        case NIL -> NullValue.VALUE;
+        case FALSE -> BooleanValue.FALSE;
+        case TRUE -> BooleanValue.TRUE;
+        case NUMBER -> NumberValue.of(buffer.getDouble());
+        case STRING -> new StringValue(string());
+        default -> throw new IllegalArgumentException("Unknown value tag " + tag);
+      };
+    }
+
+    String string() {
+      return strings[varint()];
+    }
+
+    int varint() {
+      var value = 0;
+      for (var shift = 0; shift < 32; shift += 7) {
+        final var b = buffer.get();
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint");
+    }
+  }
+}
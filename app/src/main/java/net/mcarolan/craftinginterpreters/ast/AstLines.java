@@ -0,0 +1,102 @@
+package net.mcarolan.craftinginterpreters.ast;
+
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+/** Moves trees to other lines, for source that has been moved by lines added or removed above. */
+public final class AstLines {
+
+  private AstLines() {}
+
+  public static Statement shift(Statement statement, int delta) {
+    return switch (statement) {
+      case ExpressionStatement expression ->
+          new ExpressionStatement(shift(expression.expression(), delta));
+      case Print print -> new Print(shift(print.expression(), delta));
+      case Send send ->
+          new Send(
+              shift(send.keyword(), delta),
+              shift(send.channel(), delta),
+              shift(send.value(), delta));
+      case Var var -> new Var(shift(var.name(), delta), shift(var.initialiser(), delta));
+      case GlobalVar var ->
+          new GlobalVar(shift(var.name(), delta), shift(var.initialiser(), delta), var.symbol());
+      case LocalVar var ->
+          new LocalVar(shift(var.name(), delta), shift(var.initialiser(), delta), var.slot());
+      case If anIf ->
+          new If(
+              shift(anIf.condition(), delta),
+              shift(anIf.thenBranch(), delta),
+              anIf.elseBranch().map(branch -> shift(branch, delta)));
+      case While loop -> new While(shift(loop.condition(), delta), shift(loop.body(), delta));
+      case Block block ->
+          new Block(block.statementList().stream().map(inner -> shift(inner, delta)).toList());
+      case ScopedBlock block ->
+          new ScopedBlock(
+              block.statementList().stream().map(inner -> shift(inner, delta)).toList(),
+              block.slotCount());
+    };
+  }
+
+  public static Expression shift(Expression expression, int delta) {
+    return switch (expression) {
+      case Binary binary ->
+          new Binary(
+              shift(binary.left(), delta),
+              shift(binary.operator(), delta),
+              shift(binary.right(), delta),
+              binary.line() + delta);
+      case Logical logical ->
+          new Logical(
+              shift(logical.left(), delta),
+              shift(logical.operator(), delta),
+              shift(logical.right(), delta),
+              logical.line() + delta);
+      case Grouping grouping ->
+          new Grouping(shift(grouping.expression(), delta), grouping.line() + delta);
+      case Unary unary ->
+          new Unary(
+              shift(unary.operator(), delta), shift(unary.right(), delta), unary.line() + delta);
+      case Literal literal -> new Literal(literal.value(), literal.line() + delta);
+      case Variable variable ->
+          new Variable(shift(variable.name(), delta), variable.line() + delta);
+      case GlobalVariable global ->
+          new GlobalVariable(shift(global.name(), delta), global.symbol(), global.line() + delta);
+      case LocalVariable local ->
+          new LocalVariable(
+              shift(local.name(), delta), local.depth(), local.slot(), local.line() + delta);
+      case Assign assign ->
+          new Assign(
+              shift(assign.name(), delta), shift(assign.value(), delta), assign.line() + delta);
+      case GlobalAssign assign ->
+          new GlobalAssign(
+              shift(assign.name(), delta),
+              shift(assign.value(), delta),
+              assign.symbol(),
+              assign.line() + delta);
+      case LocalAssign assign ->
+          new LocalAssign(
+              shift(assign.name(), delta),
+              shift(assign.value(), delta),
+              assign.depth(),
+              assign.slot(),
+              assign.line() + delta);
+      case Spawn spawn ->
+          new Spawn(
+              shift(spawn.keyword(), delta),
+              shift(spawn.body(), delta),
+              spawn.captures().stream().map(capture -> shift(capture, delta)).toList(),
+              spawn.line() + delta);
+    };
+  }
+
+  private static Token shift(Token token, int delta) {
+    return new Token(
+        token.type(),
+        token.lexeme(),
+        token.literal(),
+        token.lineStart() + delta,
+        token.lineEnd() + delta);
+  }
+}
@@ -0,0 +1,47 @@
+package net.mcarolan.craftinginterpreters.ast;
+
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+
+public final class AstNodes {
+
+  private AstNodes() {}
+
+  public static int count(Statement statement) {
+    return 1
+        + switch (statement) {
+          case ExpressionStatement expression -> count(expression.expression());
+          case Print print -> count(print.expression());
+          case Send send -> count(send.channel()) + count(send.value());
+          case Var var -> count(var.initialiser());
+          case GlobalVar var -> count(var.initialiser());
+          case LocalVar var -> count(var.initialiser());
+          case If anIf ->
+              count(anIf.condition())
+                  + count(anIf.thenBranch())
+                  + anIf.elseBranch().map(AstNodes::count).orElse(0);
+          case While loop -> count(loop.condition()) + count(loop.body());
+          case Block block -> block.statementList().stream().mapToInt(AstNodes::count).sum();
+          case ScopedBlock block -> block.statementList().stream().mapToInt(AstNodes::count).sum();
+        };
+  }
+
+  public static int count(Expression expression) {
+    return 1
+        + switch (expression) {
+          case Binary binary -> count(binary.left()) + count(binary.right());
+          case Logical logical -> count(logical.left()) + count(logical.right());
+          case Grouping grouping -> count(grouping.expression());
+          case Unary unary -> count(unary.right());
+          case Assign assign -> count(assign.value());
+          case GlobalAssign assign -> count(assign.value());
+          case LocalAssign assign -> count(assign.value());
+          case Spawn spawn ->
+              count(spawn.body()) + spawn.captures().stream().mapToInt(AstNodes::count).sum();
+          case Literal ignored -> 0;
+          case Variable ignored -> 0;
+          case GlobalVariable ignored -> 0;
+          case LocalVariable ignored -> 0;
+        };
+  }
+}
@@ -21,8 +21,24 @@ public class AstPrinter {
               "assign",
               new Literal(new StringValue(assign.name().lexeme()), assign.line()),
               assign.value());
+      case GlobalVariable global ->
+          parenthesise(
+              "global", new Literal(new StringValue(global.name().lexeme()), global.line()));
+      case GlobalAssign assign ->
+          parenthesise(
+              "assign",
+              new Literal(new StringValue(assign.name().lexeme()), assign.line()),
+              assign.value());
+      case LocalVariable local ->
+          parenthesise("local", new Literal(new StringValue(local.name().lexeme()), local.line()));
+      case LocalAssign assign ->
+          parenthesise(
+              "assign",
+              new Literal(new StringValue(assign.name().lexeme()), assign.line()),
+              assign.value());
       case Logical logical ->
           parenthesise(logical.operator().lexeme(), logical.left(), logical.right());
+      case Spawn spawn -> parenthesise("spawn", spawn.captures().toArray(Expression[]::new));
     };
   }
 
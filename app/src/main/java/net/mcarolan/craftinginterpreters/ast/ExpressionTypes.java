@@ -0,0 +1,26 @@
+package net.mcarolan.craftinginterpreters.ast;
+
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+public final class ExpressionTypes {
+
+  private ExpressionTypes() {}
+
+  /** True when the expression either evaluates to a number or fails, whatever its operands hold. */
+  public static boolean producesNumber(Expression expression) {
+    return switch (expression) {
+      case Literal literal -> literal.value() instanceof NumberValue;
+      case Grouping grouping -> producesNumber(grouping.expression());
+      case Unary unary -> unary.operator().type() == TokenType.MINUS;
+      case Binary binary ->
+          switch (binary.operator().type()) {
+            case MINUS, STAR, SLASH -> true;
+            case PLUS -> producesNumber(binary.left()) && producesNumber(binary.right());
+            default -> false;
+          };
+      default -> false;
+    };
+  }
+}
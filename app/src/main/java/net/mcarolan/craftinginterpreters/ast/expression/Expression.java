@@ -1,6 +1,17 @@
 package net.mcarolan.craftinginterpreters.ast.expression;
 
 public sealed interface Expression
-    permits Assign, Binary, Grouping, Literal, Logical, Unary, Variable {
+    permits Assign,
+        Binary,
+        GlobalAssign,
+        GlobalVariable,
+        Grouping,
+        Literal,
+        LocalAssign,
+        LocalVariable,
+        Logical,
+        Spawn,
+        Unary,
+        Variable {
   int line();
 }
@@ -0,0 +1,6 @@
+package net.mcarolan.craftinginterpreters.ast.expression;
+
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+public record GlobalAssign(Token name, Expression value, int symbol, int line)
+    implements Expression {}
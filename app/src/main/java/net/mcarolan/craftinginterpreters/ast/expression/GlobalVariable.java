@@ -0,0 +1,6 @@
+package net.mcarolan.craftinginterpreters.ast.expression;
+
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+/** A global read, with its name interned by the resolver into its environment's symbol table. */
+public record GlobalVariable(Token name, int symbol, int line) implements Expression {}
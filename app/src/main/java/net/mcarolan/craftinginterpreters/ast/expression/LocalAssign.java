@@ -0,0 +1,6 @@
+package net.mcarolan.craftinginterpreters.ast.expression;
+
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+public record LocalAssign(Token name, Expression value, int depth, int slot, int line)
+    implements Expression {}
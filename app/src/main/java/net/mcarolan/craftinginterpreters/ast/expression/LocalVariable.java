@@ -0,0 +1,5 @@
+package net.mcarolan.craftinginterpreters.ast.expression;
+
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+public record LocalVariable(Token name, int depth, int slot, int line) implements Expression {}
@@ -0,0 +1,13 @@
+package net.mcarolan.craftinginterpreters.ast.expression;
+
+import java.util.List;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+/**
+ * Starts a block on its own task. The parser leaves the body a {@code Block} with no captures; the
+ * resolver makes it a {@code ScopedBlock} and lists the expressions, evaluated by the spawning
+ * task, whose values fill the task's outermost scope, one slot each.
+ */
+public record Spawn(Token keyword, Statement body, List<Expression> captures, int line)
+    implements Expression {}
@@ -0,0 +1,5 @@
+package net.mcarolan.craftinginterpreters.ast.statement;
+
+import java.util.List;
+
+public record ScopedBlock(List<Statement> statementList, int slotCount) implements Statement {}
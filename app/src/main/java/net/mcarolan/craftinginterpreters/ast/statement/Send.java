@@ -0,0 +1,6 @@
+package net.mcarolan.craftinginterpreters.ast.statement;
+
+import net.mcarolan.craftinginterpreters.ast.expression.Expression;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+public record Send(Token keyword, Expression channel, Expression value) implements Statement {}
@@ -1,3 +1,13 @@
 package net.mcarolan.craftinginterpreters.ast.statement;
 
-public sealed interface Statement permits Block, ExpressionStatement, If, Print, Var, While {}
+public sealed interface Statement
+    permits Block,
+        ExpressionStatement,
+        GlobalVar,
+        If,
+        LocalVar,
+        Print,
+        ScopedBlock,
+        Send,
+        Var,
+        While {}
@@ -0,0 +1,349 @@
+package net.mcarolan.craftinginterpreters.closure;
+
+import static net.mcarolan.craftinginterpreters.ast.ExpressionTypes.producesNumber;
+import static net.mcarolan.craftinginterpreters.lox.Operators.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.lox.CompilerException;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.GlobalCell;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.InterpreterException;
+import net.mcarolan.craftinginterpreters.lox.StatementObserver;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/**
+ * Converts resolved statements into a tree of pre-linked {@link StatementNode}s and {@link
+ * ExpressionNode}s. All dispatch on node and operator type happens here, once, so executing the
+ * result never switches over the syntax tree. Operators whose operands are statically known to be
+ * numbers skip the operand type checks and pass unboxed doubles between them; the remaining
+ * arithmetic and comparison sites specialize themselves at run time, see {@link
+ * SpecializingBinaryNode}. Global variables are bound to their {@link
+ * net.mcarolan.craftinginterpreters.lox.GlobalCell} at compile time.
+ */
+public class ClosureCompiler {
+
+  // Compiled nodes bind the budget, which only one thread may use.
+  private static final String CONCURRENT =
+      "Tasks and channels are only supported by the tree-walking backends";
+
+  private final GlobalEnvironmentAdapter globals;
+  private final IOPort io;
+  private final ExecutionBudget budget;
+  private final StatementObserver observer;
+  private final List<SpecializingBinaryNode> sites = new ArrayList<>();
+  private int blockDepth = 0;
+
+  public ClosureCompiler(GlobalEnvironmentAdapter globals, IOPort io) {
+    this(globals, io, ExecutionBudget.unlimited(), StatementObserver.NONE);
+  }
+
+  public ClosureCompiler(
+      GlobalEnvironmentAdapter globals,
+      IOPort io,
+      ExecutionBudget budget,
+      StatementObserver observer) {
+    this.globals = globals;
+    this.io = io;
+    this.budget = budget;
+    this.observer = observer;
+  }
+
+  /** Statistics for the sites compiled since {@link #forgetSites}, in the order compiled. */
+  public List<SiteStatistics> siteStatistics() {
+    return sites.stream().map(SpecializingBinaryNode::statistics).toList();
+  }
+
+  /**
+   * Lets go of the sites compiled so far, so that a long-lived compiler does not keep every site of
+   * every program it has ever compiled alive for the sake of its statistics.
+   */
+  public void forgetSites() {
+    sites.clear();
+  }
+
+  public StatementNode compile(Statement statement) {
+    final var node = compileStatement(statement);
+    if (observer == StatementObserver.NONE) {
+      return node;
+    }
+    return environment -> {
+      observer.enter(statement);
+      try {
+        node.execute(environment);
+      } finally {
+        observer.exit(statement);
+      }
+    };
+  }
+
+  private StatementNode compileStatement(Statement statement) {
+    return switch (statement) {
+      case ExpressionStatement expression -> {
+        final var node = compile(expression.expression());
+        yield environment -> node.evaluate(environment);
+      }
+      case Print print -> {
+        final var node = compile(print.expression());
+        yield environment -> io.print(node.evaluate(environment).stringify());
+      }
+      case Var var -> compileDefine(globals.cell(var.name().lexeme()), var.initialiser());
+      case GlobalVar var -> compileDefine(globals.cell(var.symbol()), var.initialiser());
+      case LocalVar var -> {
+        final var slot = var.slot();
+        final var initialiser = compile(var.initialiser());
+        yield environment -> environment.defineAt(slot, initialiser.evaluate(environment));
+      }
+      case ScopedBlock scoped -> compileBlock(scoped);
+      case Block ignored ->
+          throw new IllegalStateException("Blocks must be resolved before compilation");
+      case If anIf -> {
+        final var condition = compile(anIf.condition());
+        final var thenBranch = compile(anIf.thenBranch());
+        if (anIf.elseBranch().isEmpty()) {
+          yield environment -> {
+            if (isTruthy(condition.evaluate(environment))) {
+              thenBranch.execute(environment);
+            }
+          };
+        }
+        final var elseBranch = compile(anIf.elseBranch().get());
+        yield environment -> {
+          if (isTruthy(condition.evaluate(environment))) {
+            thenBranch.execute(environment);
+          } else {
+            elseBranch.execute(environment);
+          }
+        };
+      }
+      case While aWhile -> {
+        final var condition = compile(aWhile.condition());
+        final var body = compile(aWhile.body());
+        yield environment -> {
+          while (isTruthy(condition.evaluate(environment))) {
+            body.execute(environment);
+            budget.backEdge();
+          }
+        };
+      }
+      case Send send -> throw new CompilerException(CONCURRENT, send.keyword().lineStart());
+    };
+  }
+
+  private StatementNode compileDefine(GlobalCell cell, Expression expression) {
+    final var initialiser = compile(expression);
+    return environment -> cell.define(initialiser.evaluate(environment));
+  }
+
+  private StatementNode compileBlock(ScopedBlock scoped) {
+    final var depth = ++blockDepth;
+    final StatementNode[] statements;
+    try {
+      statements = compileAll(scoped.statementList());
+    } finally {
+      blockDepth--;
+    }
+    final var slotCount = scoped.slotCount();
+
+    if (slotCount == 0) {
+      return environment -> {
+        budget.enterBlock(depth);
+        for (final var statement : statements) {
+          statement.execute(environment);
+        }
+      };
+    }
+    return environment -> {
+      budget.enterBlock(depth);
+      final var scope = environment.nested(slotCount);
+      for (final var statement : statements) {
+        statement.execute(scope);
+      }
+    };
+  }
+
+  private StatementNode[] compileAll(List<Statement> statements) {
+    return statements.stream().map(this::compile).toArray(StatementNode[]::new);
+  }
+
+  public ExpressionNode compile(Expression expression) {
+    return switch (expression) {
+      case Literal literal -> {
+        if (literal.value() instanceof NumberValue(final var number)) {
+          yield (NumberNode) environment -> number;
+        }
+        final var value = literal.value();
+        yield environment -> value;
+      }
+      case Grouping grouping -> compile(grouping.expression());
+      case Unary unary -> compileUnary(unary);
+      case Binary binary -> compileBinary(binary);
+      case Logical logical -> compileLogical(logical);
+      case Variable variable ->
+          compileGlobal(globals.cell(variable.name().lexeme()), variable.line());
+      case GlobalVariable global -> compileGlobal(globals.cell(global.symbol()), global.line());
+      case Assign assign ->
+          compileAssign(globals.cell(assign.name().lexeme()), assign.value(), assign.line());
+      case GlobalAssign assign ->
+          compileAssign(globals.cell(assign.symbol()), assign.value(), assign.line());
+      case LocalVariable local -> {
+        final var depth = local.depth();
+        final var slot = local.slot();
+        yield environment -> {
+          if (Metrics.ENABLED) {
+            Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+          }
+          return environment.getAt(depth, slot);
+        };
+      }
+      case LocalAssign assign -> {
+        final var depth = assign.depth();
+        final var slot = assign.slot();
+        final var value = compile(assign.value());
+        yield environment -> {
+          final var result = value.evaluate(environment);
+          environment.assignAt(depth, slot, result);
+          return result;
+        };
+      }
+      case Spawn spawn -> throw new CompilerException(CONCURRENT, spawn.line());
+    };
+  }
+
+  private ExpressionNode compileGlobal(GlobalCell cell, int line) {
+    return environment -> {
+      if (Metrics.ENABLED) {
+        Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+      }
+      try {
+        return cell.get();
+      } catch (IllegalArgumentException e) {
+        throw new InterpreterException("Failed to evaluate variable", line, e);
+      }
+    };
+  }
+
+  private ExpressionNode compileAssign(GlobalCell cell, Expression expression, int line) {
+    final var value = compile(expression);
+    return environment -> {
+      final var result = value.evaluate(environment);
+      try {
+        cell.assign(result);
+      } catch (IllegalArgumentException e) {
+        throw new InterpreterException("Failed to assign variable", line, e);
+      }
+      return result;
+    };
+  }
+
+  private ExpressionNode compileUnary(Unary unary) {
+    final var right = compile(unary.right());
+    final var line = unary.operator().lineStart();
+
+    if (unary.operator().type() == TokenType.MINUS && producesNumber(unary.right())) {
+      return (NumberNode) environment -> -right.evaluateNumber(environment);
+    }
+
+    return switch (unary.operator().type()) {
+      case MINUS -> environment -> interpretMinus(right.evaluate(environment), line);
+      case BANG -> environment -> BooleanValue.of(!isTruthy(right.evaluate(environment)));
+      case CHANNEL, RECEIVE, AWAIT -> throw new CompilerException(CONCURRENT, line);
+      default ->
+          throw new InterpreterException(
+              String.format("Unexpected unary with %s operator", unary.operator().type()), line);
+    };
+  }
+
+  private ExpressionNode compileLogical(Logical logical) {
+    final var left = compile(logical.left());
+    final var right = compile(logical.right());
+
+    if (logical.operator().type() == TokenType.OR) {
+      return environment -> {
+        final var value = left.evaluate(environment);
+        return isTruthy(value) ? value : right.evaluate(environment);
+      };
+    }
+    return environment -> {
+      final var value = left.evaluate(environment);
+      return isTruthy(value) ? right.evaluate(environment) : value;
+    };
+  }
+
+  private ExpressionNode compileBinary(Binary binary) {
+    final var left = compile(binary.left());
+    final var right = compile(binary.right());
+    final var line = binary.operator().lineStart();
+    final var operatorType = binary.operator().type();
+
+    if (producesNumber(binary.left()) && producesNumber(binary.right())) {
+      final var node = compileNumberBinary(left, right, operatorType, line);
+      if (node != null) {
+        return node;
+      }
+    }
+
+    return switch (operatorType) {
+      case PLUS, MINUS, SLASH, STAR, GREATER, GREATER_EQUAL, LESS, LESS_EQUAL -> {
+        final var site = new SpecializingBinaryNode(left, right, operatorType, line);
+        sites.add(site);
+        yield site;
+      }
+      case EQUAL_EQUAL ->
+          environment -> interpretEquality(left.evaluate(environment), right.evaluate(environment));
+      case BANG_EQUAL ->
+          environment ->
+              interpretEquality(left.evaluate(environment), right.evaluate(environment)).not();
+      default ->
+          throw new InterpreterException(
+              String.format("Unsupported binary with %s operator", operatorType), line);
+    };
+  }
+
+  private static ExpressionNode compileNumberBinary(
+      ExpressionNode left, ExpressionNode right, TokenType operatorType, int line) {
+    return switch (operatorType) {
+      case PLUS ->
+          (NumberNode)
+              environment -> left.evaluateNumber(environment) + right.evaluateNumber(environment);
+      case MINUS ->
+          (NumberNode)
+              environment -> left.evaluateNumber(environment) - right.evaluateNumber(environment);
+      case STAR ->
+          (NumberNode)
+              environment -> left.evaluateNumber(environment) * right.evaluateNumber(environment);
+      case SLASH ->
+          (NumberNode)
+              environment -> {
+                final var dividend = left.evaluateNumber(environment);
+                final var divisor = right.evaluateNumber(environment);
+                if (divisor == 0.0) {
+                  throw new InterpreterException("Attempted to divide by 0", line);
+                }
+                return dividend / divisor;
+              };
+      case GREATER ->
+          environment ->
+              BooleanValue.of(left.evaluateNumber(environment) > right.evaluateNumber(environment));
+      case GREATER_EQUAL ->
+          environment ->
+              BooleanValue.of(
+                  left.evaluateNumber(environment) >= right.evaluateNumber(environment));
+      case LESS ->
+          environment ->
+              BooleanValue.of(left.evaluateNumber(environment) < right.evaluateNumber(environment));
+      case LESS_EQUAL ->
+          environment ->
+              BooleanValue.of(
+                  left.evaluateNumber(environment) <= right.evaluateNumber(environment));
+      default -> null;
+    };
+  }
+}
@@ -0,0 +1,63 @@
+package net.mcarolan.craftinginterpreters.closure;
+
+import java.util.List;
+import net.mcarolan.craftinginterpreters.ast.expression.Expression;
+import net.mcarolan.craftinginterpreters.ast.statement.ExpressionStatement;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.Backend;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.SlotEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.SlotPort;
+import net.mcarolan.craftinginterpreters.lox.StatementObserver;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+
+public class ClosureInterpreter implements Backend {
+
+  private final GlobalEnvironmentAdapter environment;
+  private final ClosureCompiler compiler;
+  private final SlotPort slots = new SlotEnvironmentAdapter(0);
+
+  public ClosureInterpreter(GlobalEnvironmentAdapter environment, IOPort io) {
+    this(environment, io, ExecutionBudget.unlimited());
+  }
+
+  public ClosureInterpreter(
+      GlobalEnvironmentAdapter environment, IOPort io, ExecutionBudget budget) {
+    this(environment, io, budget, StatementObserver.NONE);
+  }
+
+  public ClosureInterpreter(
+      GlobalEnvironmentAdapter environment,
+      IOPort io,
+      ExecutionBudget budget,
+      StatementObserver observer) {
+    this.environment = environment;
+    this.compiler = new ClosureCompiler(environment, io, budget, observer);
+  }
+
+  @Override
+  public void interpret(List<Statement> statements) {
+    compiler.forgetSites();
+    final var nodes =
+        new Resolver(environment.symbols())
+            .resolve(statements).stream().map(compiler::compile).toList();
+    nodes.forEach(node -> node.execute(slots));
+  }
+
+  /** Statistics for the arithmetic and comparison sites of the program interpreted last. */
+  public List<SiteStatistics> siteStatistics() {
+    return compiler.siteStatistics();
+  }
+
+  public LoxValue evaluateExpression(Expression expression) {
+    final var resolved =
+        (ExpressionStatement)
+            new Resolver(environment.symbols())
+                .resolve(List.of(new ExpressionStatement(expression)))
+                .get(0);
+    return compiler.compile(resolved.expression()).evaluate(slots);
+  }
+}
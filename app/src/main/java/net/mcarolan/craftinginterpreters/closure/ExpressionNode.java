@@ -0,0 +1,15 @@
+package net.mcarolan.craftinginterpreters.closure;
+
+import net.mcarolan.craftinginterpreters.lox.SlotPort;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+
+@FunctionalInterface
+public interface ExpressionNode {
+  LoxValue evaluate(SlotPort environment);
+
+  /** Only called on nodes whose expression is known to produce a number. */
+  default double evaluateNumber(SlotPort environment) {
+    return ((NumberValue) evaluate(environment)).value();
+  }
+}
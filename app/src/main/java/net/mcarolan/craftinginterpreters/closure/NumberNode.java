@@ -0,0 +1,20 @@
+package net.mcarolan.craftinginterpreters.closure;
+
+import net.mcarolan.craftinginterpreters.lox.SlotPort;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+
+/**
+ * A node that computes an unboxed double. Parents that also work on numbers call {@link
+ * #evaluateNumber} directly, so a value is only boxed when it leaves the arithmetic.
+ */
+@FunctionalInterface
+public interface NumberNode extends ExpressionNode {
+  @Override
+  double evaluateNumber(SlotPort environment);
+
+  @Override
+  default LoxValue evaluate(SlotPort environment) {
+    return NumberValue.of(evaluateNumber(environment));
+  }
+}
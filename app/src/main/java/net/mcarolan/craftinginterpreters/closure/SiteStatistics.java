@@ -0,0 +1,6 @@
+package net.mcarolan.craftinginterpreters.closure;
+
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+public record SiteStatistics(
+    int line, TokenType operator, Specialization specialization, long hits, long misses) {}
@@ -0,0 +1,8 @@
+package net.mcarolan.craftinginterpreters.closure;
+
+public enum Specialization {
+  UNINITIALIZED,
+  NUMBER,
+  STRING,
+  GENERIC
+}
@@ -0,0 +1,130 @@
+package net.mcarolan.craftinginterpreters.closure;
+
+import static net.mcarolan.craftinginterpreters.lox.Operators.*;
+
+import net.mcarolan.craftinginterpreters.lox.InterpreterException;
+import net.mcarolan.craftinginterpreters.lox.SlotPort;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.lox.value.StringValue;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/**
+ * A binary operator site that specializes itself on the operand types it observes. The first
+ * evaluation picks a number or string specialization, later evaluations take the fast path while
+ * the guard holds, and a failed guard deoptimizes the site to the generic path for good so it
+ * cannot flip back and forth.
+ */
+final class SpecializingBinaryNode implements ExpressionNode {
+
+  private final ExpressionNode left;
+  private final ExpressionNode right;
+  private final TokenType operator;
+  private final int line;
+  private Specialization specialization = Specialization.UNINITIALIZED;
+  private long hits = 0;
+  private long misses = 0;
+
+  SpecializingBinaryNode(ExpressionNode left, ExpressionNode right, TokenType operator, int line) {
+    this.left = left;
+    this.right = right;
+    this.operator = operator;
+    this.line = line;
+  }
+
+  @Override
+  public LoxValue evaluate(SlotPort environment) {
+    return dispatch(left.evaluate(environment), right.evaluate(environment));
+  }
+
+  @Override
+  public double evaluateNumber(SlotPort environment) {
+    final var leftValue = left.evaluate(environment);
+    final var rightValue = right.evaluate(environment);
+    if (specialization == Specialization.NUMBER
+        && leftValue instanceof NumberValue leftNumber
+        && rightValue instanceof NumberValue rightNumber) {
+      hits++;
+      return arithmetic(leftNumber.value(), rightNumber.value());
+    }
+    return ((NumberValue) dispatch(leftValue, rightValue)).value();
+  }
+
+  private LoxValue dispatch(LoxValue leftValue, LoxValue rightValue) {
+    switch (specialization) {
+      case NUMBER -> {
+        if (leftValue instanceof NumberValue leftNumber
+            && rightValue instanceof NumberValue rightNumber) {
+          hits++;
+          return numbers(leftNumber.value(), rightNumber.value());
+        }
+        specialization = Specialization.GENERIC;
+      }
+      case STRING -> {
+        if (leftValue instanceof StringValue leftString
+            && rightValue instanceof StringValue rightString) {
+          hits++;
+          return leftString.concat(rightString);
+        }
+        specialization = Specialization.GENERIC;
+      }
+      case UNINITIALIZED -> {
+        specialization = specializationFor(leftValue, rightValue);
+        return dispatch(leftValue, rightValue);
+      }
+      case GENERIC -> {}
+    }
+    misses++;
+    return generic(leftValue, rightValue);
+  }
+
+  private Specialization specializationFor(LoxValue leftValue, LoxValue rightValue) {
+    if (leftValue instanceof NumberValue && rightValue instanceof NumberValue) {
+      return Specialization.NUMBER;
+    }
+    if (operator == TokenType.PLUS
+        && leftValue instanceof StringValue
+        && rightValue instanceof StringValue) {
+      return Specialization.STRING;
+    }
+    return Specialization.GENERIC;
+  }
+
+  private LoxValue numbers(double leftValue, double rightValue) {
+    return switch (operator) {
+      case GREATER -> BooleanValue.of(leftValue > rightValue);
+      case GREATER_EQUAL -> BooleanValue.of(leftValue >= rightValue);
+      case LESS -> BooleanValue.of(leftValue < rightValue);
+      case LESS_EQUAL -> BooleanValue.of(leftValue <= rightValue);
+      default -> NumberValue.of(arithmetic(leftValue, rightValue));
+    };
+  }
+
+  private double arithmetic(double leftValue, double rightValue) {
+    return switch (operator) {
+      case PLUS -> leftValue + rightValue;
+      case MINUS -> leftValue - rightValue;
+      case STAR -> leftValue * rightValue;
+      case SLASH -> {
+        if (rightValue == 0.0) {
+          throw new InterpreterException("Attempted to divide by 0", line);
+        }
+        yield leftValue / rightValue;
+      }
+      default -> throw new IllegalStateException(String.format("%s is not arithmetic", operator));
+    };
+  }
+
+  private LoxValue generic(LoxValue leftValue, LoxValue rightValue) {
+    return switch (operator) {
+      case PLUS -> interpretAddition(leftValue, rightValue, line);
+      case MINUS, STAR, SLASH -> interpretNumberExpression(leftValue, rightValue, operator, line);
+      default -> interpretNumberComparison(leftValue, rightValue, operator, line);
+    };
+  }
+
+  SiteStatistics statistics() {
+    return new SiteStatistics(line, operator, specialization, hits, misses);
+  }
+}
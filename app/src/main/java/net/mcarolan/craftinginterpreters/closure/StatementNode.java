@@ -0,0 +1,8 @@
+package net.mcarolan.craftinginterpreters.closure;
+
+import net.mcarolan.craftinginterpreters.lox.SlotPort;
+
+@FunctionalInterface
+public interface StatementNode {
+  void execute(SlotPort environment);
+}
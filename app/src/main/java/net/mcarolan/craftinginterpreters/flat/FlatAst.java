@@ -0,0 +1,91 @@
+package net.mcarolan.craftinginterpreters.flat;
+
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+
+/**
+ * A resolved program stored in a few flat arrays instead of a graph of records. Node {@code n}
+ * takes the four ints from {@code nodes[4 * n]}: a header holding its {@link NodeKind} in the low
+ * byte and, for local variables, the scope depth above it, then three operands:
+ *
+ * <pre>
+ * EXPRESSION, PRINT       expression
+ * VAR                     name, initialiser
+ * LOCAL_VAR               slot, initialiser
+ * BLOCK                   first child in lists, child count, slot count
+ * IF                      condition, then branch, else branch or -1
+ * WHILE                   condition, body
+ * LITERAL                 constant, -, line
+ * GLOBAL                  name, -, line
+ * LOCAL                   slot, -, line
+ * ASSIGN, LOCAL_ASSIGN    name or slot, value, line
+ * binary operators        left, right, line
+ * NEGATE, NOT             operand, -, line
+ * </pre>
+ *
+ * Children are node numbers, names index {@link #names()} and constants index {@link #constants()}.
+ * The top-level statements are a run in {@code lists} like a block's children.
+ */
+public final class FlatAst {
+
+  static final int STRIDE = 4;
+  static final int KIND_MASK = 0xFF;
+  static final int DEPTH_SHIFT = 8;
+
+  private final int[] nodes;
+  private final int[] lists;
+  private final LoxValue[] constants;
+  private final String[] names;
+  private final int programStart;
+  private final int programCount;
+
+  FlatAst(
+      int[] nodes,
+      int[] lists,
+      LoxValue[] constants,
+      String[] names,
+      int programStart,
+      int programCount) {
+    this.nodes = nodes;
+    this.lists = lists;
+    this.constants = constants;
+    this.names = names;
+    this.programStart = programStart;
+    this.programCount = programCount;
+  }
+
+  int[] nodes() {
+    return nodes;
+  }
+
+  int[] lists() {
+    return lists;
+  }
+
+  LoxValue[] constants() {
+    return constants;
+  }
+
+  String[] names() {
+    return names;
+  }
+
+  int programStart() {
+    return programStart;
+  }
+
+  int programCount() {
+    return programCount;
+  }
+
+  public int nodeCount() {
+    return nodes.length / STRIDE;
+  }
+
+  /**
+   * Bytes held by the arrays, counting a 16-byte header per array and 4 bytes per element or
+   * reference. The constants and names themselves are not counted, as a record tree shares them.
+   */
+  public long sizeInBytes() {
+    return 16L * 4 + 4L * (nodes.length + lists.length + constants.length + names.length);
+  }
+}
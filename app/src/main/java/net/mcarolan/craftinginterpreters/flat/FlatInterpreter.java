@@ -0,0 +1,172 @@
+package net.mcarolan.craftinginterpreters.flat;
+
+import static net.mcarolan.craftinginterpreters.lox.Operators.*;
+
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.GlobalCell;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.InterpreterException;
+import net.mcarolan.craftinginterpreters.lox.SlotEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.SlotPort;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/**
+ * Walks a {@link FlatAst} with the same semantics and errors as the tree-walking {@link
+ * net.mcarolan.craftinginterpreters.lox.Interpreter} over a resolved program. Globals are bound by
+ * symbol when a program starts and held as {@link GlobalCell}s from then on.
+ */
+public class FlatInterpreter {
+
+  private final GlobalEnvironmentAdapter globals;
+  private final IOPort io;
+  private final ExecutionBudget budget;
+  private SlotPort slots = new SlotEnvironmentAdapter(0);
+  private int blockDepth = 0;
+  private int[] nodes;
+  private int[] lists;
+  private LoxValue[] constants;
+  private GlobalCell[] cells;
+
+  public FlatInterpreter(GlobalEnvironmentAdapter globals, IOPort io) {
+    this(globals, io, ExecutionBudget.unlimited());
+  }
+
+  public FlatInterpreter(GlobalEnvironmentAdapter globals, IOPort io, ExecutionBudget budget) {
+    this.globals = globals;
+    this.io = io;
+    this.budget = budget;
+  }
+
+  public void interpret(FlatAst ast) {
+    nodes = ast.nodes();
+    lists = ast.lists();
+    constants = ast.constants();
+    cells = new GlobalCell[ast.names().length];
+    for (var i = 0; i < cells.length; i++) {
+      cells[i] = globals.cell(ast.names()[i]);
+    }
+    for (var i = 0; i < ast.programCount(); i++) {
+      execute(lists[ast.programStart() + i]);
+    }
+  }
+
+  private void execute(int node) {
+    final var offset = node * FlatAst.STRIDE;
+    switch (nodes[offset]) {
+      case NodeKind.EXPRESSION -> evaluate(nodes[offset + 1]);
+      case NodeKind.PRINT -> io.print(evaluate(nodes[offset + 1]).stringify());
+      case NodeKind.VAR -> cells[nodes[offset + 1]].define(evaluate(nodes[offset + 2]));
+      case NodeKind.LOCAL_VAR -> slots.defineAt(nodes[offset + 1], evaluate(nodes[offset + 2]));
+      case NodeKind.BLOCK -> executeBlock(offset);
+      case NodeKind.IF -> {
+        if (isTruthy(evaluate(nodes[offset + 1]))) {
+          execute(nodes[offset + 2]);
+        } else if (nodes[offset + 3] != -1) {
+          execute(nodes[offset + 3]);
+        }
+      }
+      case NodeKind.WHILE -> {
+        final var condition = nodes[offset + 1];
+        final var body = nodes[offset + 2];
+        while (isTruthy(evaluate(condition))) {
+          execute(body);
+          budget.backEdge();
+        }
+      }
+      default -> throw new IllegalStateException("Not a statement: " + nodes[offset]);
+    }
+  }
+
+  private void executeBlock(int offset) {
+    budget.enterBlock(blockDepth + 1);
+    final var first = nodes[offset + 1];
+    final var count = nodes[offset + 2];
+    final var slotCount = nodes[offset + 3];
+    final var previous = slots;
+    if (slotCount > 0) {
+      slots = slots.nested(slotCount);
+    }
+    blockDepth++;
+    try {
+      for (var i = first; i < first + count; i++) {
+        execute(lists[i]);
+      }
+    } finally {
+      blockDepth--;
+      slots = previous;
+    }
+  }
+
+  private LoxValue evaluate(int node) {
+    final var offset = node * FlatAst.STRIDE;
+    final var header = nodes[offset];
+    final var a = nodes[offset + 1];
+    final var line = nodes[offset + 3];
+    return switch (header & FlatAst.KIND_MASK) {
+      case NodeKind.LITERAL -> constants[a];
+      case NodeKind.GLOBAL -> {
+        if (Metrics.ENABLED) {
+          Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+        }
+        try {
+          yield cells[a].get();
+        } catch (IllegalArgumentException e) {
+          throw new InterpreterException("Failed to evaluate variable", line, e);
+        }
+      }
+      case NodeKind.LOCAL -> {
+        if (Metrics.ENABLED) {
+          Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+        }
+        yield slots.getAt(header >>> FlatAst.DEPTH_SHIFT, a);
+      }
+      case NodeKind.ASSIGN -> {
+        final var value = evaluate(nodes[offset + 2]);
+        try {
+          cells[a].assign(value);
+        } catch (IllegalArgumentException e) {
+          throw new InterpreterException("Failed to assign variable", line, e);
+        }
+        yield value;
+      }
+      case NodeKind.LOCAL_ASSIGN -> {
+        final var value = evaluate(nodes[offset + 2]);
+        slots.assignAt(header >>> FlatAst.DEPTH_SHIFT, a, value);
+        yield value;
+      }
+      case NodeKind.AND -> {
+        final var left = evaluate(a);
+        yield isTruthy(left) ? evaluate(nodes[offset + 2]) : left;
+      }
+      case NodeKind.OR -> {
+        final var left = evaluate(a);
+        yield isTruthy(left) ? left : evaluate(nodes[offset + 2]);
+      }
+      case NodeKind.NEGATE -> interpretMinus(evaluate(a), line);
+      case NodeKind.NOT -> BooleanValue.of(!isTruthy(evaluate(a)));
+      default -> evaluateBinary(header, evaluate(a), evaluate(nodes[offset + 2]), line);
+    };
+  }
+
+  private static LoxValue evaluateBinary(int kind, LoxValue left, LoxValue right, int line) {
+    return switch (kind) {
+      case NodeKind.ADD -> interpretAddition(left, right, line);
+      case NodeKind.SUBTRACT -> interpretNumberExpression(left, right, TokenType.MINUS, line);
+      case NodeKind.MULTIPLY -> interpretNumberExpression(left, right, TokenType.STAR, line);
+      case NodeKind.DIVIDE -> interpretNumberExpression(left, right, TokenType.SLASH, line);
+      case NodeKind.GREATER -> interpretNumberComparison(left, right, TokenType.GREATER, line);
+      case NodeKind.GREATER_EQUAL ->
+          interpretNumberComparison(left, right, TokenType.GREATER_EQUAL, line);
+      case NodeKind.LESS -> interpretNumberComparison(left, right, TokenType.LESS, line);
+      case NodeKind.LESS_EQUAL ->
+          interpretNumberComparison(left, right, TokenType.LESS_EQUAL, line);
+      case NodeKind.EQUAL -> interpretEquality(left, right);
+      case NodeKind.NOT_EQUAL -> interpretEquality(left, right).not();
+      default -> throw new IllegalStateException("Not an expression: " + kind);
+    };
+  }
+}
@@ -0,0 +1,485 @@
+package net.mcarolan.craftinginterpreters.flat;
+
+import static net.mcarolan.craftinginterpreters.scanner.TokenType.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.mcarolan.craftinginterpreters.lox.ParserException;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NullValue;
+import net.mcarolan.craftinginterpreters.parser.TokenBufferStream;
+import net.mcarolan.craftinginterpreters.parser.TokenStream;
+import net.mcarolan.craftinginterpreters.scanner.TokenBuffer;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/**
+ * Parses the same grammar as {@link net.mcarolan.craftinginterpreters.parser.Parser}, reporting the
+ * same errors, but appends nodes straight to a {@link FlatAst}'s arrays without building records.
+ * The exception is tasks and channels, which the flat AST has no nodes for: {@code spawn}, {@code
+ * send}, {@code receive}, {@code channel} and {@code await} are rejected where they start.
+ * Groupings are not kept, since evaluating one is evaluating what it holds. Variables are parsed as
+ * globals and resolved to slots once the program is complete.
+ */
+public class FlatParser {
+
+  private static final String CONCURRENT = "Tasks and channels are not supported by the flat AST";
+
+  private final TokenStream tokens;
+  private int[] nodes = new int[256 * FlatAst.STRIDE];
+  private int nodeCount = 0;
+  private int[] lists = new int[64];
+  private int listLength = 0;
+  // Children of the blocks being parsed, innermost last, until each block is closed.
+  private int[] pending = new int[64];
+  private int pendingLength = 0;
+  private final List<LoxValue> constants = new ArrayList<>();
+  private final Map<LoxValue, Integer> constantIndexes = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+  private final Map<String, Integer> nameIndexes = new HashMap<>();
+  // Whether the last primary parsed was a bare identifier rather than one in parentheses.
+  private boolean lastWasIdentifier;
+
+  public FlatParser(TokenBuffer tokens) {
+    this(new TokenBufferStream(tokens));
+  }
+
+  public FlatParser(TokenStream tokens) {
+    this.tokens = tokens;
+  }
+
+  public FlatAst parse() {
+    final var start = pendingLength;
+    while (!isAtEnd()) {
+      push(declaration());
+    }
+    final var programStart = closeList(start);
+    final var programCount = listLength - programStart;
+
+    final var ast =
+        new FlatAst(
+            Arrays.copyOf(nodes, nodeCount * FlatAst.STRIDE),
+            Arrays.copyOf(lists, listLength),
+            constants.toArray(LoxValue[]::new),
+            names.toArray(String[]::new),
+            programStart,
+            programCount);
+    new FlatResolver(ast).resolve();
+    return ast;
+  }
+
+  private int declaration() {
+    if (match(VAR)) {
+      return varDeclaration();
+    }
+
+    return statement();
+  }
+
+  private int varDeclaration() {
+    consume(IDENTIFIER, "Expect variable name");
+    final var name = name(tokens.previous().lexeme());
+
+    final var initialiser = match(EQUAL) ? expression() : constant(NullValue.VALUE, previousLine());
+
+    expectSemicolon();
+    return node(NodeKind.VAR, name, initialiser, 0);
+  }
+
+  private int statement() {
+    if (match(FOR)) {
+      return forStatement();
+    }
+    if (match(IF)) {
+      return ifStatement();
+    }
+    if (match(WHILE)) {
+      return whileStatement();
+    }
+    if (match(PRINT)) {
+      return printStatement();
+    }
+    if (match(LEFT_BRACE)) {
+      return block();
+    }
+    return expressionStatement();
+  }
+
+  private int forStatement() {
+    final var line = previousLine();
+    consume(LEFT_PAREN, "Expect ( after for");
+    var initializer = -1;
+
+    if (match(VAR)) {
+      initializer = varDeclaration();
+    } else if (!match(SEMICOLON)) {
+      initializer = expressionStatement();
+    }
+
+    var condition = -1;
+
+    if (!match(SEMICOLON)) {
+      condition = expression();
+    }
+
+    var increment = -1;
+
+    if (!check(RIGHT_PAREN)) {
+      increment = expression();
+    }
+
+    consume(RIGHT_PAREN, "Expected ) after increment");
+    final var body = statement();
+
+    final var withIncrement =
+        increment == -1 ? body : blockOf(body, node(NodeKind.EXPRESSION, increment, 0, 0));
+
+    final var loop =
+        node(
+            NodeKind.WHILE,
+            condition == -1 ? constant(BooleanValue.TRUE, line) : condition,
+            withIncrement,
+            0);
+
+    return initializer == -1 ? loop : blockOf(initializer, loop);
+  }
+
+  private int expressionStatement() {
+    final var expression = expression();
+    expectSemicolon();
+    return node(NodeKind.EXPRESSION, expression, 0, 0);
+  }
+
+  private int whileStatement() {
+    consume(LEFT_PAREN, "Expect ( after while");
+    final var condition = expression();
+    consume(RIGHT_PAREN, "Expect ) after expression");
+    final var body = statement();
+    return node(NodeKind.WHILE, condition, body, 0);
+  }
+
+  private int ifStatement() {
+    consume(LEFT_PAREN, "Expect ( after if");
+    final var condition = expression();
+    consume(RIGHT_PAREN, "Expect ) after expression");
+
+    final var thenBranch = statement();
+    var elseBranch = -1;
+
+    if (match(ELSE)) {
+      elseBranch = statement();
+    }
+
+    return node(NodeKind.IF, condition, thenBranch, elseBranch);
+  }
+
+  private int block() {
+    final var start = pendingLength;
+
+    while (!check(RIGHT_BRACE) && !isAtEnd()) {
+      push(declaration());
+    }
+
+    consume(RIGHT_BRACE, "Expected } after blcok");
+    final var first = closeList(start);
+    return node(NodeKind.BLOCK, first, listLength - first, 0);
+  }
+
+  private int printStatement() {
+    final var expression = expression();
+    expectSemicolon();
+    return node(NodeKind.PRINT, expression, 0, 0);
+  }
+
+  private void expectSemicolon() {
+    consume(SEMICOLON, "Expected ;");
+  }
+
+  private int expression() {
+    return assignment();
+  }
+
+  private int assignment() {
+    final var expression = or();
+
+    if (match(EQUAL)) {
+      final var equalsLine = previousLine();
+      // A variable in parentheses parses to the same node as a bare one, so both are checked.
+      final var bareVariable = kind(expression) == NodeKind.GLOBAL && lastWasIdentifier;
+      final var value = assignment();
+
+      if (bareVariable) {
+        return node(NodeKind.ASSIGN, operand(expression, 0), value, line(value));
+      } else {
+        throw new ParserException("Invalid assignment target", equalsLine);
+      }
+    }
+
+    return expression;
+  }
+
+  private int or() {
+    var expression = and();
+
+    while (match(OR)) {
+      final var line = previousLine();
+      final var right = and();
+      expression = node(NodeKind.OR, expression, right, line);
+    }
+
+    return expression;
+  }
+
+  private int and() {
+    var expression = equality();
+
+    while (match(AND)) {
+      final var line = previousLine();
+      final var right = equality();
+      expression = node(NodeKind.AND, expression, right, line);
+    }
+
+    return expression;
+  }
+
+  private int equality() {
+    var expression = comparison();
+
+    while (check(BANG_EQUAL) || check(EQUAL_EQUAL)) {
+      final var kind = binaryKind(peekType());
+      advance();
+      final var line = previousLine();
+      final var right = comparison();
+      expression = node(kind, expression, right, line);
+    }
+
+    return expression;
+  }
+
+  private int comparison() {
+    var expression = term();
+
+    while (check(GREATER) || check(GREATER_EQUAL) || check(LESS) || check(LESS_EQUAL)) {
+      final var kind = binaryKind(peekType());
+      advance();
+      final var line = previousLine();
+      final var right = term();
+      expression = node(kind, expression, right, line);
+    }
+
+    return expression;
+  }
+
+  private int term() {
+    var expression = factor();
+
+    while (check(MINUS) || check(PLUS)) {
+      final var kind = binaryKind(peekType());
+      advance();
+      final var line = previousLine();
+      final var right = factor();
+      expression = node(kind, expression, right, line);
+    }
+
+    return expression;
+  }
+
+  private int factor() {
+    var expression = unary();
+
+    while (check(SLASH) || check(STAR)) {
+      final var kind = binaryKind(peekType());
+      advance();
+      final var line = previousLine();
+      final var right = unary();
+      expression = node(kind, expression, right, line);
+    }
+
+    return expression;
+  }
+
+  // Every concurrent form, including a send statement, starts where a unary could.
+  private int unary() {
+    if (check(SPAWN) || check(SEND) || check(RECEIVE) || check(CHANNEL) || check(AWAIT)) {
+      throw new ParserException(CONCURRENT, tokens.peek().lineEnd());
+    }
+    if (check(BANG) || check(MINUS)) {
+      final var kind = check(BANG) ? NodeKind.NOT : NodeKind.NEGATE;
+      advance();
+      final var line = previousLine();
+      final var right = unary();
+      return node(kind, right, 0, line);
+    }
+
+    return primary();
+  }
+
+  private int primary() {
+    lastWasIdentifier = false;
+    if (match(FALSE)) {
+      return constant(BooleanValue.FALSE, previousLine());
+    }
+
+    if (match(TRUE)) {
+      return constant(BooleanValue.TRUE, previousLine());
+    }
+
+    if (match(NIL)) {
+      return constant(NullValue.VALUE, previousLine());
+    }
+
+    if (match(NUMBER) || match(STRING)) {
+      return constant(tokens.previousLiteral(), previousLine());
+    }
+
+    if (match(IDENTIFIER)) {
+      lastWasIdentifier = true;
+      return node(NodeKind.GLOBAL, name(tokens.previous().lexeme()), 0, previousLine());
+    }
+
+    if (match(LEFT_PAREN)) {
+      final var expression = expression();
+      consume(RIGHT_PAREN, "Expect ')' after expression.");
+      lastWasIdentifier = false;
+      return expression;
+    }
+
+    throw new ParserException("Expect expression.", tokens.peek().lineEnd());
+  }
+
+  private static int binaryKind(TokenType type) {
+    return switch (type) {
+      case PLUS -> NodeKind.ADD;
+      case MINUS -> NodeKind.SUBTRACT;
+      case STAR -> NodeKind.MULTIPLY;
+      case SLASH -> NodeKind.DIVIDE;
+      case GREATER -> NodeKind.GREATER;
+      case GREATER_EQUAL -> NodeKind.GREATER_EQUAL;
+      case LESS -> NodeKind.LESS;
+      case LESS_EQUAL -> NodeKind.LESS_EQUAL;
+      case EQUAL_EQUAL -> NodeKind.EQUAL;
+      case BANG_EQUAL -> NodeKind.NOT_EQUAL;
+      default -> throw new IllegalArgumentException("Not a binary operator: " + type);
+    };
+  }
+
+  // The line a record tree would give the expression, which an enclosing assignment takes on.
+  private int line(int expression) {
+    return switch (kind(expression)) {
+      case NodeKind.NEGATE, NodeKind.NOT -> line(operand(expression, 0));
+      case NodeKind.LITERAL, NodeKind.GLOBAL, NodeKind.ASSIGN, NodeKind.AND, NodeKind.OR ->
+          operand(expression, 2);
+      default -> line(operand(expression, 1));
+    };
+  }
+
+  private int kind(int node) {
+    return nodes[node * FlatAst.STRIDE] & FlatAst.KIND_MASK;
+  }
+
+  private int operand(int node, int index) {
+    return nodes[node * FlatAst.STRIDE + 1 + index];
+  }
+
+  private int node(int kind, int a, int b, int c) {
+    if ((nodeCount + 1) * FlatAst.STRIDE > nodes.length) {
+      nodes = Arrays.copyOf(nodes, nodes.length * 2);
+    }
+    final var offset = nodeCount * FlatAst.STRIDE;
+    nodes[offset] = kind;
+    nodes[offset + 1] = a;
+    nodes[offset + 2] = b;
+    nodes[offset + 3] = c;
+    return nodeCount++;
+  }
+
+  private int constant(LoxValue value, int line) {
+    final var index =
+        constantIndexes.computeIfAbsent(
+            value,
+            ignored -> {
+              constants.add(value);
+              return constants.size() - 1;
+            });
+    return node(NodeKind.LITERAL, index, 0, line);
+  }
+
+  private int name(String lexeme) {
+    return nameIndexes.computeIfAbsent(
+        lexeme,
+        ignored -> {
+          names.add(lexeme);
+          return names.size() - 1;
+        });
+  }
+
+  private int blockOf(int first, int second) {
+    final var start = pendingLength;
+    push(first);
+    push(second);
+    final var list = closeList(start);
+    return node(NodeKind.BLOCK, list, 2, 0);
+  }
+
+  private void push(int node) {
+    if (pendingLength == pending.length) {
+      pending = Arrays.copyOf(pending, pending.length * 2);
+    }
+    pending[pendingLength++] = node;
+  }
+
+  // Moves the children pushed since start into lists, returning where they begin.
+  private int closeList(int start) {
+    final var count = pendingLength - start;
+    if (listLength + count > lists.length) {
+      lists = Arrays.copyOf(lists, Math.max(lists.length * 2, listLength + count));
+    }
+    System.arraycopy(pending, start, lists, listLength, count);
+    pendingLength = start;
+    final var first = listLength;
+    listLength += count;
+    return first;
+  }
+
+  private void consume(TokenType type, String errorMessage) {
+    if (!match(type)) {
+      throw new ParserException(errorMessage, tokens.peek().lineEnd());
+    }
+  }
+
+  private boolean match(TokenType type) {
+    if (check(type)) {
+      advance();
+      return true;
+    }
+    return false;
+  }
+
+  private boolean check(TokenType type) {
+    if (isAtEnd()) {
+      return false;
+    }
+    return tokens.peekType() == type;
+  }
+
+  private TokenType peekType() {
+    return tokens.peekType();
+  }
+
+  private void advance() {
+    if (!isAtEnd()) {
+      tokens.advance();
+    }
+  }
+
+  private boolean isAtEnd() {
+    return tokens.peekType() == EOF;
+  }
+
+  private int previousLine() {
+    return tokens.previousLine();
+  }
+}
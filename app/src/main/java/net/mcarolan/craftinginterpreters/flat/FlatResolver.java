@@ -0,0 +1,100 @@
+package net.mcarolan.craftinginterpreters.flat;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gives block-local variables in a freshly parsed {@link FlatAst} their (depth, slot) addresses by
+ * rewriting nodes in place, following the same rules as {@link
+ * net.mcarolan.craftinginterpreters.resolver.Resolver}: only blocks that declare something get
+ * slots, and a reference that is not to a local stays global.
+ */
+class FlatResolver {
+
+  private final int[] nodes;
+  private final int[] lists;
+  private final int programStart;
+  private final int programCount;
+  private final Deque<Map<Integer, Integer>> scopes = new ArrayDeque<>();
+
+  FlatResolver(FlatAst ast) {
+    this.nodes = ast.nodes();
+    this.lists = ast.lists();
+    this.programStart = ast.programStart();
+    this.programCount = ast.programCount();
+  }
+
+  void resolve() {
+    for (var i = 0; i < programCount; i++) {
+      resolve(lists[programStart + i]);
+    }
+  }
+
+  private void resolve(int node) {
+    final var offset = node * FlatAst.STRIDE;
+    final var a = nodes[offset + 1];
+    final var b = nodes[offset + 2];
+    final var c = nodes[offset + 3];
+    switch (nodes[offset]) {
+      case NodeKind.EXPRESSION, NodeKind.PRINT, NodeKind.NEGATE, NodeKind.NOT -> resolve(a);
+      case NodeKind.VAR -> {
+        resolve(b);
+        final var scope = scopes.peek();
+        if (scope != null) {
+          nodes[offset] = NodeKind.LOCAL_VAR;
+          nodes[offset + 1] = scope.computeIfAbsent(a, ignored -> scope.size());
+        }
+      }
+      case NodeKind.BLOCK -> resolveBlock(offset, a, b);
+      case NodeKind.IF -> {
+        resolve(a);
+        resolve(b);
+        if (c != -1) {
+          resolve(c);
+        }
+      }
+      case NodeKind.GLOBAL -> resolveReference(offset, NodeKind.LOCAL, a);
+      case NodeKind.ASSIGN -> {
+        resolve(b);
+        resolveReference(offset, NodeKind.LOCAL_ASSIGN, a);
+      }
+      case NodeKind.LITERAL -> {}
+      default -> {
+        // WHILE and the binary operators.
+        resolve(a);
+        resolve(b);
+      }
+    }
+  }
+
+  private void resolveBlock(int offset, int first, int count) {
+    var declares = false;
+    for (var i = first; i < first + count; i++) {
+      declares |= nodes[lists[i] * FlatAst.STRIDE] == NodeKind.VAR;
+    }
+    if (declares) {
+      scopes.push(new HashMap<>());
+    }
+    for (var i = first; i < first + count; i++) {
+      resolve(lists[i]);
+    }
+    if (declares) {
+      nodes[offset + 3] = scopes.pop().size();
+    }
+  }
+
+  private void resolveReference(int offset, int localKind, int name) {
+    var depth = 0;
+    for (final var scope : scopes) {
+      final var slot = scope.get(name);
+      if (slot != null) {
+        nodes[offset] = localKind | depth << FlatAst.DEPTH_SHIFT;
+        nodes[offset + 1] = slot;
+        return;
+      }
+      depth++;
+    }
+  }
+}
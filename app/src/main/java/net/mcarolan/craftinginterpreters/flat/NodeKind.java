@@ -0,0 +1,36 @@
+package net.mcarolan.craftinginterpreters.flat;
+
+/**
+ * Node kinds of a {@link FlatAst}. Each binary and unary operator has a kind of its own, so the
+ * interpreter dispatches on one dense int switch rather than on a kind and then an operator.
+ */
+final class NodeKind {
+  static final int EXPRESSION = 0;
+  static final int PRINT = 1;
+  static final int VAR = 2;
+  static final int LOCAL_VAR = 3;
+  static final int BLOCK = 4;
+  static final int IF = 5;
+  static final int WHILE = 6;
+  static final int LITERAL = 7;
+  static final int GLOBAL = 8;
+  static final int LOCAL = 9;
+  static final int ASSIGN = 10;
+  static final int LOCAL_ASSIGN = 11;
+  static final int ADD = 12;
+  static final int SUBTRACT = 13;
+  static final int MULTIPLY = 14;
+  static final int DIVIDE = 15;
+  static final int GREATER = 16;
+  static final int GREATER_EQUAL = 17;
+  static final int LESS = 18;
+  static final int LESS_EQUAL = 19;
+  static final int EQUAL = 20;
+  static final int NOT_EQUAL = 21;
+  static final int AND = 22;
+  static final int OR = 23;
+  static final int NEGATE = 24;
+  static final int NOT = 25;
+
+  private NodeKind() {}
+}
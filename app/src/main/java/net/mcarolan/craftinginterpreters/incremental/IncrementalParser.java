@@ -0,0 +1,359 @@
+package net.mcarolan.craftinginterpreters.incremental;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.mcarolan.craftinginterpreters.ast.AstLines;
+import net.mcarolan.craftinginterpreters.ast.statement.Block;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.LoxException;
+import net.mcarolan.craftinginterpreters.lox.ParserException;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import net.mcarolan.craftinginterpreters.scanner.StringSourceReader;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/**
+ * Keeps the parse of a source text up to date as it is edited. The program is held as its top-level
+ * declarations, each remembering the stretch of source it came from, and a block written with
+ * braces holds its own declarations the same way. An edit is reparsed inside the innermost such
+ * block around it, or else at the top level, starting from the declaration it falls in and stopping
+ * at the first declaration that starts after the edit where one started before: from there on the
+ * text, and so the tokens and trees, are what they were. Those declarations are kept and only
+ * moved; a tree whose lines have moved is shifted when it is next asked for.
+ *
+ * <p>Positions are held relative to the enclosing block, so an edit only moves the declarations
+ * after it at its own level and in the blocks around it. A declaration that fails to parse at the
+ * top level is kept as an error covering the source up to the next point the parse could resume
+ * from, so a half-typed statement does not force the rest of the file to be reparsed.
+ */
+public class IncrementalParser {
+
+  /** The work an edit took: tokens scanned and declarations parsed. */
+  public record Reparse(int scannedTokens, int parsedDeclarations) {}
+
+  // Start and end are offsets from the enclosing block's opening brace, or from the start of the
+  // source, and line counts from the brace's line, or from line 0. Parsing a declaration can look
+  // a token past its end, as an if does for an else, so it also keeps how far the parse looked.
+  private static final class Entry {
+    int start;
+    int end;
+    int examined;
+    int line;
+    final List<Entry> body;
+    Statement statement;
+    int statementLine;
+    LoxException error;
+    int errorLine;
+
+    private Entry(int start, int end, int line, List<Entry> body) {
+      this.start = start;
+      this.end = end;
+      this.line = line;
+      this.body = body;
+    }
+  }
+
+  private String source = "";
+  private final List<Entry> entries = new ArrayList<>();
+
+  private SourceEdit edit;
+  private int lineDelta;
+  private int scannedTokens;
+  private int parsedDeclarations;
+
+  public IncrementalParser(String source) {
+    reparse(SourceEdit.insert(0, source));
+  }
+
+  public String source() {
+    return source;
+  }
+
+  public Reparse apply(SourceEdit edit) {
+    return reparse(edit);
+  }
+
+  // Shared with the constructor, which must not call the overridable apply.
+  private Reparse reparse(SourceEdit edit) {
+    final var removed = source.substring(edit.offset(), edit.offset() + edit.removedLength());
+    this.source = edit.apply(source);
+    this.edit = edit;
+    this.lineDelta = lines(edit.insertedText()) - lines(removed);
+    this.scannedTokens = 0;
+    this.parsedDeclarations = 0;
+    reparseWithin(entries, 0, 0, true, -1);
+    return new Reparse(scannedTokens, parsedDeclarations);
+  }
+
+  /**
+   * The program as a {@link Parser} reading tokens from a {@link Scanner} over the whole source
+   * would give it, or the first error it would throw.
+   */
+  public List<Statement> statements() {
+    final var statements = new ArrayList<Statement>(entries.size());
+    for (final var entry : entries) {
+      statements.add(materialize(entry, 0, 0));
+    }
+    return statements;
+  }
+
+  /** Every top-level declaration that fails to parse, in order. */
+  public List<LoxException> errors() {
+    final var errors = new ArrayList<LoxException>();
+    for (final var entry : entries) {
+      if (entry.error != null) {
+        errors.add(error(entry, 0, entry.line));
+      }
+    }
+    return errors;
+  }
+
+  // Reparses the edit in the innermost braced block of these entries that holds it, or among the
+  // entries themselves. Only the top level always succeeds; a block fails when the edit has
+  // changed where it ends, and the edit is then reparsed a level up.
+  private boolean reparseWithin(
+      List<Entry> entries, int origin, int originLine, boolean topLevel, int close) {
+    final var index = lastStartingBefore(entries, origin, edit.offset());
+    if (index >= 0) {
+      final var entry = entries.get(index);
+      final var start = origin + entry.start;
+      final var end = origin + entry.end;
+      if (entry.body != null
+          && edit.offset() > start
+          && edit.offset() + edit.removedLength() < end
+          && reparseWithin(
+              entry.body, start, originLine + entry.line, false, end - 1 + edit.delta())) {
+        entry.end += edit.delta();
+        entry.examined += edit.delta();
+        entry.statement = null;
+        move(entries, index + 1);
+        return true;
+      }
+    }
+    return reparseFrom(entries, origin, originLine, topLevel, close, index);
+  }
+
+  private boolean reparseFrom(
+      List<Entry> entries, int origin, int originLine, boolean topLevel, int close, int index) {
+    while (index > 0 && origin + entries.get(index - 1).examined >= edit.offset()) {
+      index--;
+    }
+    final var first = Math.max(index, 0);
+    final var restart = index >= 0 ? origin + entries.get(index).start : topLevel ? 0 : origin + 1;
+    final var restartLine =
+        index >= 0 ? originLine + entries.get(index).line : topLevel ? 1 : originLine;
+    final var tokens =
+        new OffsetTokenStream(new Scanner(new StringSourceReader(source, restart), restartLine));
+    final var parser = new Parser(tokens);
+    final var resync = new Resync(entries, origin);
+    final var parsed = new ArrayList<Entry>();
+    try {
+      while (true) {
+        var start = -1;
+        var line = 0;
+        try {
+          start = tokens.peekStart();
+          line = tokens.peek().lineStart();
+          final var type = tokens.peekType();
+          if (resync.at(start)) {
+            replace(entries, first, resync.index, parsed);
+            return true;
+          }
+          if (!topLevel && type == TokenType.RIGHT_BRACE && start == close) {
+            replace(entries, first, entries.size(), parsed);
+            return true;
+          }
+          if (type == TokenType.EOF) {
+            if (topLevel) {
+              replace(entries, first, entries.size(), parsed);
+            }
+            return topLevel;
+          }
+          if (!topLevel && type == TokenType.RIGHT_BRACE) {
+            return false;
+          }
+          parsed.add(parseEntry(tokens, parser, origin, originLine));
+        } catch (LoxException e) {
+          if (!topLevel) {
+            return false;
+          }
+          final var failed =
+              start >= 0
+                  ? errorEntry(start, line, e)
+                  : errorEntry(tokens.failedStart(), tokens.failedLine(), e);
+          failed.examined = tokens.scannedEnd();
+          parsed.add(failed);
+          if (!skipToResync(tokens, resync, failed)) {
+            replace(entries, first, entries.size(), parsed);
+            return true;
+          }
+        }
+      }
+    } finally {
+      scannedTokens += tokens.scanned();
+    }
+  }
+
+  private Entry parseEntry(OffsetTokenStream tokens, Parser parser, int origin, int originLine) {
+    final var start = tokens.peekStart();
+    final var line = tokens.peek().lineStart();
+    parsedDeclarations++;
+    if (tokens.peekType() != TokenType.LEFT_BRACE) {
+      final var statement = parser.next().orElseThrow();
+      final var entry =
+          new Entry(start - origin, tokens.previousEnd() - origin, line - originLine, null);
+      entry.examined = tokens.scannedEnd() - origin;
+      entry.statement = statement;
+      entry.statementLine = line;
+      return entry;
+    }
+    tokens.advance();
+    final var body = new ArrayList<Entry>();
+    while (tokens.peekType() != TokenType.RIGHT_BRACE && tokens.peekType() != TokenType.EOF) {
+      body.add(parseEntry(tokens, parser, start, line));
+    }
+    if (tokens.peekType() != TokenType.RIGHT_BRACE) {
+      throw new ParserException("Expected } after blcok", tokens.peek().lineEnd());
+    }
+    tokens.advance();
+    final var entry =
+        new Entry(start - origin, tokens.previousEnd() - origin, line - originLine, body);
+    entry.examined = entry.end;
+    return entry;
+  }
+
+  // Only called at the top level, where the origin is the start of the source.
+  private static Entry errorEntry(int start, int line, LoxException error) {
+    final var entry = new Entry(start, start, line, null);
+    entry.error = error;
+    entry.errorLine = line;
+    return entry;
+  }
+
+  // Moves past the tokens of a failed declaration to where an old declaration started, or else to
+  // where a new one plausibly starts: after a semicolon or at a statement keyword. Returns false
+  // if that reaches the end of the source, or a token that cannot be scanned, instead.
+  private boolean skipToResync(OffsetTokenStream tokens, Resync resync, Entry failed) {
+    try {
+      while (tokens.peekType() != TokenType.EOF) {
+        final var start = tokens.peekStart();
+        if (start > failed.start && (resync.at(start) || startsDeclaration(tokens))) {
+          failed.end = start;
+          return true;
+        }
+        tokens.advance();
+      }
+      failed.end = tokens.peekStart();
+    } catch (LoxException e) {
+      failed.end = source.length();
+    }
+    return false;
+  }
+
+  private static boolean startsDeclaration(OffsetTokenStream tokens) {
+    if (tokens.previous() != null && tokens.previous().type() == TokenType.SEMICOLON) {
+      return true;
+    }
+    return switch (tokens.peekType()) {
+      case VAR, FOR, IF, WHILE, PRINT, SEND -> true;
+      default -> false;
+    };
+  }
+
+  private void replace(List<Entry> entries, int from, int to, List<Entry> parsed) {
+    final var replaced = entries.subList(from, to);
+    replaced.clear();
+    replaced.addAll(parsed);
+    move(entries, from + parsed.size());
+  }
+
+  private void move(List<Entry> entries, int from) {
+    for (var i = from; i < entries.size(); i++) {
+      final var entry = entries.get(i);
+      entry.start += edit.delta();
+      entry.end += edit.delta();
+      entry.examined += edit.delta();
+      entry.line += lineDelta;
+    }
+  }
+
+  /**
+   * The old entries a reparse can stop at: those that started after the removed text, checked
+   * against each token start in turn at their new positions.
+   */
+  private final class Resync {
+    private final List<Entry> entries;
+    private final int origin;
+    private int index;
+
+    private Resync(List<Entry> entries, int origin) {
+      this.entries = entries;
+      this.origin = origin;
+      this.index = lastStartingBefore(entries, origin, edit.offset() + edit.removedLength()) + 1;
+    }
+
+    boolean at(int position) {
+      if (position < edit.offset() + edit.insertedText().length()) {
+        return false;
+      }
+      while (index < entries.size() && moved(index) < position) {
+        index++;
+      }
+      return index < entries.size() && moved(index) == position;
+    }
+
+    private int moved(int index) {
+      return origin + entries.get(index).start + edit.delta();
+    }
+  }
+
+  private Statement materialize(Entry entry, int origin, int originLine) {
+    final var line = originLine + entry.line;
+    if (entry.error != null) {
+      throw error(entry, origin, line);
+    }
+    if (entry.statement == null) {
+      final var start = origin + entry.start;
+      entry.statement =
+          new Block(entry.body.stream().map(inner -> materialize(inner, start, line)).toList());
+      entry.statementLine = line;
+    }
+    if (entry.statementLine != line) {
+      entry.statement = AstLines.shift(entry.statement, line - entry.statementLine);
+      entry.statementLine = line;
+    }
+    return entry.statement;
+  }
+
+  // An error's message holds its line, so one that has moved is found again by parsing afresh.
+  private LoxException error(Entry entry, int origin, int line) {
+    if (entry.errorLine != line) {
+      final var scanner = new Scanner(new StringSourceReader(source, origin + entry.start), line);
+      try {
+        new Parser(new OffsetTokenStream(scanner)).next();
+      } catch (LoxException e) {
+        entry.error = e;
+      }
+      entry.errorLine = line;
+    }
+    return entry.error;
+  }
+
+  private static int lastStartingBefore(List<Entry> entries, int origin, int offset) {
+    var low = 0;
+    var high = entries.size() - 1;
+    while (low <= high) {
+      final var middle = (low + high) >>> 1;
+      if (origin + entries.get(middle).start < offset) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return high;
+  }
+
+  private static int lines(String text) {
+    return (int) text.chars().filter(ch -> ch == '\n').count();
+  }
+}
@@ -0,0 +1,77 @@
+package net.mcarolan.craftinginterpreters.incremental;
+
+import net.mcarolan.craftinginterpreters.parser.TokenStream;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/** Pulls tokens from a {@link Scanner} like a parser's stream, remembering where each one lies. */
+class OffsetTokenStream implements TokenStream {
+
+  private final Scanner scanner;
+  private Token previous;
+  private int previousEnd;
+  private Token current;
+  private int currentStart;
+  private int currentEnd;
+  private int scanned = 0;
+
+  OffsetTokenStream(Scanner scanner) {
+    this.scanner = scanner;
+  }
+
+  @Override
+  public Token peek() {
+    if (current == null) {
+      current = scanner.nextToken();
+      currentStart = scanner.tokenStart();
+      currentEnd = scanner.tokenEnd();
+      scanned++;
+    }
+    return current;
+  }
+
+  @Override
+  public Token previous() {
+    return previous;
+  }
+
+  @Override
+  public void advance() {
+    previous = peek();
+    previousEnd = currentEnd;
+    current = null;
+  }
+
+  @Override
+  public TokenType peekType() {
+    return peek().type();
+  }
+
+  int peekStart() {
+    peek();
+    return currentStart;
+  }
+
+  int previousEnd() {
+    return previousEnd;
+  }
+
+  /** Where the token that the scanner last failed on, if any, starts. */
+  int failedStart() {
+    return scanner.tokenStart();
+  }
+
+  int failedLine() {
+    return scanner.tokenLine();
+  }
+
+  /** How far into the source the scanner has read. */
+  int scannedEnd() {
+    return scanner.tokenEnd();
+  }
+
+  int scanned() {
+    return scanned;
+  }
+}
@@ -0,0 +1,28 @@
+package net.mcarolan.craftinginterpreters.incremental;
+
+/** Replaces the {@code removedLength} characters at {@code offset} with {@code insertedText}. */
+public record SourceEdit(int offset, int removedLength, String insertedText) {
+
+  public SourceEdit {
+    if (offset < 0 || removedLength < 0) {
+      throw new IllegalArgumentException("Edits must have a non-negative offset and length");
+    }
+  }
+
+  public static SourceEdit insert(int offset, String text) {
+    return new SourceEdit(offset, 0, text);
+  }
+
+  public static SourceEdit delete(int offset, int length) {
+    return new SourceEdit(offset, length, "");
+  }
+
+  public String apply(String source) {
+    return source.substring(0, offset) + insertedText + source.substring(offset + removedLength);
+  }
+
+  /** How far the edit moves the text that follows it. */
+  public int delta() {
+    return insertedText.length() - removedLength;
+  }
+}
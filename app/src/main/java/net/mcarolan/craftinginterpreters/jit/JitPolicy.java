@@ -0,0 +1,31 @@
+package net.mcarolan.craftinginterpreters.jit;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * When the {@link TieredCompiler} compiles a region, and where. A top-level statement is compiled
+ * once it has run {@code statementThreshold} times and a loop once it has gone round {@code
+ * backEdgeThreshold} times, in total over all its runs.
+ */
+public record JitPolicy(int statementThreshold, int backEdgeThreshold, Executor compiler) {
+
+  private static final Executor BACKGROUND =
+      Executors.newSingleThreadExecutor(Thread.ofPlatform().name("lox-jit").daemon().factory());
+
+  public JitPolicy {
+    if (statementThreshold < 1 || backEdgeThreshold < 1) {
+      throw new IllegalArgumentException("Thresholds must be at least 1");
+    }
+  }
+
+  /** Compiles on a shared background thread, leaving the program interpreted meanwhile. */
+  public static JitPolicy background() {
+    return new JitPolicy(2, 1000, BACKGROUND);
+  }
+
+  /** Compiles every region the first time it runs, on the thread running the program. */
+  public static JitPolicy eager() {
+    return new JitPolicy(1, 1, Runnable::run);
+  }
+}
@@ -0,0 +1,122 @@
+package net.mcarolan.craftinginterpreters.jit;
+
+import static net.mcarolan.craftinginterpreters.lox.Operators.*;
+
+import net.mcarolan.craftinginterpreters.lox.GlobalCell;
+import net.mcarolan.craftinginterpreters.lox.InterpreterException;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/**
+ * The operations compiled regions call. Each tries numbers first, small enough for C2 to inline
+ * into the region, and hands anything else to {@link
+ * net.mcarolan.craftinginterpreters.lox.Operators}, so errors and their lines are the
+ * interpreter's. Comparisons return a boolean for use as conditions, which the region boxes when it
+ * needs the value.
+ */
+final class JitSupport {
+
+  private JitSupport() {}
+
+  static LoxValue get(GlobalCell cell, int line) {
+    try {
+      return cell.get();
+    } catch (IllegalArgumentException e) {
+      throw new InterpreterException("Failed to evaluate variable", line, e);
+    }
+  }
+
+  static void assign(LoxValue value, GlobalCell cell, int line) {
+    try {
+      cell.assign(value);
+    } catch (IllegalArgumentException e) {
+      throw new InterpreterException("Failed to assign variable", line, e);
+    }
+  }
+
+  static LoxValue add(LoxValue left, LoxValue right, int line) {
+    if (left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)) {
+      return NumberValue.of(a + b);
+    }
+    return interpretAddition(left, right, line);
+  }
+
+  static LoxValue subtract(LoxValue left, LoxValue right, int line) {
+    if (left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)) {
+      return NumberValue.of(a - b);
+    }
+    return interpretNumberExpression(left, right, TokenType.MINUS, line);
+  }
+
+  static LoxValue multiply(LoxValue left, LoxValue right, int line) {
+    if (left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)) {
+      return NumberValue.of(a * b);
+    }
+    return interpretNumberExpression(left, right, TokenType.STAR, line);
+  }
+
+  static LoxValue divide(LoxValue left, LoxValue right, int line) {
+    if (left instanceof NumberValue(final var a)
+        && right instanceof NumberValue(final var b)
+        && b != 0.0) {
+      return NumberValue.of(a / b);
+    }
+    return interpretNumberExpression(left, right, TokenType.SLASH, line);
+  }
+
+  static boolean greater(LoxValue left, LoxValue right, int line) {
+    if (left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)) {
+      return a > b;
+    }
+    return isTruthy(interpretNumberComparison(left, right, TokenType.GREATER, line));
+  }
+
+  static boolean greaterEqual(LoxValue left, LoxValue right, int line) {
+    if (left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)) {
+      return a >= b;
+    }
+    return isTruthy(interpretNumberComparison(left, right, TokenType.GREATER_EQUAL, line));
+  }
+
+  static boolean less(LoxValue left, LoxValue right, int line) {
+    if (left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)) {
+      return a < b;
+    }
+    return isTruthy(interpretNumberComparison(left, right, TokenType.LESS, line));
+  }
+
+  static boolean lessEqual(LoxValue left, LoxValue right, int line) {
+    if (left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)) {
+      return a <= b;
+    }
+    return isTruthy(interpretNumberComparison(left, right, TokenType.LESS_EQUAL, line));
+  }
+
+  static boolean equal(LoxValue left, LoxValue right) {
+    return left.equals(right);
+  }
+
+  static boolean truthy(LoxValue value) {
+    return isTruthy(value);
+  }
+
+  static BooleanValue bool(boolean value) {
+    return BooleanValue.of(value);
+  }
+
+  static LoxValue negate(LoxValue value, int line) {
+    if (value instanceof NumberValue(final var a)) {
+      return NumberValue.of(-a);
+    }
+    return interpretMinus(value, line);
+  }
+
+  // Only called from regions compiled while metrics were enabled.
+  static void lookup(int hops) {
+    Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+    Metrics.count(Metrics.Counter.SCOPE_HOPS, hops);
+  }
+}
@@ -0,0 +1,493 @@
+package net.mcarolan.craftinginterpreters.jit;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.GlobalCell;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.SlotPort;
+import net.mcarolan.craftinginterpreters.lox.Tier;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Compiles a region, a loop or a top-level statement of a resolved program, to a hidden class
+ * implementing {@link Tier.Compiled}. The global cells, literals, IO port and budget it uses are
+ * the class's data, loaded through dynamic constants so that C2 treats them as constants. Lox has
+ * no closures, so the scopes a region opens are never seen outside it and their variables become
+ * JVM locals; the slot arrays of the scopes around the region are fetched once on entry.
+ */
+final class RegionCompiler {
+
+  private static final String REGION = "net/mcarolan/craftinginterpreters/jit/Region";
+  private static final String SUPPORT = Type.getInternalName(JitSupport.class);
+  private static final String VALUE = Type.getDescriptor(LoxValue.class);
+  private static final String CELL = Type.getDescriptor(GlobalCell.class);
+  private static final String BINARY = "(" + VALUE + VALUE + "I)" + VALUE;
+  private static final String TEST = "(" + VALUE + VALUE + "I)Z";
+  // Blocking, and starting threads, gain nothing from compiling.
+  private static final String CONCURRENT = "Tasks and channels are left to the interpreter";
+  private static final Handle CLASS_DATA_AT =
+      new Handle(
+          H_INVOKESTATIC,
+          Type.getInternalName(MethodHandles.class),
+          "classDataAt",
+          MethodType.methodType(
+                  Object.class, MethodHandles.Lookup.class, String.class, Class.class, int.class)
+              .toMethodDescriptorString(),
+          false);
+
+  private final Statement region;
+  private final Map<String, GlobalCell> cells = new HashMap<>();
+  private final List<Object> data = new ArrayList<>();
+  private final Map<Object, Integer> dataIndexes = new IdentityHashMap<>();
+  // The first JVM local of each scope the region has opened around the code being compiled,
+  // innermost last, and the local holding the slots of each scope around the region.
+  private final List<Integer> scopes = new ArrayList<>();
+  private int enclosingScopes = 0;
+  private int[] enclosing;
+  private int nextLocal = 3;
+  private int nesting = 0;
+  private MethodVisitor method;
+
+  /** Binds the globals the region uses, so must be called on the thread running the program. */
+  RegionCompiler(Statement region, GlobalEnvironmentAdapter globals) {
+    this.region = region;
+    scan(region, 0, globals);
+  }
+
+  private void scan(Statement statement, int depth, GlobalEnvironmentAdapter globals) {
+    switch (statement) {
+      case ExpressionStatement expression -> scan(expression.expression(), depth, globals);
+      case Print print -> scan(print.expression(), depth, globals);
+      case Var var -> {
+        cells.put(var.name().lexeme(), globals.cell(var.name().lexeme()));
+        scan(var.initialiser(), depth, globals);
+      }
+      case GlobalVar var -> {
+        cells.put(var.name().lexeme(), globals.cell(var.symbol()));
+        scan(var.initialiser(), depth, globals);
+      }
+      case LocalVar var -> {
+        if (depth == 0) {
+          throw new IllegalArgumentException("Locals are only compiled in a block of the region");
+        }
+        scan(var.initialiser(), depth, globals);
+      }
+      case ScopedBlock block -> {
+        final var inner = block.slotCount() > 0 ? depth + 1 : depth;
+        block.statementList().forEach(child -> scan(child, inner, globals));
+      }
+      case Block ignored ->
+          throw new IllegalArgumentException("Only resolved programs are compiled");
+      case If anIf -> {
+        scan(anIf.condition(), depth, globals);
+        scan(anIf.thenBranch(), depth, globals);
+        anIf.elseBranch().ifPresent(branch -> scan(branch, depth, globals));
+      }
+      case While loop -> {
+        scan(loop.condition(), depth, globals);
+        scan(loop.body(), depth, globals);
+      }
+      case Send ignored -> throw new IllegalArgumentException(CONCURRENT);
+    }
+  }
+
+  private void scan(Expression expression, int depth, GlobalEnvironmentAdapter globals) {
+    switch (expression) {
+      case Literal ignored -> {}
+      case Grouping grouping -> scan(grouping.expression(), depth, globals);
+      case Unary unary -> {
+        final var type = unary.operator().type();
+        if (type != TokenType.MINUS && type != TokenType.BANG) {
+          throw new IllegalArgumentException(CONCURRENT);
+        }
+        scan(unary.right(), depth, globals);
+      }
+      case Spawn ignored -> throw new IllegalArgumentException(CONCURRENT);
+      case Binary binary -> {
+        scan(binary.left(), depth, globals);
+        scan(binary.right(), depth, globals);
+      }
+      case Logical logical -> {
+        scan(logical.left(), depth, globals);
+        scan(logical.right(), depth, globals);
+      }
+      case Variable variable ->
+          cells.put(variable.name().lexeme(), globals.cell(variable.name().lexeme()));
+      case Assign assign -> {
+        cells.put(assign.name().lexeme(), globals.cell(assign.name().lexeme()));
+        scan(assign.value(), depth, globals);
+      }
+      case GlobalVariable global ->
+          cells.put(global.name().lexeme(), globals.cell(global.symbol()));
+      case GlobalAssign assign -> {
+        cells.put(assign.name().lexeme(), globals.cell(assign.symbol()));
+        scan(assign.value(), depth, globals);
+      }
+      case LocalVariable local ->
+          enclosingScopes = Math.max(enclosingScopes, local.depth() - depth + 1);
+      case LocalAssign assign -> {
+        enclosingScopes = Math.max(enclosingScopes, assign.depth() - depth + 1);
+        scan(assign.value(), depth, globals);
+      }
+    }
+  }
+
+  Tier.Compiled compile(IOPort io, ExecutionBudget budget) {
+    final var writer =
+        new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+          // Frames only merge Lox values, which the verifier checks no further than Object.
+          @Override
+          protected String getCommonSuperClass(String first, String second) {
+            return "java/lang/Object";
+          }
+        };
+    writer.visit(
+        V21,
+        ACC_FINAL | ACC_SUPER,
+        REGION,
+        null,
+        "java/lang/Object",
+        new String[] {Type.getInternalName(Tier.Compiled.class)});
+
+    final var constructor = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+    constructor.visitCode();
+    constructor.visitVarInsn(ALOAD, 0);
+    constructor.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    constructor.visitInsn(RETURN);
+    constructor.visitMaxs(0, 0);
+    constructor.visitEnd();
+
+    method =
+        writer.visitMethod(
+            ACC_PUBLIC, "run", "(" + Type.getDescriptor(SlotPort.class) + "I)V", null, null);
+    method.visitCode();
+    enclosing = new int[enclosingScopes];
+    for (var i = 0; i < enclosingScopes; i++) {
+      enclosing[i] = nextLocal++;
+      method.visitVarInsn(ALOAD, 1);
+      push(i);
+      method.visitMethodInsn(
+          INVOKEINTERFACE,
+          Type.getInternalName(SlotPort.class),
+          "slots",
+          "(I)" + Type.getDescriptor(LoxValue[].class),
+          true);
+      method.visitVarInsn(ASTORE, enclosing[i]);
+    }
+    statement(region, io, budget);
+    method.visitInsn(RETURN);
+    method.visitMaxs(0, 0);
+    method.visitEnd();
+    writer.visitEnd();
+
+    try {
+      final var lookup =
+          MethodHandles.lookup()
+              .defineHiddenClassWithClassData(writer.toByteArray(), List.copyOf(data), true);
+      return (Tier.Compiled) lookup.lookupClass().getConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to define a compiled region", e);
+    }
+  }
+
+  private void statement(Statement statement, IOPort io, ExecutionBudget budget) {
+    switch (statement) {
+      case ExpressionStatement expression -> {
+        expression(expression.expression());
+        method.visitInsn(POP);
+      }
+      case Print print -> {
+        load(io, IOPort.class);
+        expression(print.expression());
+        method.visitMethodInsn(
+            INVOKEINTERFACE,
+            Type.getInternalName(LoxValue.class),
+            "stringify",
+            "()Ljava/lang/String;",
+            true);
+        method.visitMethodInsn(
+            INVOKEINTERFACE,
+            Type.getInternalName(IOPort.class),
+            "print",
+            "(Ljava/lang/String;)V",
+            true);
+      }
+      case Var var -> define(var.name(), var.initialiser());
+      case GlobalVar var -> define(var.name(), var.initialiser());
+      case LocalVar var -> {
+        expression(var.initialiser());
+        method.visitVarInsn(ASTORE, scopes.getLast() + var.slot());
+      }
+      case ScopedBlock block -> {
+        load(budget, ExecutionBudget.class);
+        method.visitVarInsn(ILOAD, 2);
+        push(nesting + 1);
+        method.visitInsn(IADD);
+        method.visitMethodInsn(
+            INVOKEVIRTUAL,
+            Type.getInternalName(ExecutionBudget.class),
+            "enterBlock",
+            "(I)V",
+            false);
+        nesting++;
+        final var first = nextLocal;
+        if (block.slotCount() > 0) {
+          for (var slot = 0; slot < block.slotCount(); slot++) {
+            method.visitInsn(ACONST_NULL);
+            method.visitVarInsn(ASTORE, first + slot);
+          }
+          nextLocal += block.slotCount();
+          scopes.add(first);
+        }
+        block.statementList().forEach(child -> statement(child, io, budget));
+        if (block.slotCount() > 0) {
+          scopes.removeLast();
+          nextLocal = first;
+        }
+        nesting--;
+      }
+      case Block ignored ->
+          throw new IllegalArgumentException("Only resolved programs are compiled");
+      case If anIf -> {
+        final var otherwise = new Label();
+        final var end = new Label();
+        branch(anIf.condition(), false, otherwise);
+        statement(anIf.thenBranch(), io, budget);
+        method.visitJumpInsn(GOTO, end);
+        method.visitLabel(otherwise);
+        anIf.elseBranch().ifPresent(branch -> statement(branch, io, budget));
+        method.visitLabel(end);
+      }
+      case While loop -> {
+        final var condition = new Label();
+        final var end = new Label();
+        method.visitLabel(condition);
+        branch(loop.condition(), false, end);
+        statement(loop.body(), io, budget);
+        load(budget, ExecutionBudget.class);
+        method.visitMethodInsn(
+            INVOKEVIRTUAL, Type.getInternalName(ExecutionBudget.class), "backEdge", "()V", false);
+        method.visitJumpInsn(GOTO, condition);
+        method.visitLabel(end);
+      }
+      case Send ignored -> throw new IllegalArgumentException(CONCURRENT);
+    }
+  }
+
+  // Jumps to target if the condition's truthiness is jumpIf, without boxing what it can avoid.
+  private void branch(Expression condition, boolean jumpIf, Label target) {
+    switch (condition) {
+      case Grouping grouping -> branch(grouping.expression(), jumpIf, target);
+      case Unary unary when unary.operator().type() == TokenType.BANG ->
+          branch(unary.right(), !jumpIf, target);
+      case Logical logical -> {
+        final var or = logical.operator().type() == TokenType.OR;
+        if (or == jumpIf) {
+          branch(logical.left(), jumpIf, target);
+          branch(logical.right(), jumpIf, target);
+        } else {
+          final var skip = new Label();
+          branch(logical.left(), !jumpIf, skip);
+          branch(logical.right(), jumpIf, target);
+          method.visitLabel(skip);
+        }
+      }
+      case Binary binary when isTest(binary.operator().type()) -> {
+        test(binary);
+        method.visitJumpInsn(jumpIf ? IFNE : IFEQ, target);
+      }
+      default -> {
+        expression(condition);
+        method.visitMethodInsn(INVOKESTATIC, SUPPORT, "truthy", "(" + VALUE + ")Z", false);
+        method.visitJumpInsn(jumpIf ? IFNE : IFEQ, target);
+      }
+    }
+  }
+
+  private static boolean isTest(TokenType type) {
+    return switch (type) {
+      case GREATER, GREATER_EQUAL, LESS, LESS_EQUAL, EQUAL_EQUAL, BANG_EQUAL -> true;
+      default -> false;
+    };
+  }
+
+  // Leaves the outcome of a comparison or equality test on the stack as a boolean.
+  private void test(Binary binary) {
+    expression(binary.left());
+    expression(binary.right());
+    final var type = binary.operator().type();
+    if (type == TokenType.EQUAL_EQUAL || type == TokenType.BANG_EQUAL) {
+      method.visitMethodInsn(INVOKESTATIC, SUPPORT, "equal", "(" + VALUE + VALUE + ")Z", false);
+      if (type == TokenType.BANG_EQUAL) {
+        push(1);
+        method.visitInsn(IXOR);
+      }
+      return;
+    }
+    push(binary.operator().lineStart());
+    final var name =
+        switch (type) {
+          case GREATER -> "greater";
+          case GREATER_EQUAL -> "greaterEqual";
+          case LESS -> "less";
+          default -> "lessEqual";
+        };
+    method.visitMethodInsn(INVOKESTATIC, SUPPORT, name, TEST, false);
+  }
+
+  private void define(Token name, Expression initialiser) {
+    load(cells.get(name.lexeme()), GlobalCell.class);
+    expression(initialiser);
+    method.visitMethodInsn(
+        INVOKEVIRTUAL, Type.getInternalName(GlobalCell.class), "define", "(" + VALUE + ")V", false);
+  }
+
+  private void global(Token name, int line) {
+    countLookup(0);
+    load(cells.get(name.lexeme()), GlobalCell.class);
+    push(line);
+    method.visitMethodInsn(INVOKESTATIC, SUPPORT, "get", "(" + CELL + "I)" + VALUE, false);
+  }
+
+  private void assign(Token name, Expression value, int line) {
+    expression(value);
+    method.visitInsn(DUP);
+    load(cells.get(name.lexeme()), GlobalCell.class);
+    push(line);
+    method.visitMethodInsn(INVOKESTATIC, SUPPORT, "assign", "(" + VALUE + CELL + "I)V", false);
+  }
+
+  private void expression(Expression expression) {
+    switch (expression) {
+      case Literal literal -> load(literal.value(), LoxValue.class);
+      case Grouping grouping -> expression(grouping.expression());
+      case Variable variable -> global(variable.name(), variable.line());
+      case GlobalVariable global -> global(global.name(), global.line());
+      case Assign assign -> assign(assign.name(), assign.value(), assign.line());
+      case GlobalAssign assign -> assign(assign.name(), assign.value(), assign.line());
+      case LocalVariable local -> {
+        countLookup(local.depth());
+        if (local.depth() < scopes.size()) {
+          method.visitVarInsn(ALOAD, scopes.get(scopes.size() - 1 - local.depth()) + local.slot());
+        } else {
+          method.visitVarInsn(ALOAD, enclosing[local.depth() - scopes.size()]);
+          push(local.slot());
+          method.visitInsn(AALOAD);
+        }
+      }
+      case LocalAssign assign -> {
+        if (assign.depth() < scopes.size()) {
+          expression(assign.value());
+          method.visitInsn(DUP);
+          method.visitVarInsn(
+              ASTORE, scopes.get(scopes.size() - 1 - assign.depth()) + assign.slot());
+        } else {
+          method.visitVarInsn(ALOAD, enclosing[assign.depth() - scopes.size()]);
+          push(assign.slot());
+          expression(assign.value());
+          method.visitInsn(DUP_X2);
+          method.visitInsn(AASTORE);
+        }
+      }
+      case Binary binary when isTest(binary.operator().type()) -> {
+        test(binary);
+        box();
+      }
+      case Binary binary -> {
+        expression(binary.left());
+        expression(binary.right());
+        push(binary.operator().lineStart());
+        final var name =
+            switch (binary.operator().type()) {
+              case PLUS -> "add";
+              case MINUS -> "subtract";
+              case STAR -> "multiply";
+              case SLASH -> "divide";
+              default ->
+                  throw new IllegalArgumentException(
+                      "Unsupported binary operator " + binary.operator().type());
+            };
+        method.visitMethodInsn(INVOKESTATIC, SUPPORT, name, BINARY, false);
+      }
+      case Unary unary when unary.operator().type() == TokenType.BANG -> {
+        expression(unary.right());
+        method.visitMethodInsn(INVOKESTATIC, SUPPORT, "truthy", "(" + VALUE + ")Z", false);
+        push(1);
+        method.visitInsn(IXOR);
+        box();
+      }
+      case Unary unary -> {
+        expression(unary.right());
+        push(unary.operator().lineStart());
+        method.visitMethodInsn(INVOKESTATIC, SUPPORT, "negate", "(" + VALUE + "I)" + VALUE, false);
+      }
+      case Logical logical -> {
+        final var end = new Label();
+        expression(logical.left());
+        method.visitInsn(DUP);
+        method.visitMethodInsn(INVOKESTATIC, SUPPORT, "truthy", "(" + VALUE + ")Z", false);
+        method.visitJumpInsn(logical.operator().type() == TokenType.OR ? IFNE : IFEQ, end);
+        method.visitInsn(POP);
+        expression(logical.right());
+        method.visitLabel(end);
+      }
+      case Spawn ignored -> throw new IllegalArgumentException(CONCURRENT);
+    }
+  }
+
+  private void box() {
+    method.visitMethodInsn(
+        INVOKESTATIC, SUPPORT, "bool", "(Z)" + Type.getDescriptor(BooleanValue.class), false);
+  }
+
+  private void countLookup(int hops) {
+    if (Metrics.ENABLED) {
+      push(hops);
+      method.visitMethodInsn(INVOKESTATIC, SUPPORT, "lookup", "(I)V", false);
+    }
+  }
+
+  private void load(Object value, Class<?> type) {
+    final var index =
+        dataIndexes.computeIfAbsent(
+            value,
+            ignored -> {
+              data.add(value);
+              return data.size() - 1;
+            });
+    method.visitLdcInsn(new ConstantDynamic("_", Type.getDescriptor(type), CLASS_DATA_AT, index));
+  }
+
+  private void push(int value) {
+    if (value >= -1 && value <= 5) {
+      method.visitInsn(ICONST_0 + value);
+    } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+      method.visitIntInsn(BIPUSH, value);
+    } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+      method.visitIntInsn(SIPUSH, value);
+    } else {
+      method.visitLdcInsn(value);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package net.mcarolan.craftinginterpreters.jit;
+
+import com.google.common.collect.MapMaker;
+import java.util.Map;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.ast.statement.While;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.Tier;
+
+/**
+ * Counts how often each top-level statement runs and each loop goes round, and once one is hot
+ * compiles it with a {@link RegionCompiler} as the {@link JitPolicy} says. Until its code is ready,
+ * and for good if it cannot be compiled, the region stays with the interpreter. Statements are told
+ * apart by identity, as equal statements in different places are different regions, and held
+ * weakly, so a session that streams its declarations through does not keep each one and its profile
+ * alive once it has run.
+ */
+public class TieredCompiler implements Tier {
+
+  private final GlobalEnvironmentAdapter globals;
+  private final IOPort io;
+  private final ExecutionBudget budget;
+  private final JitPolicy policy;
+  private final Map<Statement, Profile> profiles = new MapMaker().weakKeys().makeMap();
+
+  private static final class Profile {
+    int count;
+    boolean queued;
+    volatile Compiled compiled;
+  }
+
+  public TieredCompiler(
+      GlobalEnvironmentAdapter globals, IOPort io, ExecutionBudget budget, JitPolicy policy) {
+    this.globals = globals;
+    this.io = io;
+    this.budget = budget;
+    this.policy = policy;
+  }
+
+  @Override
+  public Compiled statement(Statement statement) {
+    return profile(statement, policy.statementThreshold());
+  }
+
+  @Override
+  public Compiled backEdge(While loop) {
+    return profile(loop, policy.backEdgeThreshold());
+  }
+
+  /** Whether a region has been compiled and its code is ready to run. */
+  public boolean isCompiled(Statement region) {
+    final var profile = profiles.get(region);
+    return profile != null && profile.compiled != null;
+  }
+
+  private Compiled profile(Statement region, int threshold) {
+    final var profile = profiles.computeIfAbsent(region, ignored -> new Profile());
+    if (!profile.queued && ++profile.count >= threshold) {
+      profile.queued = true;
+      compile(region, profile);
+    }
+    return profile.compiled;
+  }
+
+  // A region that cannot be compiled is left to the interpreter, which reports any error in it.
+  private void compile(Statement region, Profile profile) {
+    final RegionCompiler compiler;
+    try {
+      compiler = new RegionCompiler(region, globals);
+    } catch (IllegalArgumentException e) {
+      return;
+    }
+    policy
+        .compiler()
+        .execute(
+            () -> {
+              try {
+                profile.compiled = compiler.compile(io, budget);
+              } catch (RuntimeException e) {
+                // Stays interpreted.
+              }
+            });
+  }
+}
@@ -0,0 +1,14 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import java.util.List;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+
+public interface Backend {
+  void interpret(List<Statement> statements);
+
+  /**
+   * Waits for the tasks the program spawned and never awaited, then raises the first failure among
+   * them that nobody awaited. Backends without tasks have nothing to wait for.
+   */
+  default void awaitTasks() {}
+}
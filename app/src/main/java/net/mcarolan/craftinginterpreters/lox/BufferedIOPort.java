@@ -0,0 +1,191 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes printed lines into a reusable buffer and writes them to a channel when the buffer fills,
+ * when the oldest unwritten line is older than the flush interval, or on {@link #flush()} and
+ * {@link #close()}. Synchronously the interval is only checked on the next print, so a program that
+ * prints and then computes for a long time holds its output back. In asynchronous mode lines go to
+ * a writer thread through a bounded queue, the writer honours the interval on its own, and the
+ * interpreter only blocks when the writer falls a full queue behind. The channel is not owned by
+ * the port and is left open on close.
+ */
+public class BufferedIOPort implements IOPort, AutoCloseable {
+
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(100);
+  private static final int QUEUE_CAPACITY = 1024;
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+  private static final String FLUSH = new String("flush");
+  private static final String CLOSE = new String("close");
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final CharsetEncoder encoder =
+      StandardCharsets.UTF_8
+          .newEncoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private final long flushIntervalNanos;
+  private final BlockingQueue<String> queue;
+  private final Thread writer;
+  private volatile IOException writerFailure;
+  private long oldestUnflushed = -1;
+
+  public BufferedIOPort(WritableByteChannel channel) {
+    this(channel, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL, false);
+  }
+
+  public BufferedIOPort(
+      WritableByteChannel channel, int bufferSize, Duration flushInterval, boolean asynchronous) {
+    if (bufferSize < 16) {
+      throw new IllegalArgumentException("Buffer size must be at least 16 bytes");
+    }
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocate(bufferSize);
+    this.flushIntervalNanos = flushInterval.toNanos();
+    if (asynchronous) {
+      this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+      this.writer = Thread.ofPlatform().name("lox-output").daemon().start(this::drain);
+    } else {
+      this.queue = null;
+      this.writer = null;
+    }
+  }
+
+  @Override
+  public void print(String string) {
+    if (writer == null) {
+      try {
+        append(string);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } else {
+      handOff(string);
+    }
+  }
+
+  @Override
+  public void flush() {
+    if (writer == null) {
+      try {
+        writeBuffer();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    } else {
+      handOff(FLUSH);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (writer == null) {
+      flush();
+      return;
+    }
+    handOff(CLOSE);
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    checkWriter();
+  }
+
+  // A writer that has stopped without a failure was closed. Either way it will never take this
+  // line, so printing fails rather than waiting on a queue nobody drains.
+  private void handOff(String string) {
+    try {
+      do {
+        final var stopped = !writer.isAlive();
+        checkWriter();
+        if (stopped) {
+          throw new UncheckedIOException(new IOException("Output writer has stopped"));
+        }
+      } while (!queue.offer(string, 10, TimeUnit.MILLISECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while printing", e);
+    }
+  }
+
+  private void checkWriter() {
+    final var failure = writerFailure;
+    if (failure != null) {
+      throw new UncheckedIOException(failure);
+    }
+  }
+
+  private void drain() {
+    try {
+      while (true) {
+        final var string =
+            oldestUnflushed < 0 ? queue.take() : queue.poll(remainingNanos(), TimeUnit.NANOSECONDS);
+        if (string == null || string == FLUSH) {
+          writeBuffer();
+        } else if (string == CLOSE) {
+          writeBuffer();
+          return;
+        } else {
+          append(string);
+        }
+      }
+    } catch (IOException e) {
+      writerFailure = e;
+    } catch (InterruptedException e) {
+      // Recorded as a failure so that printing does not wait forever on a writer that has gone.
+      writerFailure = new InterruptedIOException("Output writer was interrupted");
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      writerFailure = new IOException("Output writer failed", e);
+    }
+  }
+
+  private long remainingNanos() {
+    return Math.max(0, oldestUnflushed + flushIntervalNanos - System.nanoTime());
+  }
+
+  private void append(String string) throws IOException {
+    encode(CharBuffer.wrap(string));
+    encode(CharBuffer.wrap(LINE_SEPARATOR));
+    if (oldestUnflushed < 0) {
+      oldestUnflushed = System.nanoTime();
+    } else if (writer == null && remainingNanos() == 0) {
+      writeBuffer();
+    }
+  }
+
+  private void encode(CharBuffer chars) throws IOException {
+    encoder.reset();
+    while (encoder.encode(chars, buffer, true).isOverflow()) {
+      writeBuffer();
+    }
+    while (encoder.flush(buffer).isOverflow()) {
+      writeBuffer();
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+    oldestUnflushed = -1;
+  }
+}
@@ -0,0 +1,7 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+public final class CompilerException extends LoxException {
+  public CompilerException(String message, int line) {
+    super(message, line);
+  }
+}
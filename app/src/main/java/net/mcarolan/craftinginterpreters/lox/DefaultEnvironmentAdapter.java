@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
 
 public class DefaultEnvironmentAdapter implements EnvironmentPort {
 
@@ -25,13 +26,19 @@ public class DefaultEnvironmentAdapter implements EnvironmentPort {
 
   @Override
   public LoxValue get(String name) throws IllegalArgumentException {
-    if (values.containsKey(name)) {
-      return values.get(name);
+    EnvironmentPort scope = this;
+    while (scope instanceof DefaultEnvironmentAdapter named) {
+      if (named.values.containsKey(name)) {
+        return named.values.get(name);
+      }
+      scope =
+          named.enclosing.orElseThrow(
+              () -> new IllegalArgumentException(String.format("Variable %s not defined", name)));
+      if (Metrics.ENABLED) {
+        Metrics.count(Metrics.Counter.SCOPE_HOPS);
+      }
     }
-    return enclosing
-        .orElseThrow(
-            () -> new IllegalArgumentException(String.format("Variable %s not defined", name)))
-        .get(name);
+    return scope.get(name);
   }
 
   @Override
@@ -45,4 +52,21 @@ public class DefaultEnvironmentAdapter implements EnvironmentPort {
           .assign(name, value);
     }
   }
+
+  // Names are the only key here, so symbols are ignored.
+  @Override
+  public void defineGlobal(int symbol, String name, LoxValue value) {
+    define(name, value);
+  }
+
+  @Override
+  public void assignGlobal(int symbol, String name, LoxValue value)
+      throws IllegalArgumentException {
+    assign(name, value);
+  }
+
+  @Override
+  public LoxValue getGlobal(int symbol, String name) throws IllegalArgumentException {
+    return get(name);
+  }
 }
@@ -2,10 +2,20 @@ package net.mcarolan.craftinginterpreters.lox;
 
 import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
 
+/**
+ * Variables found by name, or by the symbol the resolver gave a global. Block-local variables of a
+ * resolved program live in a {@link SlotPort} instead.
+ */
 public interface EnvironmentPort {
   void define(String name, LoxValue value);
 
   void assign(String name, LoxValue value) throws IllegalArgumentException;
 
   LoxValue get(String name) throws IllegalArgumentException;
+
+  void defineGlobal(int symbol, String name, LoxValue value);
+
+  void assignGlobal(int symbol, String name, LoxValue value) throws IllegalArgumentException;
+
+  LoxValue getGlobal(int symbol, String name) throws IllegalArgumentException;
 }
@@ -0,0 +1,119 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import java.time.Duration;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+
+/**
+ * Enforces {@link ExecutionLimits} on one run and lets another thread cancel it. Backends only
+ * check in at loop back-edges and block entry, which is enough to stop any program since nothing
+ * else can repeat, and between the {@link #WAIT_SLICE slices} of a wait on a channel or task, since
+ * nothing else can block. A back-edge costs two decrements and a compare: the loop iteration count
+ * is exact, while the clock and the cancel flag are only consulted every {@value #POLL_INTERVAL}
+ * iterations. Block entry compares the block's nesting depth, which backends know statically, and
+ * reads the cancel flag. The clock starts when the budget is created.
+ *
+ * <p>A budget is used by one thread. Each task a program spawns gets its own from {@link
+ * #forTask()}, which counts the task's iterations on their own but shares the clock and is
+ * cancelled along with the budget it came from.
+ */
+public final class ExecutionBudget {
+
+  static final int POLL_INTERVAL = 1024;
+  public static final Duration WAIT_SLICE = Duration.ofMillis(10);
+
+  private final ExecutionLimits limits;
+  private final long start;
+  private final long timeoutNanos;
+  private final ExecutionBudget parent;
+  private volatile boolean cancelled;
+  private long iterationsLeft;
+  private int untilPoll = POLL_INTERVAL;
+
+  public ExecutionBudget(ExecutionLimits limits) {
+    this(limits, System.nanoTime(), null);
+  }
+
+  private ExecutionBudget(ExecutionLimits limits, long start, ExecutionBudget parent) {
+    this.limits = limits;
+    this.start = start;
+    this.timeoutNanos = saturatedNanos(limits.timeout());
+    this.parent = parent;
+    this.iterationsLeft = limits.maxIterations();
+  }
+
+  public static ExecutionBudget unlimited() {
+    return new ExecutionBudget(ExecutionLimits.none());
+  }
+
+  /** Stops the run at its next back-edge or block entry. Safe to call from any thread. */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled || parent != null && parent.isCancelled();
+  }
+
+  public ExecutionBudget forTask() {
+    return new ExecutionBudget(limits, start, this);
+  }
+
+  public long iterations() {
+    return limits.maxIterations() - iterationsLeft;
+  }
+
+  public void backEdge() {
+    if (--iterationsLeft < 0) {
+      iterationsLeft = 0;
+      throw new ExecutionLimitException(
+          ExecutionLimitException.Limit.ITERATIONS,
+          String.format("Exceeded the limit of %d loop iterations", limits.maxIterations()));
+    }
+    if (--untilPoll == 0) {
+      poll();
+    }
+  }
+
+  public void enterBlock(int depth) {
+    if (Metrics.ENABLED) {
+      Metrics.scopeDepth(depth);
+    }
+    if (depth > limits.maxScopeDepth()) {
+      throw new ExecutionLimitException(
+          ExecutionLimitException.Limit.SCOPE_DEPTH,
+          String.format("Exceeded the maximum scope depth of %d", limits.maxScopeDepth()));
+    }
+    if (isCancelled()) {
+      throw cancelledException();
+    }
+  }
+
+  private void poll() {
+    untilPoll = POLL_INTERVAL;
+    checkIn();
+  }
+
+  /** Stops the run if it has been cancelled or is out of time. */
+  public void checkIn() {
+    if (isCancelled()) {
+      throw cancelledException();
+    }
+    if (System.nanoTime() - start > timeoutNanos) {
+      throw new ExecutionLimitException(
+          ExecutionLimitException.Limit.TIME,
+          String.format("Exceeded the time limit of %s", limits.timeout()));
+    }
+  }
+
+  private static ExecutionLimitException cancelledException() {
+    return new ExecutionLimitException(ExecutionLimitException.Limit.CANCELLED, "Cancelled");
+  }
+
+  private static long saturatedNanos(Duration duration) {
+    try {
+      return duration.toNanos();
+    } catch (ArithmeticException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+}
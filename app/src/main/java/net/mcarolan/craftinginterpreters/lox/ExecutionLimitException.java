@@ -0,0 +1,22 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+public final class ExecutionLimitException extends LoxException {
+
+  public enum Limit {
+    ITERATIONS,
+    TIME,
+    SCOPE_DEPTH,
+    CANCELLED
+  }
+
+  private final Limit limit;
+
+  public ExecutionLimitException(Limit limit, String message) {
+    super(message);
+    this.limit = limit;
+  }
+
+  public Limit limit() {
+    return limit;
+  }
+}
@@ -0,0 +1,24 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import java.time.Duration;
+
+public record ExecutionLimits(long maxIterations, Duration timeout, int maxScopeDepth) {
+
+  private static final Duration NO_TIMEOUT = Duration.ofSeconds(Long.MAX_VALUE);
+
+  public static ExecutionLimits none() {
+    return new ExecutionLimits(Long.MAX_VALUE, NO_TIMEOUT, Integer.MAX_VALUE);
+  }
+
+  public ExecutionLimits withMaxIterations(long maxIterations) {
+    return new ExecutionLimits(maxIterations, timeout, maxScopeDepth);
+  }
+
+  public ExecutionLimits withTimeout(Duration timeout) {
+    return new ExecutionLimits(maxIterations, timeout, maxScopeDepth);
+  }
+
+  public ExecutionLimits withMaxScopeDepth(int maxScopeDepth) {
+    return new ExecutionLimits(maxIterations, timeout, maxScopeDepth);
+  }
+}
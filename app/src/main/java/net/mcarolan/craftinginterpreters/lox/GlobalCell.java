@@ -0,0 +1,47 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+
+/**
+ * The storage for one global variable. A cell exists from the first time its name is compiled, so
+ * compiled code can hold on to it, but it only holds a value once the variable has been defined.
+ */
+public final class GlobalCell {
+
+  private final String name;
+  private LoxValue value;
+
+  GlobalCell(String name) {
+    this.name = name;
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public boolean isDefined() {
+    return value != null;
+  }
+
+  public LoxValue get() throws IllegalArgumentException {
+    if (value == null) {
+      throw notDefined();
+    }
+    return value;
+  }
+
+  public void define(LoxValue value) {
+    this.value = value;
+  }
+
+  public void assign(LoxValue value) throws IllegalArgumentException {
+    if (this.value == null) {
+      throw notDefined();
+    }
+    this.value = value;
+  }
+
+  private IllegalArgumentException notDefined() {
+    return new IllegalArgumentException(String.format("Variable %s not defined", name));
+  }
+}
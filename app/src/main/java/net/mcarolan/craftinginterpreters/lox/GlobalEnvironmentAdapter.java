@@ -0,0 +1,104 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+
+/**
+ * The global scope, stored as one {@link GlobalCell} per symbol of its {@link SymbolTable}.
+ * Programs are resolved against that table, so the cells never outnumber the names interned in it,
+ * which may include names added through other environments over the same table. Compiled code binds
+ * the cells it uses up front, and resolved programs carry their symbols, so neither looks a name
+ * up. The name-based methods remain for unresolved programs; they only look names up, so asking for
+ * a name that was never defined creates nothing.
+ */
+public class GlobalEnvironmentAdapter implements EnvironmentPort {
+
+  private final SymbolTable symbols;
+  private GlobalCell[] cells;
+
+  public GlobalEnvironmentAdapter() {
+    this(new SymbolTable());
+  }
+
+  /** An environment for programs already resolved against the table. */
+  public GlobalEnvironmentAdapter(SymbolTable symbols) {
+    this.symbols = symbols;
+    this.cells = new GlobalCell[symbols.size()];
+  }
+
+  public SymbolTable symbols() {
+    return symbols;
+  }
+
+  public GlobalCell cell(String name) {
+    return cell(symbols.intern(name));
+  }
+
+  public GlobalCell cell(int symbol) {
+    if (symbol >= cells.length) {
+      cells = Arrays.copyOf(cells, Math.max(cells.length * 2, symbol + 1));
+    }
+    var cell = cells[symbol];
+    if (cell == null) {
+      cell = new GlobalCell(symbols.name(symbol));
+      cells[symbol] = cell;
+    }
+    return cell;
+  }
+
+  // The number of cells allocated, whether or not they have been created yet.
+  int capacity() {
+    return cells.length;
+  }
+
+  public Map<String, LoxValue> values() {
+    final var values = new HashMap<String, LoxValue>();
+    for (final var cell : cells) {
+      if (cell != null && cell.isDefined()) {
+        values.put(cell.name(), cell.get());
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public void define(String name, LoxValue value) {
+    cell(name).define(value);
+  }
+
+  @Override
+  public void assign(String name, LoxValue value) throws IllegalArgumentException {
+    assignGlobal(symbols.find(name), name, value);
+  }
+
+  @Override
+  public LoxValue get(String name) throws IllegalArgumentException {
+    return getGlobal(symbols.find(name), name);
+  }
+
+  @Override
+  public void defineGlobal(int symbol, String name, LoxValue value) {
+    cell(symbol).define(value);
+  }
+
+  @Override
+  public void assignGlobal(int symbol, String name, LoxValue value)
+      throws IllegalArgumentException {
+    existing(symbol, name).assign(value);
+  }
+
+  @Override
+  public LoxValue getGlobal(int symbol, String name) throws IllegalArgumentException {
+    return existing(symbol, name).get();
+  }
+
+  private GlobalCell existing(int symbol, String name) {
+    final var cell = symbol >= 0 && symbol < cells.length ? cells[symbol] : null;
+    if (cell == null) {
+      throw new IllegalArgumentException(String.format("Variable %s not defined", name));
+    }
+    return cell;
+  }
+}
@@ -2,4 +2,6 @@ package net.mcarolan.craftinginterpreters.lox;
 
 public interface IOPort {
   void print(String string);
+
+  default void flush() {}
 }
@@ -1,21 +1,71 @@
 package net.mcarolan.craftinginterpreters.lox;
 
+import static net.mcarolan.craftinginterpreters.lox.Operators.*;
 import static net.mcarolan.craftinginterpreters.scanner.TokenType.OR;
 
+import java.util.ArrayList;
 import java.util.List;
 import net.mcarolan.craftinginterpreters.ast.expression.*;
 import net.mcarolan.craftinginterpreters.ast.statement.*;
 import net.mcarolan.craftinginterpreters.lox.value.*;
-import net.mcarolan.craftinginterpreters.scanner.TokenType;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
 
-public class Interpreter {
+public class Interpreter implements Backend {
+
+  // Finished tasks are dropped once this many are tracked, unless their failure is still unseen.
+  private static final int PRUNE_AT = 256;
 
   private EnvironmentPort environment;
-  private final IOPort io;
+  private SlotPort slots;
+  private IOPort io;
+  private final ExecutionBudget budget;
+  private final StatementObserver observer;
+  private final boolean observed;
+  private final Tier tier;
+  private final boolean tiered;
+  private int blockDepth = 0;
+  private final List<Spawned> spawned = new ArrayList<>();
+  private int pruneAt = PRUNE_AT;
+
+  private record Spawned(TaskValue task, int line) {}
 
   public Interpreter(EnvironmentPort environment, IOPort io) {
+    this(environment, io, ExecutionBudget.unlimited());
+  }
+
+  public Interpreter(EnvironmentPort environment, IOPort io, ExecutionBudget budget) {
+    this(environment, io, budget, StatementObserver.NONE);
+  }
+
+  public Interpreter(
+      EnvironmentPort environment, IOPort io, ExecutionBudget budget, StatementObserver observer) {
+    this(environment, io, budget, observer, Tier.NONE);
+  }
+
+  public Interpreter(
+      EnvironmentPort environment,
+      IOPort io,
+      ExecutionBudget budget,
+      StatementObserver observer,
+      Tier tier) {
+    this(environment, new SlotEnvironmentAdapter(0), io, budget, observer, tier);
+  }
+
+  private Interpreter(
+      EnvironmentPort environment,
+      SlotPort slots,
+      IOPort io,
+      ExecutionBudget budget,
+      StatementObserver observer,
+      Tier tier) {
     this.environment = environment;
+    this.slots = slots;
     this.io = io;
+    this.budget = budget;
+    this.observer = observer;
+    this.observed = observer != StatementObserver.NONE;
+    this.tier = tier;
+    this.tiered = tier != Tier.NONE;
   }
 
   LoxValue evaluateExpression(Expression expression) {
@@ -26,10 +76,74 @@ public class Interpreter {
       case Unary unary -> evaluateUnary(unary);
       case Variable variable -> evaluateVariable(variable);
       case Assign assign -> evaluateAssignment(assign);
+      case GlobalVariable global -> evaluateGlobalVariable(global);
+      case GlobalAssign assign -> evaluateGlobalAssignment(assign);
+      case LocalVariable local -> evaluateLocalVariable(local);
+      case LocalAssign assign -> evaluateLocalAssignment(assign);
       case Logical logical -> evaluateLogical(logical);
+      case Spawn spawn -> evaluateSpawn(spawn);
     };
   }
 
+  // The task gets an interpreter of its own, with no globals and a scope holding only the copies
+  // the resolver captured. Output is shared from the first spawn on.
+  private LoxValue evaluateSpawn(Spawn spawn) {
+    if (!(spawn.body() instanceof ScopedBlock body)) {
+      throw new InterpreterException(
+          "Tasks must be resolved before they are spawned", spawn.line());
+    }
+    final var captures = spawn.captures();
+    final var captured = new SlotEnvironmentAdapter(captures.size());
+    for (var slot = 0; slot < captures.size(); slot++) {
+      captured.defineAt(slot, evaluateExpression(captures.get(slot)));
+    }
+
+    io = SharedIOPort.of(io);
+    final var task =
+        new Interpreter(
+            new DefaultEnvironmentAdapter(),
+            captured,
+            io,
+            budget.forTask(),
+            StatementObserver.NONE,
+            Tier.NONE);
+    final var started = TaskValue.start(() -> task.runTask(body));
+    track(new Spawned(started, spawn.line()));
+    return started;
+  }
+
+  // A task finishes only once the tasks it spawned have, so awaiting it awaits them too.
+  private void runTask(ScopedBlock body) {
+    try {
+      evaluateStatement(body);
+    } finally {
+      awaitTasks();
+    }
+  }
+
+  private void track(Spawned task) {
+    spawned.add(task);
+    if (spawned.size() >= pruneAt) {
+      spawned.removeIf(s -> s.task().isDone() && !s.task().hasUnobservedFailure());
+      pruneAt = Math.max(PRUNE_AT, spawned.size() * 2);
+    }
+  }
+
+  @Override
+  public void awaitTasks() {
+    final var outstanding = List.copyOf(spawned);
+    spawned.clear();
+    pruneAt = PRUNE_AT;
+    for (final var task : outstanding) {
+      join(task.task(), budget, task.line());
+    }
+    for (final var task : outstanding) {
+      if (task.task().hasUnobservedFailure()) {
+        task.task().rethrow();
+      }
+    }
+  }
+
   private LoxValue evaluateLogical(Logical logical) {
     final var left = evaluateExpression(logical.left());
 
@@ -48,11 +162,41 @@ public class Interpreter {
 
   private LoxValue evaluateAssignment(Assign assign) {
     final var value = evaluateExpression(assign.value());
-    environment.assign(assign.name().lexeme(), value);
+    try {
+      environment.assign(assign.name().lexeme(), value);
+    } catch (IllegalArgumentException e) {
+      throw new InterpreterException("Failed to assign variable", assign.line(), e);
+    }
+    return value;
+  }
+
+  private LoxValue evaluateGlobalAssignment(GlobalAssign assign) {
+    final var value = evaluateExpression(assign.value());
+    try {
+      environment.assignGlobal(assign.symbol(), assign.name().lexeme(), value);
+    } catch (IllegalArgumentException e) {
+      throw new InterpreterException("Failed to assign variable", assign.line(), e);
+    }
     return value;
   }
 
+  private LoxValue evaluateLocalAssignment(LocalAssign assign) {
+    final var value = evaluateExpression(assign.value());
+    slots.assignAt(assign.depth(), assign.slot(), value);
+    return value;
+  }
+
+  private LoxValue evaluateLocalVariable(LocalVariable local) {
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+    }
+    return slots.getAt(local.depth(), local.slot());
+  }
+
   private LoxValue evaluateVariable(Variable variable) {
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+    }
     try {
       return environment.get(variable.name().lexeme());
     } catch (IllegalArgumentException e) {
@@ -60,11 +204,47 @@ public class Interpreter {
     }
   }
 
+  private LoxValue evaluateGlobalVariable(GlobalVariable global) {
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+    }
+    try {
+      return environment.getGlobal(global.symbol(), global.name().lexeme());
+    } catch (IllegalArgumentException e) {
+      throw new InterpreterException("Failed to evaluate variable", global.line(), e);
+    }
+  }
+
+  @Override
   public void interpret(List<Statement> statements) {
-    statements.forEach(this::evaluateStatement);
+    if (!tiered) {
+      statements.forEach(this::evaluateStatement);
+      return;
+    }
+    for (final var statement : statements) {
+      final var compiled = tier.statement(statement);
+      if (compiled != null) {
+        compiled.run(slots, blockDepth);
+      } else {
+        evaluateStatement(statement);
+      }
+    }
   }
 
   private void evaluateStatement(Statement statement) {
+    if (!observed) {
+      executeStatement(statement);
+      return;
+    }
+    observer.enter(statement);
+    try {
+      executeStatement(statement);
+    } finally {
+      observer.exit(statement);
+    }
+  }
+
+  private void executeStatement(Statement statement) {
     switch (statement) {
       case ExpressionStatement expression -> {
         evaluateExpression(expression.expression());
@@ -73,16 +253,32 @@ public class Interpreter {
         final var stringValue = evaluateExpression(print.expression()).stringify();
         io.print(stringValue);
       }
+      case Send send -> {
+        final var channel = evaluateExpression(send.channel());
+        final var value = evaluateExpression(send.value());
+        interpretSend(channel, value, budget, send.keyword().lineStart());
+      }
       case Var var -> {
         final var initialiser = evaluateExpression(var.initialiser());
         environment.define(var.name().lexeme(), initialiser);
       }
-      case Block block -> {
-        final var previous = environment;
-        environment = new DefaultEnvironmentAdapter(previous);
-        block.statementList().forEach(this::evaluateStatement);
-        environment = previous;
+      case GlobalVar var -> {
+        final var initialiser = evaluateExpression(var.initialiser());
+        environment.defineGlobal(var.symbol(), var.name().lexeme(), initialiser);
+      }
+      case LocalVar var -> {
+        final var initialiser = evaluateExpression(var.initialiser());
+        slots.defineAt(var.slot(), initialiser);
       }
+      case ScopedBlock scoped -> {
+        if (scoped.slotCount() == 0) {
+          executeBlock(scoped.statementList(), environment, slots);
+        } else {
+          executeBlock(scoped.statementList(), environment, slots.nested(scoped.slotCount()));
+        }
+      }
+      case Block block ->
+          executeBlock(block.statementList(), new DefaultEnvironmentAdapter(environment), slots);
       case If anIf -> {
         if (isTruthy(evaluateExpression(anIf.condition()))) {
           evaluateStatement(anIf.thenBranch());
@@ -93,11 +289,35 @@ public class Interpreter {
       case While aWhile -> {
         while (isTruthy(evaluateExpression(aWhile.condition()))) {
           evaluateStatement(aWhile.body());
+          budget.backEdge();
+          if (tiered) {
+            final var compiled = tier.backEdge(aWhile);
+            if (compiled != null) {
+              compiled.run(slots, blockDepth);
+              break;
+            }
+          }
         }
       }
     }
   }
 
+  private void executeBlock(List<Statement> statements, EnvironmentPort scope, SlotPort locals) {
+    budget.enterBlock(blockDepth + 1);
+    final var previous = environment;
+    final var previousSlots = slots;
+    environment = scope;
+    slots = locals;
+    blockDepth++;
+    try {
+      statements.forEach(this::evaluateStatement);
+    } finally {
+      blockDepth--;
+      environment = previous;
+      slots = previousSlots;
+    }
+  }
+
   private LoxValue evaluateGrouping(Grouping grouping) {
     return evaluateExpression(grouping.expression());
   }
@@ -121,67 +341,6 @@ public class Interpreter {
     };
   }
 
-  private static BooleanValue interpretEquality(LoxValue left, LoxValue right) {
-    return BooleanValue.of(left.equals(right));
-  }
-
-  private static LoxValue interpretNumberExpression(
-      LoxValue left, LoxValue right, TokenType operatorType, int line) {
-    if (left instanceof NumberValue(final var leftValue)
-        && right instanceof NumberValue(final var rightValue)) {
-      final var result =
-          switch (operatorType) {
-            case STAR -> leftValue * rightValue;
-            case MINUS -> leftValue - rightValue;
-            case SLASH -> {
-              if (rightValue == 0.0) {
-                throw new InterpreterException("Attempted to divide by 0", line);
-              }
-              yield leftValue / rightValue;
-            }
-            default ->
-                throw new InterpreterException(
-                    String.format("Unsupported number expression operator %s", operatorType), line);
-          };
-      return new NumberValue(result);
-    }
-    throw new InterpreterException(
-        String.format("%s only supported if both operands are Number", operatorType), line);
-  }
-
-  private static LoxValue interpretNumberComparison(
-      LoxValue left, LoxValue right, TokenType operatorType, int line) {
-    if (left instanceof NumberValue(final var leftValue)
-        && right instanceof NumberValue(final var rightValue)) {
-      final var result =
-          switch (operatorType) {
-            case GREATER -> leftValue > rightValue;
-            case GREATER_EQUAL -> leftValue >= rightValue;
-            case LESS -> leftValue < rightValue;
-            case LESS_EQUAL -> leftValue <= rightValue;
-            default ->
-                throw new InterpreterException(
-                    String.format("Unsupported number comparison operator %s", operatorType), line);
-          };
-      return BooleanValue.of(result);
-    }
-    throw new InterpreterException(
-        String.format("%s only supported if both operands are Number", operatorType), line);
-  }
-
-  private static LoxValue interpretAddition(LoxValue left, LoxValue right, int line) {
-    if (left instanceof NumberValue(final var leftValue)
-        && right instanceof NumberValue(final var rightValue)) {
-      return new NumberValue(leftValue + rightValue);
-    }
-    if (left instanceof StringValue(final var leftValue)
-        && right instanceof StringValue(final var rightValue)) {
-      return new StringValue(leftValue + rightValue);
-    }
-    throw new InterpreterException(
-        "Addition only supported if both operands are Number or both operands are String", line);
-  }
-
   private static LoxValue evaluateLiteral(Literal literal) {
     return literal.value();
   }
@@ -192,26 +351,13 @@ public class Interpreter {
     return switch (unary.operator().type()) {
       case MINUS -> interpretMinus(right, unary.operator().lineStart());
       case BANG -> BooleanValue.of(!isTruthy(right));
+      case CHANNEL -> interpretChannel(right, unary.operator().lineStart());
+      case RECEIVE -> interpretReceive(right, budget, unary.operator().lineStart());
+      case AWAIT -> interpretAwait(right, budget, unary.operator().lineStart());
       default ->
           throw new InterpreterException(
               String.format("Unexpected unary with %s operator", unary.operator().type()),
               unary.operator().lineStart());
     };
   }
-
-  private static boolean isTruthy(LoxValue value) {
-    return switch (value) {
-      case BooleanValue booleanValue -> booleanValue.value();
-      case NullValue ignored -> false;
-      case NumberValue ignored -> true;
-      case StringValue ignored -> true;
-    };
-  }
-
-  private static LoxValue interpretMinus(LoxValue right, int line) {
-    return switch (right) {
-      case NumberValue numberValue -> new NumberValue(-numberValue.value());
-      default -> throw new InterpreterException("Minus only supported for number values", line);
-    };
-  }
 }
@@ -1,7 +1,12 @@
 package net.mcarolan.craftinginterpreters.lox;
 
 public sealed class LoxException extends RuntimeException
-    permits InterpreterException, ParserException, ScannerException {
+    permits CompilerException,
+        ExecutionLimitException,
+        InterpreterException,
+        ParserException,
+        ResolverException,
+        ScannerException {
 
   public LoxException(String message, int line, Throwable cause) {
     super(String.format("Line %d: %s", line, message), cause);
@@ -10,4 +15,9 @@ public sealed class LoxException extends RuntimeException
   public LoxException(String message, int line) {
     this(message, line, null);
   }
+
+  // For failures that belong to the run as a whole rather than to a line of source.
+  protected LoxException(String message) {
+    super(message);
+  }
 }
@@ -0,0 +1,151 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import net.mcarolan.craftinginterpreters.lox.value.*;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+public final class Operators {
+
+  private Operators() {}
+
+  public static BooleanValue interpretEquality(LoxValue left, LoxValue right) {
+    return BooleanValue.of(left.equals(right));
+  }
+
+  public static LoxValue interpretNumberExpression(
+      LoxValue left, LoxValue right, TokenType operatorType, int line) {
+    if (left instanceof NumberValue(final var leftValue)
+        && right instanceof NumberValue(final var rightValue)) {
+      final var result =
+          switch (operatorType) {
+            case STAR -> leftValue * rightValue;
+            case MINUS -> leftValue - rightValue;
+            case SLASH -> {
+              if (rightValue == 0.0) {
+                throw new InterpreterException("Attempted to divide by 0", line);
+              }
+              yield leftValue / rightValue;
+            }
+            default ->
+                throw new InterpreterException(
+                    String.format("Unsupported number expression operator %s", operatorType), line);
+          };
+      return NumberValue.of(result);
+    }
+    throw new InterpreterException(
+        String.format("%s only supported if both operands are Number", operatorType), line);
+  }
+
+  public static LoxValue interpretNumberComparison(
+      LoxValue left, LoxValue right, TokenType operatorType, int line) {
+    if (left instanceof NumberValue(final var leftValue)
+        && right instanceof NumberValue(final var rightValue)) {
+      final var result =
+          switch (operatorType) {
+            case GREATER -> leftValue > rightValue;
+            case GREATER_EQUAL -> leftValue >= rightValue;
+            case LESS -> leftValue < rightValue;
+            case LESS_EQUAL -> leftValue <= rightValue;
+            default ->
+                throw new InterpreterException(
+                    String.format("Unsupported number comparison operator %s", operatorType), line);
+          };
+      return BooleanValue.of(result);
+    }
+    throw new InterpreterException(
+        String.format("%s only supported if both operands are Number", operatorType), line);
+  }
+
+  public static LoxValue interpretAddition(LoxValue left, LoxValue right, int line) {
+    if (left instanceof NumberValue(final var leftValue)
+        && right instanceof NumberValue(final var rightValue)) {
+      return NumberValue.of(leftValue + rightValue);
+    }
+    if (left instanceof StringValue leftString && right instanceof StringValue rightString) {
+      return leftString.concat(rightString);
+    }
+    throw new InterpreterException(
+        "Addition only supported if both operands are Number or both operands are String", line);
+  }
+
+  public static boolean isTruthy(LoxValue value) {
+    return switch (value) {
+      case BooleanValue booleanValue -> booleanValue.value();
+      case NullValue ignored -> false;
+      case NumberValue ignored -> true;
+      case StringValue ignored -> true;
+      case ChannelValue ignored -> true;
+      case TaskValue ignored -> true;
+    };
+  }
+
+  public static LoxValue interpretMinus(LoxValue right, int line) {
+    return switch (right) {
+      case NumberValue numberValue -> NumberValue.of(-numberValue.value());
+      default -> throw new InterpreterException("Minus only supported for number values", line);
+    };
+  }
+
+  public static ChannelValue interpretChannel(LoxValue capacity, int line) {
+    if (capacity instanceof NumberValue(final var value)
+        && value >= 0
+        && value <= Integer.MAX_VALUE
+        && value == Math.rint(value)) {
+      return new ChannelValue((int) value);
+    }
+    throw new InterpreterException("Channel capacity must be a whole number from 0", line);
+  }
+
+  // Blocking operations wait in slices and check in with the budget between them, so a run that is
+  // cancelled or out of time stops even when stuck on a channel. Nothing else interrupts them.
+  public static void interpretSend(
+      LoxValue channel, LoxValue value, ExecutionBudget budget, int line) {
+    if (!(channel instanceof ChannelValue target)) {
+      throw new InterpreterException("Send only supported for channel values", line);
+    }
+    try {
+      while (!target.send(value, ExecutionBudget.WAIT_SLICE)) {
+        budget.checkIn();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterpreterException("Interrupted while sending", line, e);
+    }
+  }
+
+  public static LoxValue interpretReceive(LoxValue channel, ExecutionBudget budget, int line) {
+    if (!(channel instanceof ChannelValue source)) {
+      throw new InterpreterException("Receive only supported for channel values", line);
+    }
+    try {
+      var value = source.receive(ExecutionBudget.WAIT_SLICE);
+      while (value == null) {
+        budget.checkIn();
+        value = source.receive(ExecutionBudget.WAIT_SLICE);
+      }
+      return value;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterpreterException("Interrupted while receiving", line, e);
+    }
+  }
+
+  public static LoxValue interpretAwait(LoxValue task, ExecutionBudget budget, int line) {
+    if (!(task instanceof TaskValue awaited)) {
+      throw new InterpreterException("Await only supported for task values", line);
+    }
+    join(awaited, budget, line);
+    awaited.rethrow();
+    return NullValue.VALUE;
+  }
+
+  static void join(TaskValue task, ExecutionBudget budget, int line) {
+    try {
+      while (!task.join(ExecutionBudget.WAIT_SLICE)) {
+        budget.checkIn();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterpreterException("Interrupted while awaiting a task", line, e);
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+public final class ResolverException extends LoxException {
+  public ResolverException(String message, int line) {
+    super(message, line);
+  }
+}
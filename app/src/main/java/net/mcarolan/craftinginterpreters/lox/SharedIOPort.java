@@ -0,0 +1,41 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets the tasks of a program print to one port without interleaving within a line. A lock rather
+ * than {@code synchronized} keeps a task that blocks on output from pinning its carrier thread.
+ */
+public final class SharedIOPort implements IOPort {
+
+  private final IOPort port;
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private SharedIOPort(IOPort port) {
+    this.port = port;
+  }
+
+  public static SharedIOPort of(IOPort port) {
+    return port instanceof SharedIOPort shared ? shared : new SharedIOPort(port);
+  }
+
+  @Override
+  public void print(String string) {
+    lock.lock();
+    try {
+      port.print(string);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void flush() {
+    lock.lock();
+    try {
+      port.flush();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+
+/**
+ * A block scope whose variables live in an array, addressed by the (depth, slot) pairs assigned by
+ * the resolver. Scopes only hold block locals; a program's globals are kept apart in an {@link
+ * EnvironmentPort}.
+ */
+public class SlotEnvironmentAdapter implements SlotPort {
+
+  final LoxValue[] slots;
+  private final SlotEnvironmentAdapter parent;
+
+  /** An outermost scope, with nothing around it. */
+  public SlotEnvironmentAdapter(int slotCount) {
+    this(slotCount, null);
+  }
+
+  private SlotEnvironmentAdapter(int slotCount, SlotEnvironmentAdapter parent) {
+    this.slots = new LoxValue[slotCount];
+    this.parent = parent;
+  }
+
+  @Override
+  public SlotPort nested(int slotCount) {
+    return new SlotEnvironmentAdapter(slotCount, this);
+  }
+
+  @Override
+  public void defineAt(int slot, LoxValue value) {
+    slots[slot] = value;
+  }
+
+  @Override
+  public void assignAt(int depth, int slot, LoxValue value) {
+    ancestor(depth).slots[slot] = value;
+  }
+
+  @Override
+  public LoxValue getAt(int depth, int slot) {
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.SCOPE_HOPS, depth);
+    }
+    return ancestor(depth).slots[slot];
+  }
+
+  @Override
+  public LoxValue[] slots(int depth) {
+    return ancestor(depth).slots;
+  }
+
+  private SlotEnvironmentAdapter ancestor(int depth) {
+    var environment = this;
+    for (var i = 0; i < depth; i++) {
+      environment = environment.parent;
+    }
+    return environment;
+  }
+}
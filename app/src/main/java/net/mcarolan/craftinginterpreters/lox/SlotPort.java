@@ -0,0 +1,22 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+
+/**
+ * The block-local scopes of a resolved program, addressed by the (depth, slot) pairs the resolver
+ * assigns. Names never reach here; globals stay in an {@link EnvironmentPort}.
+ */
+public interface SlotPort {
+
+  /** A new scope inside this one with room for the given number of variables. */
+  SlotPort nested(int slotCount);
+
+  void defineAt(int slot, LoxValue value);
+
+  void assignAt(int depth, int slot, LoxValue value);
+
+  LoxValue getAt(int depth, int slot);
+
+  /** The slots of the scope {@code depth} levels out, for compiled code to index directly. */
+  LoxValue[] slots(int depth);
+}
@@ -0,0 +1,24 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+
+/**
+ * Told when each statement starts and finishes executing, including when it finishes by throwing.
+ * Backends only instrument statements when given an observer other than {@link #NONE}, so an
+ * unobserved run pays nothing for the hook.
+ */
+public interface StatementObserver {
+
+  StatementObserver NONE =
+      new StatementObserver() {
+        @Override
+        public void enter(Statement statement) {}
+
+        @Override
+        public void exit(Statement statement) {}
+      };
+
+  void enter(Statement statement);
+
+  void exit(Statement statement);
+}
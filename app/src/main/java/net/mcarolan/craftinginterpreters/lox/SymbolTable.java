@@ -0,0 +1,54 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns identifiers to dense ids, handed out in first-seen order starting at zero. A table
+ * belongs to a program rather than to an environment: the program is resolved against it, so its
+ * symbols index the cells of any {@link GlobalEnvironmentAdapter} built over the same table, and
+ * one table may back several environments at once. Ids are never released, so every name interned
+ * through any of those environments stays in the table for as long as it lives. A compiled program
+ * may run in many environments at once, so interning is thread-safe, and looking an id up takes no
+ * lock.
+ */
+public class SymbolTable {
+
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private volatile String[] names = new String[16];
+  private int size = 0;
+
+  public int intern(String name) {
+    final var id = ids.get(name);
+    return id != null ? id : add(name);
+  }
+
+  /** The symbol for a name, or -1 when it has never been interned. */
+  public int find(String name) {
+    final var id = ids.get(name);
+    return id != null ? id : -1;
+  }
+
+  public String name(int symbol) {
+    return names[symbol];
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  // The name is stored before the id is published, so whoever finds the id can read the name.
+  private synchronized int add(String name) {
+    final var id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    if (size == names.length) {
+      names = Arrays.copyOf(names, size * 2);
+    }
+    names[size] = name;
+    ids.put(name, size);
+    return size++;
+  }
+}
@@ -0,0 +1,36 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.ast.statement.While;
+
+/**
+ * A faster way to run some of a program, offered each top-level statement the {@link Interpreter}
+ * runs and each loop at every back-edge. Either may be answered with compiled code to run in the
+ * interpreter's place, or null to carry on interpreting. Compiled code takes a loop over between
+ * iterations, which is safe because everything a loop has computed so far is in the environment.
+ */
+public interface Tier {
+
+  Tier NONE =
+      new Tier() {
+        @Override
+        public Compiled statement(Statement statement) {
+          return null;
+        }
+
+        @Override
+        public Compiled backEdge(While loop) {
+          return null;
+        }
+      };
+
+  /** Runs a statement, or the rest of a loop, in a local scope at a block nesting depth. */
+  @FunctionalInterface
+  interface Compiled {
+    void run(SlotPort slots, int blockDepth);
+  }
+
+  Compiled statement(Statement statement);
+
+  Compiled backEdge(While loop);
+}
@@ -0,0 +1,39 @@
+package net.mcarolan.craftinginterpreters.lox.value;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded queue of values between tasks. Sending to a full channel and receiving from an empty
+ * one block; a channel of capacity 0 hands each value straight from sender to receiver. Channels
+ * are equal only to themselves.
+ */
+public final class ChannelValue implements LoxValue {
+
+  private final BlockingQueue<LoxValue> queue;
+
+  public ChannelValue(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Channel capacity must not be negative");
+    }
+    this.queue = capacity == 0 ? new SynchronousQueue<>() : new LinkedBlockingQueue<>(capacity);
+  }
+
+  /** Sends the value unless the channel stays full for the whole timeout; says whether it did. */
+  public boolean send(LoxValue value, Duration timeout) throws InterruptedException {
+    return queue.offer(value, timeout.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /** The next value, or null if none arrives within the timeout. */
+  public LoxValue receive(Duration timeout) throws InterruptedException {
+    return queue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String stringify() {
+    return "<channel>";
+  }
+}
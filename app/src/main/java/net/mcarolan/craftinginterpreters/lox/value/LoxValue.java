@@ -1,5 +1,6 @@
 package net.mcarolan.craftinginterpreters.lox.value;
 
-public sealed interface LoxValue permits BooleanValue, NullValue, NumberValue, StringValue {
+public sealed interface LoxValue
+    permits BooleanValue, ChannelValue, NullValue, NumberValue, StringValue, TaskValue {
   String stringify();
 }
@@ -1,6 +1,40 @@
 package net.mcarolan.craftinginterpreters.lox.value;
 
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+
+/**
+ * A number. {@link #of} shares one instance for each integral value from -128 to 1023, so small
+ * constants and counters below that bound cost nothing; every other result is a new object. Only
+ * arithmetic compiled by the closure backend passes doubles around unboxed, so a counter that
+ * climbs past 1023 still allocates on every store in the tree walker, the VM and closure slots.
+ */
 public record NumberValue(double value) implements LoxValue {
+  // Bounds of the shared instances; widening them only moves the point where counters allocate.
+  private static final int CACHE_LOW = -128;
+  private static final int CACHE_HIGH = 1023;
+  private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+  private static final NumberValue[] CACHE = new NumberValue[CACHE_HIGH - CACHE_LOW + 1];
+
+  static {
+    for (var i = 0; i < CACHE.length; i++) {
+      CACHE[i] = new NumberValue(i + CACHE_LOW);
+    }
+  }
+
+  public static NumberValue of(double value) {
+    final var integral = (int) value;
+    if (integral == value
+        && integral >= CACHE_LOW
+        && integral <= CACHE_HIGH
+        && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO_BITS) {
+      return CACHE[integral - CACHE_LOW];
+    }
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.NUMBER_VALUES);
+    }
+    return new NumberValue(value);
+  }
+
   @Override
   public String stringify() {
     var string = Double.toString(value);
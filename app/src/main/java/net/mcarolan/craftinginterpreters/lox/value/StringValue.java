@@ -1,8 +1,95 @@
 package net.mcarolan.craftinginterpreters.lox.value;
 
-public record StringValue(String value) implements LoxValue {
+import java.util.ArrayDeque;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+
+/**
+ * A string that concatenates in constant time. Concatenating anything but short strings records a
+ * rope node instead of copying, and the rope is flattened into a single {@link String} the first
+ * time the contents are observed, so building a string piece by piece costs linear time overall.
+ */
+public final class StringValue implements LoxValue {
+  private static final int EAGER_CONCAT_LIMIT = 64;
+
+  private record Concat(StringValue left, StringValue right, int length) {}
+
+  // Either a String or, until the first flatten, a Concat.
+  private volatile Object content;
+
+  public StringValue(String value) {
+    this.content = value;
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.STRING_VALUES);
+    }
+  }
+
+  private StringValue(Concat concat) {
+    this.content = concat;
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.STRING_VALUES);
+    }
+  }
+
+  public StringValue concat(StringValue other) {
+    final var length = length() + other.length();
+    if (length <= EAGER_CONCAT_LIMIT) {
+      return new StringValue(value() + other.value());
+    }
+    return new StringValue(new Concat(this, other, length));
+  }
+
+  public int length() {
+    return switch (content) {
+      case String string -> string.length();
+      case Concat concat -> concat.length();
+      default -> throw new IllegalStateException("Unexpected string content " + content);
+    };
+  }
+
+  public String value() {
+    final var current = content;
+    if (current instanceof String string) {
+      return string;
+    }
+    final var flattened = flatten((Concat) current);
+    content = flattened;
+    return flattened;
+  }
+
+  private static String flatten(Concat root) {
+    final var builder = new StringBuilder(root.length());
+    final var pending = new ArrayDeque<StringValue>();
+    pending.push(root.right());
+    pending.push(root.left());
+    while (!pending.isEmpty()) {
+      final var current = pending.pop().content;
+      if (current instanceof Concat concat) {
+        pending.push(concat.right());
+        pending.push(concat.left());
+      } else {
+        builder.append((String) current);
+      }
+    }
+    return builder.toString();
+  }
+
   @Override
   public String stringify() {
-    return value;
+    return value();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return this == other || other instanceof StringValue string && value().equals(string.value());
+  }
+
+  @Override
+  public int hashCode() {
+    return value().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "StringValue[value=" + value() + "]";
   }
 }
@@ -0,0 +1,65 @@
+package net.mcarolan.craftinginterpreters.lox.value;
+
+import java.time.Duration;
+
+/**
+ * A block running on its own virtual thread. Awaiting it joins the thread and then rethrows
+ * whatever stopped the block, so a failing task fails whoever awaits it. Tasks are equal only to
+ * themselves.
+ */
+public final class TaskValue implements LoxValue {
+
+  private final Thread thread;
+  private volatile Throwable failure;
+  private volatile boolean observed = false;
+
+  private TaskValue(Runnable body) {
+    this.thread =
+        Thread.ofVirtual()
+            .name("lox-task")
+            .unstarted(
+                () -> {
+                  try {
+                    body.run();
+                  } catch (Throwable e) {
+                    failure = e;
+                  }
+                });
+  }
+
+  public static TaskValue start(Runnable body) {
+    final var task = new TaskValue(body);
+    task.thread.start();
+    return task;
+  }
+
+  /** Waits up to the timeout for the task to finish, and says whether it has. */
+  public boolean join(Duration timeout) throws InterruptedException {
+    return thread.join(timeout);
+  }
+
+  public boolean isDone() {
+    return !thread.isAlive();
+  }
+
+  /** Whether the task failed and nobody has rethrown the failure yet. */
+  public boolean hasUnobservedFailure() {
+    return failure != null && !observed;
+  }
+
+  /** Rethrows whatever stopped the task, once it has finished. */
+  public void rethrow() {
+    observed = true;
+    switch (failure) {
+      case null -> {}
+      case RuntimeException e -> throw e;
+      case Error e -> throw e;
+      default -> throw new IllegalStateException("Task failed", failure);
+    }
+  }
+
+  @Override
+  public String stringify() {
+    return "<task>";
+  }
+}
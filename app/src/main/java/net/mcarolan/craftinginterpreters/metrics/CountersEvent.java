@@ -0,0 +1,39 @@
+package net.mcarolan.craftinginterpreters.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+@Name("lox.Counters")
+@Label("Lox Counters")
+@Category("Lox")
+@Description("Running totals of the interpreter's counters since the JVM started")
+@Period("1 s")
+@StackTrace(false)
+class CountersEvent extends Event {
+
+  @Label("Tokens")
+  long tokens;
+
+  @Label("AST Nodes")
+  long astNodes;
+
+  @Label("Number Values")
+  long numberValues;
+
+  @Label("String Values")
+  long stringValues;
+
+  @Label("Environment Lookups")
+  long environmentLookups;
+
+  @Label("Scope Hops")
+  long scopeHops;
+
+  @Label("Max Scope Depth")
+  int maxScopeDepth;
+}
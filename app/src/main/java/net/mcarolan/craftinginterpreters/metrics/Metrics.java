@@ -0,0 +1,184 @@
+package net.mcarolan.craftinginterpreters.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Process-wide phase timings and counters, published to {@link MetricsListener}s and as JDK Flight
+ * Recorder events. Collection is switched on by the {@value #PROPERTY} system property, read once
+ * when this class is initialized. Every instrumented site tests {@link #ENABLED} first, and as a
+ * static final field it is a constant to the JIT, so with metrics off the checks compile away.
+ */
+public final class Metrics {
+
+  public static final String PROPERTY = "lox.metrics";
+
+  public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+  public enum Phase {
+    SCAN,
+    PARSE,
+    OPTIMIZE,
+    RESOLVE,
+    INTERPRET
+  }
+
+  public enum Counter {
+    TOKENS,
+    AST_NODES,
+    NUMBER_VALUES,
+    STRING_VALUES,
+    ENVIRONMENT_LOOKUPS,
+    SCOPE_HOPS
+  }
+
+  public record Snapshot(
+      Map<Phase, Duration> phases, Map<Counter, Long> counters, int maxScopeDepth) {
+
+    public List<String> summary() {
+      final var lines = new ArrayList<String>();
+      lines.add("Phases:");
+      phases.forEach(
+          (phase, elapsed) ->
+              lines.add(String.format("  %-20s %12.2f ms", label(phase), elapsed.toNanos() / 1e6)));
+      lines.add("Counters:");
+      counters.forEach(
+          (counter, count) -> lines.add(String.format("  %-20s %12d", label(counter), count)));
+      lines.add(String.format("  %-20s %12d", "max scope depth", maxScopeDepth));
+      return lines;
+    }
+
+    private static String label(Enum<?> constant) {
+      return constant.name().toLowerCase().replace('_', ' ');
+    }
+  }
+
+  private static final LongAdder[] PHASE_NANOS = adders(Phase.values().length);
+  private static final LongAdder[] COUNTERS = adders(Counter.values().length);
+  private static final AtomicInteger MAX_SCOPE_DEPTH = new AtomicInteger();
+  private static final List<MetricsListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+  static {
+    if (ENABLED) {
+      FlightRecorder.addPeriodicEvent(CountersEvent.class, Metrics::emitCounters);
+    }
+  }
+
+  private Metrics() {}
+
+  private static LongAdder[] adders(int count) {
+    final var adders = new LongAdder[count];
+    for (var i = 0; i < count; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  public static void addListener(MetricsListener listener) {
+    LISTENERS.add(listener);
+  }
+
+  public static void removeListener(MetricsListener listener) {
+    LISTENERS.remove(listener);
+  }
+
+  public static void count(Counter counter) {
+    COUNTERS[counter.ordinal()].increment();
+  }
+
+  public static void count(Counter counter, long amount) {
+    COUNTERS[counter.ordinal()].add(amount);
+  }
+
+  public static void scopeDepth(int depth) {
+    if (depth > MAX_SCOPE_DEPTH.get()) {
+      MAX_SCOPE_DEPTH.accumulateAndGet(depth, Math::max);
+    }
+  }
+
+  /** Records the end of a phase that began at {@code startNanos}, from {@link System#nanoTime}. */
+  public static void phase(Phase phase, long startNanos) {
+    phaseElapsed(phase, System.nanoTime() - startNanos);
+  }
+
+  public static void phaseElapsed(Phase phase, long nanos) {
+    PHASE_NANOS[phase.ordinal()].add(nanos);
+    final var event = new PhaseEvent();
+    if (event.isEnabled()) {
+      event.phase = phase.name();
+      event.elapsed = nanos;
+      event.commit();
+    }
+    final var elapsed = Duration.ofNanos(nanos);
+    for (final var listener : LISTENERS) {
+      listener.phaseCompleted(phase, elapsed);
+    }
+  }
+
+  public static Snapshot snapshot() {
+    final var phases = new EnumMap<Phase, Duration>(Phase.class);
+    for (final var phase : Phase.values()) {
+      phases.put(phase, Duration.ofNanos(PHASE_NANOS[phase.ordinal()].sum()));
+    }
+    final var counters = new EnumMap<Counter, Long>(Counter.class);
+    for (final var counter : Counter.values()) {
+      counters.put(counter, COUNTERS[counter.ordinal()].sum());
+    }
+    return new Snapshot(phases, counters, MAX_SCOPE_DEPTH.get());
+  }
+
+  public static void reset() {
+    for (final var adder : PHASE_NANOS) {
+      adder.reset();
+    }
+    for (final var adder : COUNTERS) {
+      adder.reset();
+    }
+    MAX_SCOPE_DEPTH.set(0);
+  }
+
+  private static void emitCounters() {
+    final var snapshot = snapshot();
+    final var event = new CountersEvent();
+    event.tokens = snapshot.counters().get(Counter.TOKENS);
+    event.astNodes = snapshot.counters().get(Counter.AST_NODES);
+    event.numberValues = snapshot.counters().get(Counter.NUMBER_VALUES);
+    event.stringValues = snapshot.counters().get(Counter.STRING_VALUES);
+    event.environmentLookups = snapshot.counters().get(Counter.ENVIRONMENT_LOOKUPS);
+    event.scopeHops = snapshot.counters().get(Counter.SCOPE_HOPS);
+    event.maxScopeDepth = snapshot.maxScopeDepth();
+    event.commit();
+  }
+
+  /**
+   * Splits one stretch of time between phases that take turns, such as the parse, optimize, resolve
+   * and interpret steps a session repeats for each declaration, and reports each phase's total once
+   * rather than once per turn.
+   */
+  public static final class Timings {
+    private final long[] nanos = new long[Phase.values().length];
+    private long last = System.nanoTime();
+
+    /** Charges the time since the previous lap, or since construction, to {@code phase}. */
+    public void lap(Phase phase) {
+      final var now = System.nanoTime();
+      nanos[phase.ordinal()] += now - last;
+      last = now;
+    }
+
+    public void report() {
+      for (final var phase : Phase.values()) {
+        if (nanos[phase.ordinal()] > 0) {
+          phaseElapsed(phase, nanos[phase.ordinal()]);
+        }
+      }
+    }
+  }
+}
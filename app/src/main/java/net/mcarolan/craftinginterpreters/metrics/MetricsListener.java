@@ -0,0 +1,9 @@
+package net.mcarolan.craftinginterpreters.metrics;
+
+import java.time.Duration;
+
+/** Told each time a compilation or execution phase finishes, on the thread that ran it. */
+public interface MetricsListener {
+
+  void phaseCompleted(Metrics.Phase phase, Duration elapsed);
+}
@@ -0,0 +1,24 @@
+package net.mcarolan.craftinginterpreters.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("lox.Phase")
+@Label("Lox Phase")
+@Category("Lox")
+@Description("Time spent in one phase of scanning, compiling or running a program")
+@StackTrace(false)
+class PhaseEvent extends Event {
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Elapsed")
+  @Timespan(Timespan.NANOSECONDS)
+  long elapsed;
+}
@@ -0,0 +1,218 @@
+package net.mcarolan.craftinginterpreters.optimizer;
+
+import static net.mcarolan.craftinginterpreters.ast.ExpressionTypes.producesNumber;
+import static net.mcarolan.craftinginterpreters.lox.Operators.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.lox.InterpreterException;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/**
+ * Rewrites a program into an equivalent, cheaper one: operators over literals are folded, {@link
+ * Grouping}s are dropped, branches and loops with literal conditions are pruned and arithmetic
+ * identities are simplified. Folding goes through {@link
+ * net.mcarolan.craftinginterpreters.lox.Operators}, and an operation that would fail is left in
+ * place so the error is still raised at run time.
+ */
+public class Optimizer {
+
+  public List<Statement> optimize(List<Statement> statements) {
+    final var optimized = new ArrayList<Statement>(statements.size());
+    for (final var statement : statements) {
+      optimize(statement).ifPresent(optimized::add);
+    }
+    return optimized;
+  }
+
+  private Optional<Statement> optimize(Statement statement) {
+    return switch (statement) {
+      case ExpressionStatement expression -> {
+        final var optimized = optimize(expression.expression());
+        if (optimized instanceof Literal) {
+          yield Optional.empty();
+        }
+        yield Optional.of(new ExpressionStatement(optimized));
+      }
+      case Print print -> Optional.of(new Print(optimize(print.expression())));
+      case Send send ->
+          Optional.of(new Send(send.keyword(), optimize(send.channel()), optimize(send.value())));
+      case Var var -> Optional.of(new Var(var.name(), optimize(var.initialiser())));
+      case GlobalVar var ->
+          Optional.of(new GlobalVar(var.name(), optimize(var.initialiser()), var.symbol()));
+      case LocalVar var ->
+          Optional.of(new LocalVar(var.name(), optimize(var.initialiser()), var.slot()));
+      case Block block -> {
+        final var statements = optimize(block.statementList());
+        yield statements.isEmpty() ? Optional.empty() : Optional.of(new Block(statements));
+      }
+      case ScopedBlock scoped -> {
+        final var statements = optimize(scoped.statementList());
+        yield statements.isEmpty()
+            ? Optional.empty()
+            : Optional.of(new ScopedBlock(statements, scoped.slotCount()));
+      }
+      case If anIf -> optimizeIf(anIf);
+      case While aWhile -> {
+        final var condition = optimize(aWhile.condition());
+        if (condition instanceof Literal literal && !isTruthy(literal.value())) {
+          yield Optional.empty();
+        }
+        yield Optional.of(new While(condition, optimizeBranch(aWhile.body())));
+      }
+    };
+  }
+
+  private Optional<Statement> optimizeIf(If anIf) {
+    final var condition = optimize(anIf.condition());
+    if (condition instanceof Literal literal) {
+      return isTruthy(literal.value())
+          ? optimize(anIf.thenBranch())
+          : anIf.elseBranch().flatMap(this::optimize);
+    }
+
+    final var elseBranch = anIf.elseBranch().flatMap(this::optimize);
+    return Optional.of(new If(condition, optimizeBranch(anIf.thenBranch()), elseBranch));
+  }
+
+  private Statement optimizeBranch(Statement statement) {
+    return optimize(statement).orElseGet(() -> new Block(List.of()));
+  }
+
+  public Expression optimize(Expression expression) {
+    return switch (expression) {
+      case Literal literal -> literal;
+      case Grouping grouping -> optimize(grouping.expression());
+      case Unary unary -> optimizeUnary(unary);
+      case Binary binary -> optimizeBinary(binary);
+      case Logical logical -> optimizeLogical(logical);
+      case Variable variable -> variable;
+      case GlobalVariable global -> global;
+      case LocalVariable local -> local;
+      case Spawn spawn -> optimizeSpawn(spawn);
+      case Assign assign -> new Assign(assign.name(), optimize(assign.value()), assign.line());
+      case GlobalAssign assign ->
+          new GlobalAssign(assign.name(), optimize(assign.value()), assign.symbol(), assign.line());
+      case LocalAssign assign ->
+          new LocalAssign(
+              assign.name(),
+              optimize(assign.value()),
+              assign.depth(),
+              assign.slot(),
+              assign.line());
+    };
+  }
+
+  // The body stays a block, even once emptied, since resolving and running a task need one.
+  private Expression optimizeSpawn(Spawn spawn) {
+    final var body =
+        switch (spawn.body()) {
+          case Block block -> new Block(optimize(block.statementList()));
+          case ScopedBlock scoped ->
+              new ScopedBlock(optimize(scoped.statementList()), scoped.slotCount());
+          default -> spawn.body();
+        };
+    final var captures = spawn.captures().stream().map(this::optimize).toList();
+    return new Spawn(spawn.keyword(), body, captures, spawn.line());
+  }
+
+  private Expression optimizeUnary(Unary unary) {
+    final var right = optimize(unary.right());
+    if (right instanceof Literal literal) {
+      final var line = unary.operator().lineStart();
+      switch (unary.operator().type()) {
+        case MINUS -> {
+          if (literal.value() instanceof NumberValue) {
+            return new Literal(interpretMinus(literal.value(), line), unary.line());
+          }
+        }
+        case BANG -> {
+          return new Literal(BooleanValue.of(!isTruthy(literal.value())), unary.line());
+        }
+        default -> {}
+      }
+    }
+    return new Unary(unary.operator(), right, unary.line());
+  }
+
+  private Expression optimizeBinary(Binary binary) {
+    final var left = optimize(binary.left());
+    final var right = optimize(binary.right());
+
+    if (left instanceof Literal leftLiteral && right instanceof Literal rightLiteral) {
+      final var folded = fold(leftLiteral.value(), binary.operator().type(), rightLiteral.value());
+      if (folded.isPresent()) {
+        return new Literal(folded.get(), binary.line());
+      }
+    }
+
+    final var simplified = simplify(left, binary.operator().type(), right);
+    if (simplified.isPresent()) {
+      return simplified.get();
+    }
+    return new Binary(left, binary.operator(), right, binary.line());
+  }
+
+  private static Optional<LoxValue> fold(LoxValue left, TokenType operatorType, LoxValue right) {
+    try {
+      return Optional.of(
+          switch (operatorType) {
+            case PLUS -> interpretAddition(left, right, 0);
+            case MINUS, STAR, SLASH -> interpretNumberExpression(left, right, operatorType, 0);
+            case GREATER, GREATER_EQUAL, LESS, LESS_EQUAL ->
+                interpretNumberComparison(left, right, operatorType, 0);
+            case EQUAL_EQUAL -> interpretEquality(left, right);
+            case BANG_EQUAL -> interpretEquality(left, right).not();
+            default -> throw new InterpreterException("Not foldable", 0);
+          });
+    } catch (InterpreterException e) {
+      return Optional.empty();
+    }
+  }
+
+  // x + 0 is deliberately not simplified: -0 + 0 is 0, not -0.
+  private static Optional<Expression> simplify(
+      Expression left, TokenType operatorType, Expression right) {
+    return switch (operatorType) {
+      case STAR -> {
+        if (isNumber(right, 1) && producesNumber(left)) {
+          yield Optional.of(left);
+        }
+        if (isNumber(left, 1) && producesNumber(right)) {
+          yield Optional.of(right);
+        }
+        yield Optional.empty();
+      }
+      case MINUS ->
+          isNumber(right, 0) && producesNumber(left) ? Optional.of(left) : Optional.empty();
+      case SLASH ->
+          isNumber(right, 1) && producesNumber(left) ? Optional.of(left) : Optional.empty();
+      default -> Optional.empty();
+    };
+  }
+
+  private static boolean isNumber(Expression expression, double value) {
+    return expression instanceof Literal(NumberValue(final var number), final var ignored)
+        && Double.compare(number, value) == 0;
+  }
+
+  private Expression optimizeLogical(Logical logical) {
+    final var left = optimize(logical.left());
+    final var right = optimize(logical.right());
+
+    if (left instanceof Literal literal) {
+      final var shortCircuits =
+          logical.operator().type() == TokenType.OR
+              ? isTruthy(literal.value())
+              : !isTruthy(literal.value());
+      return shortCircuits ? literal : right;
+    }
+    return new Logical(left, logical.operator(), right, logical.line());
+  }
+}
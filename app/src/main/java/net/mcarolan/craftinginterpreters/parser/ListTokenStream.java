@@ -0,0 +1,29 @@
+package net.mcarolan.craftinginterpreters.parser;
+
+import java.util.List;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+public class ListTokenStream implements TokenStream {
+
+  private final List<Token> tokens;
+  private int current = 0;
+
+  public ListTokenStream(List<Token> tokens) {
+    this.tokens = tokens;
+  }
+
+  @Override
+  public Token peek() {
+    return tokens.get(current);
+  }
+
+  @Override
+  public Token previous() {
+    return tokens.get(current - 1);
+  }
+
+  @Override
+  public void advance() {
+    current++;
+  }
+}
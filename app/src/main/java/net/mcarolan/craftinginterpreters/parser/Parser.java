@@ -5,20 +5,30 @@ import static net.mcarolan.craftinginterpreters.scanner.TokenType.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import net.mcarolan.craftinginterpreters.ast.AstNodes;
 import net.mcarolan.craftinginterpreters.ast.expression.*;
 import net.mcarolan.craftinginterpreters.ast.statement.*;
 import net.mcarolan.craftinginterpreters.lox.ParserException;
 import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
 import net.mcarolan.craftinginterpreters.lox.value.NullValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
 import net.mcarolan.craftinginterpreters.scanner.Token;
+import net.mcarolan.craftinginterpreters.scanner.TokenBuffer;
 import net.mcarolan.craftinginterpreters.scanner.TokenType;
 
 public class Parser {
 
-  private final List<Token> tokens;
-  private int current = 0;
+  private final TokenStream tokens;
 
   public Parser(List<Token> tokens) {
+    this(new ListTokenStream(tokens));
+  }
+
+  public Parser(TokenBuffer tokens) {
+    this(new TokenBufferStream(tokens));
+  }
+
+  public Parser(TokenStream tokens) {
     this.tokens = tokens;
   }
 
@@ -27,14 +37,29 @@ public class Parser {
   }
 
   public List<Statement> parse() {
+    final var start = Metrics.ENABLED ? System.nanoTime() : 0;
     final var statements = new ArrayList<Statement>();
 
-    while (!isAtEnd()) {
-      statements.add(declaration());
+    for (var statement = next(); statement.isPresent(); statement = next()) {
+      statements.add(statement.get());
+    }
+    if (Metrics.ENABLED) {
+      Metrics.phase(Metrics.Phase.PARSE, start);
     }
     return statements;
   }
 
+  public Optional<Statement> next() {
+    if (isAtEnd()) {
+      return Optional.empty();
+    }
+    final var declaration = declaration();
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.AST_NODES, AstNodes.count(declaration));
+    }
+    return Optional.of(declaration);
+  }
+
   private Statement declaration() {
     if (match(VAR)) {
       return varDeclaration();
@@ -44,9 +69,10 @@ public class Parser {
   }
 
   private Statement varDeclaration() {
-    final var name = consume(IDENTIFIER, "Expect variable name");
+    consume(IDENTIFIER, "Expect variable name");
+    final var name = previous();
 
-    Expression initialiser = new Literal(NullValue.VALUE, previous().lineEnd());
+    Expression initialiser = new Literal(NullValue.VALUE, previousLine());
 
     if (match(EQUAL)) {
       initialiser = expression();
@@ -69,6 +95,9 @@ public class Parser {
     if (match(PRINT)) {
       return printStatement();
     }
+    if (match(SEND)) {
+      return sendStatement();
+    }
     if (match(LEFT_BRACE)) {
       return new Block(block());
     }
@@ -76,7 +105,7 @@ public class Parser {
   }
 
   private Statement forStatement() {
-    int line = previous().lineEnd();
+    int line = previousLine();
     consume(LEFT_PAREN, "Expect ( after for");
     Optional<Statement> initializer;
 
@@ -162,6 +191,15 @@ public class Parser {
     return new Print(expression);
   }
 
+  private Statement sendStatement() {
+    final var keyword = previous();
+    final var channel = expression();
+    consume(COMMA, "Expect , after channel");
+    final var value = expression();
+    expectSemicolon();
+    return new Send(keyword, channel, value);
+  }
+
   private void expectSemicolon() {
     consume(SEMICOLON, "Expected ;");
   }
@@ -174,13 +212,13 @@ public class Parser {
     final var expression = or();
 
     if (match(EQUAL)) {
-      final var equals = previous();
+      final var equalsLine = previousLine();
       final var value = assignment();
 
       if (expression instanceof Variable var) {
         return new Assign(var.name(), value, value.line());
       } else {
-        throw new ParserException("Invalid assignment target", equals.lineEnd());
+        throw new ParserException("Invalid assignment target", equalsLine);
       }
     }
 
@@ -261,7 +299,7 @@ public class Parser {
   }
 
   private Expression unary() {
-    if (match(BANG, MINUS)) {
+    if (match(BANG, MINUS, AWAIT, CHANNEL, RECEIVE)) {
       final var operator = previous();
       final var right = unary();
       return new Unary(operator, right, right.line());
@@ -272,23 +310,30 @@ public class Parser {
 
   private Expression primary() {
     if (match(FALSE)) {
-      return new Literal(BooleanValue.FALSE, previous().lineEnd());
+      return new Literal(BooleanValue.FALSE, previousLine());
     }
 
     if (match(TRUE)) {
-      return new Literal(BooleanValue.TRUE, previous().lineEnd());
+      return new Literal(BooleanValue.TRUE, previousLine());
     }
 
     if (match(NIL)) {
-      return new Literal(NullValue.VALUE, previous().lineEnd());
+      return new Literal(NullValue.VALUE, previousLine());
     }
 
     if (match(NUMBER, STRING)) {
-      return new Literal(previous().literal(), previous().lineEnd());
+      return new Literal(tokens.previousLiteral(), previousLine());
     }
 
     if (match(IDENTIFIER)) {
-      return new Variable(previous(), previous().lineEnd());
+      final var name = previous();
+      return new Variable(name, name.lineEnd());
+    }
+
+    if (match(SPAWN)) {
+      final var keyword = previous();
+      consume(LEFT_BRACE, "Expect { after spawn");
+      return new Spawn(keyword, new Block(block()), List.of(), keyword.lineEnd());
     }
 
     if (match(LEFT_PAREN)) {
@@ -300,11 +345,10 @@ public class Parser {
     throw new ParserException("Expect expression.", peek().lineEnd());
   }
 
-  private Token consume(TokenType type, String errorMessage) {
+  private void consume(TokenType type, String errorMessage) {
     if (!match(type)) {
       throw new ParserException(errorMessage, peek().lineEnd());
     }
-    return previous();
   }
 
   private boolean match(TokenType... types) {
@@ -321,26 +365,30 @@ public class Parser {
     if (isAtEnd()) {
       return false;
     }
-    return peek().type() == type;
+    return tokens.peekType() == type;
   }
 
-  private Token advance() {
+  private void advance() {
     if (!isAtEnd()) {
-      current++;
+      tokens.advance();
     }
-    return previous();
   }
 
   private boolean isAtEnd() {
-    return peek().type() == EOF;
+    return tokens.peekType() == EOF;
   }
 
   private Token peek() {
-    return tokens.get(current);
+    return tokens.peek();
   }
 
+  // Builds a Token, so only called for tokens the tree keeps: operators, names and keywords.
   private Token previous() {
-    return tokens.get(current - 1);
+    return tokens.previous();
+  }
+
+  private int previousLine() {
+    return tokens.previousLine();
   }
 
   private static Statement blockOf(Statement... statements) {
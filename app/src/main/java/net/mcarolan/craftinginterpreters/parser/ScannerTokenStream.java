@@ -0,0 +1,40 @@
+package net.mcarolan.craftinginterpreters.parser;
+
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+/** Pulls tokens from a {@link Scanner} one at a time as the parser asks for them. */
+public class ScannerTokenStream implements TokenStream {
+
+  private final Scanner scanner;
+  private Token previous;
+  private Token current;
+
+  public ScannerTokenStream(Scanner scanner) {
+    this.scanner = scanner;
+  }
+
+  @Override
+  public Token peek() {
+    if (current == null) {
+      current = scan();
+    }
+    return current;
+  }
+
+  /** Scans the next token; called once per token, when the parser first looks at it. */
+  protected Token scan() {
+    return scanner.nextToken();
+  }
+
+  @Override
+  public Token previous() {
+    return previous;
+  }
+
+  @Override
+  public void advance() {
+    previous = peek();
+    current = null;
+  }
+}
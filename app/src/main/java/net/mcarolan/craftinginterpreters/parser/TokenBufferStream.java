@@ -0,0 +1,47 @@
+package net.mcarolan.craftinginterpreters.parser;
+
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+import net.mcarolan.craftinginterpreters.scanner.TokenBuffer;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/** Walks a {@link TokenBuffer}, building a {@link Token} only when the parser keeps one. */
+public class TokenBufferStream implements TokenStream {
+
+  private final TokenBuffer tokens;
+  private int current = 0;
+
+  public TokenBufferStream(TokenBuffer tokens) {
+    this.tokens = tokens;
+  }
+
+  @Override
+  public Token peek() {
+    return tokens.token(current);
+  }
+
+  @Override
+  public Token previous() {
+    return tokens.token(current - 1);
+  }
+
+  @Override
+  public void advance() {
+    current++;
+  }
+
+  @Override
+  public TokenType peekType() {
+    return tokens.type(current);
+  }
+
+  @Override
+  public int previousLine() {
+    return tokens.lineEnd(current - 1);
+  }
+
+  @Override
+  public LoxValue previousLiteral() {
+    return tokens.literal(current - 1);
+  }
+}
@@ -0,0 +1,31 @@
+package net.mcarolan.craftinginterpreters.parser;
+
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+/**
+ * The tokens a {@link Parser} consumes. The parser never looks further back than the previous token
+ * or further ahead than the next one, so a stream only needs to hold those two. The defaults go
+ * through {@link Token}s; streams that can answer without building one override them.
+ */
+public interface TokenStream {
+
+  Token peek();
+
+  Token previous();
+
+  void advance();
+
+  default TokenType peekType() {
+    return peek().type();
+  }
+
+  default int previousLine() {
+    return previous().lineEnd();
+  }
+
+  default LoxValue previousLiteral() {
+    return previous().literal();
+  }
+}
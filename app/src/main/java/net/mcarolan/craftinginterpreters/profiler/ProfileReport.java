@@ -0,0 +1,127 @@
+package net.mcarolan.craftinginterpreters.profiler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.profiler.Profiler.Frame;
+
+/**
+ * Turns a finished profile into folded stacks and a top-N table. Both modes are reported the same
+ * way: a frame's self time is its measured self time, or its samples times the sampling interval,
+ * and total time is self time summed over the frame and everything below it. Per-line totals only
+ * count the outermost frame on a line, so nested statements sharing a line are not counted twice.
+ */
+public final class ProfileReport {
+
+  private record Row(String name, long hits, long selfNanos, long totalNanos) {}
+
+  private final Profiler profiler;
+  private final List<Frame> frames;
+  private final Map<Frame, Long> totals = new IdentityHashMap<>();
+
+  public ProfileReport(Profiler profiler) {
+    this.profiler = profiler;
+    this.frames = profiler.frames();
+    for (final var frame : frames.reversed()) {
+      var total = selfNanos(frame);
+      for (final var child : frame.children()) {
+        total += totals.get(child);
+      }
+      totals.put(frame, total);
+    }
+  }
+
+  /**
+   * One line per call path in the format flame graph tools read: frames separated by semicolons,
+   * then the path's weight, in microseconds for an exact profile and in samples otherwise.
+   */
+  public List<String> folded() {
+    final var lines = new ArrayList<String>();
+    for (final var frame : frames) {
+      final var weight =
+          profiler.mode() == Profiler.Mode.EXACT ? frame.selfNanos() / 1000 : frame.samples();
+      if (weight > 0) {
+        final var path =
+            Profiler.path(frame).stream()
+                .map(at -> Profiler.name(at.statement()))
+                .collect(Collectors.joining(";"));
+        lines.add(path + " " + weight);
+      }
+    }
+    lines.sort(Comparator.naturalOrder());
+    return lines;
+  }
+
+  public List<String> top(int count) {
+    final var lines = new ArrayList<String>();
+    lines.add(
+        String.format(
+            "Profile (%s), %.1f ms",
+            profiler.mode().name().toLowerCase(), profiler.elapsed().toNanos() / 1e6));
+    lines.add("");
+    lines.add("Lines by self time:");
+    table(lines, byLine(), count);
+    lines.add("");
+    lines.add("Statements by self time:");
+    table(lines, byStatement(), count);
+    return lines;
+  }
+
+  private List<Row> byLine() {
+    final var rows = new HashMap<Integer, Row>();
+    for (final var frame : frames) {
+      final var line = Profiler.line(frame.statement());
+      final var outermost =
+          Profiler.path(frame).stream()
+              .noneMatch(at -> at != frame && Profiler.line(at.statement()) == line);
+      final var total = outermost ? totals.get(frame) : 0;
+      rows.merge(
+          line, new Row("line " + line, frame.hits(), selfNanos(frame), total), ProfileReport::add);
+    }
+    return new ArrayList<>(rows.values());
+  }
+
+  private List<Row> byStatement() {
+    final var rows = new IdentityHashMap<Statement, Row>();
+    for (final var frame : frames) {
+      final var name = Profiler.name(frame.statement());
+      rows.merge(
+          frame.statement(),
+          new Row(name, frame.hits(), selfNanos(frame), totals.get(frame)),
+          ProfileReport::add);
+    }
+    return new ArrayList<>(rows.values());
+  }
+
+  private static Row add(Row left, Row right) {
+    return new Row(
+        left.name(),
+        left.hits() + right.hits(),
+        left.selfNanos() + right.selfNanos(),
+        left.totalNanos() + right.totalNanos());
+  }
+
+  private static void table(List<String> lines, List<Row> rows, int count) {
+    lines.add(String.format("  %-20s %12s %10s %10s", "", "hits", "self ms", "total ms"));
+    rows.stream()
+        .sorted(Comparator.comparingLong(Row::selfNanos).reversed().thenComparing(Row::name))
+        .limit(count)
+        .forEach(
+            row ->
+                lines.add(
+                    String.format(
+                        "  %-20s %12d %10.2f %10.2f",
+                        row.name(), row.hits(), row.selfNanos() / 1e6, row.totalNanos() / 1e6)));
+  }
+
+  private long selfNanos(Frame frame) {
+    return profiler.mode() == Profiler.Mode.EXACT
+        ? frame.selfNanos()
+        : frame.samples() * profiler.samplingInterval().toNanos();
+  }
+}
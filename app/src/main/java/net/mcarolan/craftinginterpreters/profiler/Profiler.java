@@ -0,0 +1,222 @@
+package net.mcarolan.craftinginterpreters.profiler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.lox.StatementObserver;
+
+/**
+ * Builds a tree of the statements a program executes, one node per distinct path from the top
+ * level, and counts how often each was entered. In {@link Mode#EXACT} mode every statement is also
+ * timed on entry and exit, giving exact self and total times at the cost of two clock reads per
+ * statement. In {@link Mode#SAMPLING} mode a background thread instead wakes every sampling
+ * interval and charges a sample to whichever statement is executing, so the program only pays for
+ * moving a pointer up and down the tree.
+ */
+public class Profiler implements StatementObserver, AutoCloseable {
+
+  public enum Mode {
+    EXACT,
+    SAMPLING
+  }
+
+  public static final Duration DEFAULT_SAMPLING_INTERVAL = Duration.ofMillis(1);
+
+  /** One path through the program; the root stands for the top level. */
+  public static final class Frame {
+    private final Statement statement;
+    private final Frame parent;
+    private Map<Statement, Frame> children;
+    private long hits;
+    private long totalNanos;
+    private long selfNanos;
+    private long samples;
+    private long enteredAt;
+    private long childNanos;
+
+    private Frame(Statement statement, Frame parent) {
+      this.statement = statement;
+      this.parent = parent;
+    }
+
+    private Frame child(Statement statement) {
+      if (children == null) {
+        children = new IdentityHashMap<>();
+      }
+      return children.computeIfAbsent(statement, ignored -> new Frame(statement, this));
+    }
+
+    public Statement statement() {
+      return statement;
+    }
+
+    public List<Frame> children() {
+      return children == null ? List.of() : List.copyOf(children.values());
+    }
+
+    public long hits() {
+      return hits;
+    }
+
+    public long totalNanos() {
+      return totalNanos;
+    }
+
+    public long selfNanos() {
+      return selfNanos;
+    }
+
+    public long samples() {
+      return samples;
+    }
+  }
+
+  private final Mode mode;
+  private final long intervalNanos;
+  private final Frame root = new Frame(null, null);
+  private volatile Frame current = root;
+  private volatile boolean running;
+  private Thread sampler;
+  private long startedAt;
+  private long elapsedNanos;
+
+  public Profiler(Mode mode) {
+    this(mode, DEFAULT_SAMPLING_INTERVAL);
+  }
+
+  public Profiler(Mode mode, Duration samplingInterval) {
+    this.mode = mode;
+    this.intervalNanos = samplingInterval.toNanos();
+  }
+
+  public Profiler start() {
+    startedAt = System.nanoTime();
+    running = true;
+    if (mode == Mode.SAMPLING) {
+      sampler = Thread.ofPlatform().name("lox-profiler").daemon().start(this::sample);
+    }
+    return this;
+  }
+
+  /** Stops sampling; the profile may only be read once this returns. */
+  @Override
+  public void close() {
+    running = false;
+    if (sampler != null) {
+      try {
+        sampler.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    elapsedNanos = System.nanoTime() - startedAt;
+  }
+
+  public Mode mode() {
+    return mode;
+  }
+
+  public Duration elapsed() {
+    return Duration.ofNanos(elapsedNanos);
+  }
+
+  public Duration samplingInterval() {
+    return Duration.ofNanos(intervalNanos);
+  }
+
+  public Frame root() {
+    return root;
+  }
+
+  @Override
+  public void enter(Statement statement) {
+    final var frame = current.child(statement);
+    frame.hits++;
+    if (mode == Mode.EXACT) {
+      frame.childNanos = 0;
+      frame.enteredAt = System.nanoTime();
+    }
+    current = frame;
+  }
+
+  @Override
+  public void exit(Statement statement) {
+    final var frame = current;
+    if (frame.statement != statement) {
+      throw new IllegalStateException("Statements must exit in the order they were entered");
+    }
+    if (mode == Mode.EXACT) {
+      final var elapsed = System.nanoTime() - frame.enteredAt;
+      frame.totalNanos += elapsed;
+      frame.selfNanos += elapsed - frame.childNanos;
+      frame.parent.childNanos += elapsed;
+    }
+    current = frame.parent;
+  }
+
+  // The sampler is the only writer of samples, and close() joins it before anything reads them.
+  private void sample() {
+    while (running) {
+      LockSupport.parkNanos(intervalNanos);
+      current.samples++;
+    }
+  }
+
+  /** Every frame below the root, parents before their children. */
+  public List<Frame> frames() {
+    final var frames = new ArrayList<Frame>();
+    final var pending = new ArrayList<>(root.children());
+    while (!pending.isEmpty()) {
+      final var frame = pending.remove(pending.size() - 1);
+      frames.add(frame);
+      pending.addAll(frame.children());
+    }
+    return frames;
+  }
+
+  public static List<Frame> path(Frame frame) {
+    final var path = new ArrayList<Frame>();
+    for (var at = frame; at.parent != null; at = at.parent) {
+      path.add(0, at);
+    }
+    return path;
+  }
+
+  /** The line a statement starts on, or 0 for an empty block. */
+  public static int line(Statement statement) {
+    return switch (statement) {
+      case ExpressionStatement expression -> expression.expression().line();
+      case Print print -> print.expression().line();
+      case Send send -> send.keyword().lineStart();
+      case Var var -> var.name().lineStart();
+      case GlobalVar var -> var.name().lineStart();
+      case LocalVar var -> var.name().lineStart();
+      case If anIf -> anIf.condition().line();
+      case While loop -> loop.condition().line();
+      case Block block -> block.statementList().isEmpty() ? 0 : line(block.statementList().get(0));
+      case ScopedBlock block ->
+          block.statementList().isEmpty() ? 0 : line(block.statementList().get(0));
+    };
+  }
+
+  public static String name(Statement statement) {
+    final var kind =
+        switch (statement) {
+          case Block ignored -> "block";
+          case ScopedBlock ignored -> "block";
+          case ExpressionStatement ignored -> "expression";
+          case If ignored -> "if";
+          case Print ignored -> "print";
+          case Send ignored -> "send";
+          case Var ignored -> "var";
+          case GlobalVar ignored -> "var";
+          case LocalVar ignored -> "var";
+          case While ignored -> "while";
+        };
+    return kind + ":" + line(statement);
+  }
+}
@@ -0,0 +1,220 @@
+package net.mcarolan.craftinginterpreters.resolver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.lox.ResolverException;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.scanner.Token;
+
+/**
+ * Rewrites parsed statements so that every reference to a block-local variable carries its (depth,
+ * slot) address. References that do not resolve to a local become global nodes carrying their
+ * name's symbol in the given {@link SymbolTable}, which must be the one of the environment the
+ * program will run in, so globals are found by index rather than by name. Blocks become {@link
+ * ScopedBlock}s, and only blocks that declare something are given slots, so depth counts allocating
+ * scopes only.
+ *
+ * <p>A spawned block resolves against scopes of its own. Its outermost scope holds a copy of each
+ * variable from outside, local or global, that the block reads, taken when the task is spawned, so
+ * a task never shares a variable with another. Assigning a captured variable is an error, as the
+ * assignment could only ever change the copy.
+ */
+public class Resolver {
+
+  private final SymbolTable symbols;
+  private Deque<Scope> scopes = new ArrayDeque<>();
+  private Task task;
+
+  // The spawned block being resolved: the scopes around the spawn, the scope of copies at the
+  // bottom of the block's own scopes, and the expressions, in slot order, that fill it.
+  private record Task(
+      Deque<Scope> outerScopes, Task outer, Scope captured, List<Expression> captures) {}
+
+  public Resolver(SymbolTable symbols) {
+    this.symbols = symbols;
+  }
+
+  public List<Statement> resolve(List<Statement> statements) {
+    return statements.stream().map(this::resolveStatement).toList();
+  }
+
+  private Statement resolveStatement(Statement statement) {
+    return switch (statement) {
+      case ExpressionStatement expression ->
+          new ExpressionStatement(resolveExpression(expression.expression()));
+      case Print print -> new Print(resolveExpression(print.expression()));
+      case Var var -> resolveVar(var);
+      case Block block -> resolveBlock(block);
+      case If anIf ->
+          new If(
+              resolveExpression(anIf.condition()),
+              resolveStatement(anIf.thenBranch()),
+              anIf.elseBranch().map(this::resolveStatement));
+      case While aWhile ->
+          new While(resolveExpression(aWhile.condition()), resolveStatement(aWhile.body()));
+      case Send send ->
+          new Send(
+              send.keyword(), resolveExpression(send.channel()), resolveExpression(send.value()));
+      case GlobalVar global -> global;
+      case LocalVar local -> local;
+      case ScopedBlock scoped -> scoped;
+    };
+  }
+
+  private Statement resolveVar(Var var) {
+    final var initialiser = resolveExpression(var.initialiser());
+    final var scope = scopes.peek();
+
+    if (scope == null) {
+      return new GlobalVar(var.name(), initialiser, symbol(var.name()));
+    }
+    return new LocalVar(var.name(), initialiser, scope.declare(var.name()));
+  }
+
+  private Statement resolveBlock(Block block) {
+    final var declares = block.statementList().stream().anyMatch(Var.class::isInstance);
+
+    if (!declares) {
+      return new ScopedBlock(resolve(block.statementList()), 0);
+    }
+
+    final var scope = new Scope();
+    scopes.push(scope);
+    try {
+      final var statements = resolve(block.statementList());
+      return new ScopedBlock(statements, scope.slotCount());
+    } finally {
+      scopes.pop();
+    }
+  }
+
+  private Expression resolveExpression(Expression expression) {
+    return switch (expression) {
+      case Binary binary ->
+          new Binary(
+              resolveExpression(binary.left()),
+              binary.operator(),
+              resolveExpression(binary.right()),
+              binary.line());
+      case Grouping grouping ->
+          new Grouping(resolveExpression(grouping.expression()), grouping.line());
+      case Literal literal -> literal;
+      case Unary unary ->
+          new Unary(unary.operator(), resolveExpression(unary.right()), unary.line());
+      case Logical logical ->
+          new Logical(
+              resolveExpression(logical.left()),
+              logical.operator(),
+              resolveExpression(logical.right()),
+              logical.line());
+      case Variable variable -> resolveVariable(variable);
+      case Assign assign -> resolveAssign(assign);
+      case Spawn spawn -> resolveSpawn(spawn);
+      case GlobalVariable global -> global;
+      case GlobalAssign assign -> assign;
+      case LocalVariable local -> local;
+      case LocalAssign assign -> assign;
+    };
+  }
+
+  private Expression resolveSpawn(Spawn spawn) {
+    if (!(spawn.body() instanceof Block body)) {
+      return spawn;
+    }
+
+    final var spawned = new Task(scopes, task, new Scope(), new ArrayList<>());
+    scopes = new ArrayDeque<>();
+    scopes.push(spawned.captured());
+    task = spawned;
+    try {
+      final var resolved = resolveBlock(body);
+      return new Spawn(spawn.keyword(), resolved, List.copyOf(spawned.captures()), spawn.line());
+    } finally {
+      scopes = spawned.outerScopes();
+      task = spawned.outer();
+    }
+  }
+
+  private Expression resolveVariable(Variable variable) {
+    var depth = 0;
+    for (final var scope : scopes) {
+      final var slot = scope.lookup(variable.name());
+      if (slot != null) {
+        return new LocalVariable(variable.name(), depth, slot, variable.line());
+      }
+      depth++;
+    }
+    if (task == null) {
+      return new GlobalVariable(variable.name(), symbol(variable.name()), variable.line());
+    }
+    return capture(variable);
+  }
+
+  private Expression capture(Variable variable) {
+    final var spawned = task;
+    final var inner = scopes;
+    final Expression outside;
+    scopes = spawned.outerScopes();
+    task = spawned.outer();
+    try {
+      outside = resolveVariable(variable);
+    } finally {
+      scopes = inner;
+      task = spawned;
+    }
+
+    spawned.captures().add(outside);
+    final var slot = spawned.captured().declare(variable.name());
+    return new LocalVariable(variable.name(), scopes.size() - 1, slot, variable.line());
+  }
+
+  private Expression resolveAssign(Assign assign) {
+    final var value = resolveExpression(assign.value());
+
+    var depth = 0;
+    for (final var scope : scopes) {
+      if (task != null && scope == task.captured()) {
+        break;
+      }
+      final var slot = scope.lookup(assign.name());
+      if (slot != null) {
+        return new LocalAssign(assign.name(), value, depth, slot, assign.line());
+      }
+      depth++;
+    }
+    if (task != null) {
+      throw new ResolverException(
+          String.format(
+              "Variable %s is captured by a spawned task and cannot be assigned",
+              assign.name().lexeme()),
+          assign.line());
+    }
+    return new GlobalAssign(assign.name(), value, symbol(assign.name()), assign.line());
+  }
+
+  private int symbol(Token name) {
+    return symbols.intern(name.lexeme());
+  }
+
+  private static final class Scope {
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    int declare(Token name) {
+      return slots.computeIfAbsent(name.lexeme(), ignored -> slots.size());
+    }
+
+    Integer lookup(Token name) {
+      return slots.get(name.lexeme());
+    }
+
+    int slotCount() {
+      return slots.size();
+    }
+  }
+}
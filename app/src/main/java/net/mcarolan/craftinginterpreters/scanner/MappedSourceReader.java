@@ -0,0 +1,122 @@
+package net.mcarolan.craftinginterpreters.scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads UTF-8 source straight out of a byte buffer, normally a memory-mapped file, so the source is
+ * never copied or decoded as a whole. ASCII bytes are returned as they are, multi-byte sequences
+ * are decoded one character at a time as the scanner reaches them, and lexemes are decoded only
+ * when the scanner asks for their text. A character outside the BMP is reported as its high
+ * surrogate, which is how a String scan would first see it, while the lexeme text keeps the full
+ * character. Malformed bytes read as U+FFFD.
+ */
+public class MappedSourceReader implements SourceReader {
+
+  private static final char REPLACEMENT = '\uFFFD';
+
+  private final ByteBuffer bytes;
+  private final int limit;
+  private int current = 0;
+  private int start = 0;
+
+  public MappedSourceReader(ByteBuffer bytes) {
+    this.bytes = bytes;
+    this.limit = bytes.limit();
+  }
+
+  public static MappedSourceReader open(Path path) throws IOException {
+    try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new MappedSourceReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  @Override
+  public char peek(int offset) {
+    var position = current;
+    for (var i = 0; i < offset && position < limit; i++) {
+      position += sequenceLength(position);
+    }
+    return decodeAt(position);
+  }
+
+  @Override
+  public void advance() {
+    current += sequenceLength(current);
+  }
+
+  @Override
+  public boolean isAtEnd() {
+    return current >= limit;
+  }
+
+  @Override
+  public void mark() {
+    start = current;
+  }
+
+  @Override
+  public String sinceMark() {
+    return text(start, current);
+  }
+
+  @Override
+  public int position() {
+    return current;
+  }
+
+  @Override
+  public String text(int start, int end) {
+    final var text = new byte[end - start];
+    bytes.get(start, text);
+    return new String(text, StandardCharsets.UTF_8);
+  }
+
+  private char decodeAt(int position) {
+    if (position >= limit) {
+      return '\0';
+    }
+    final var lead = bytes.get(position);
+    if (lead >= 0) {
+      return (char) lead;
+    }
+    return switch (sequenceLength(position)) {
+      case 2 -> (char) (((lead & 0x1F) << 6) | continuation(position + 1));
+      case 3 ->
+          (char)
+              (((lead & 0x0F) << 12)
+                  | (continuation(position + 1) << 6)
+                  | continuation(position + 2));
+      case 4 ->
+          Character.highSurrogate(
+              ((lead & 0x07) << 18)
+                  | (continuation(position + 1) << 12)
+                  | (continuation(position + 2) << 6)
+                  | continuation(position + 3));
+      default -> REPLACEMENT;
+    };
+  }
+
+  private int sequenceLength(int position) {
+    final var lead = bytes.get(position);
+    if (lead >= 0) {
+      return 1;
+    }
+    final var length =
+        (lead & 0xE0) == 0xC0 ? 2 : (lead & 0xF0) == 0xE0 ? 3 : (lead & 0xF8) == 0xF0 ? 4 : 1;
+    for (var i = 1; i < length; i++) {
+      if (position + i >= limit || (bytes.get(position + i) & 0xC0) != 0x80) {
+        return 1;
+      }
+    }
+    return length;
+  }
+
+  private int continuation(int position) {
+    return bytes.get(position) & 0x3F;
+  }
+}
@@ -0,0 +1,159 @@
+package net.mcarolan.craftinginterpreters.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import net.mcarolan.craftinginterpreters.lox.ScannerException;
+import net.mcarolan.craftinginterpreters.lox.value.StringValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+
+/**
+ * Scans a large source on a fork-join pool, giving the same tokens, and the same first error, as
+ * {@link Scanner#scanTokens()}. The source is cut into chunks that each start a line. Comments end
+ * at the end of their line, so the only token that can run from one chunk into the next is a
+ * string, and each chunk is scanned on the guess that it does not start inside one. The chunks'
+ * first lines are found beforehand by counting newlines in parallel.
+ *
+ * <p>The chunks are then joined in order. A chunk that turns out to start inside a string, because
+ * the one before ends in an unterminated string, is rescanned from that string's closing quote.
+ * Strings spanning lines are rare, and such a rescan covers a single chunk.
+ */
+public class ParallelScanner {
+
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+  private final String source;
+  private final ForkJoinPool pool;
+  private final int chunkSize;
+
+  public ParallelScanner(String source) {
+    this(source, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+  }
+
+  public ParallelScanner(String source, ForkJoinPool pool, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunks must hold at least one character");
+    }
+    this.source = source;
+    this.pool = pool;
+    this.chunkSize = chunkSize;
+  }
+
+  // A chunk scanned on the guess that it starts outside a string. If it ends inside one, open is
+  // where that string starts; if it fails to scan, failure is the error, with no tokens after it.
+  private record Chunk(List<Token> tokens, ScannerException failure, int open, int openLine) {}
+
+  public List<Token> scanTokens() {
+    final var start = Metrics.ENABLED ? System.nanoTime() : 0;
+    final var bounds = chunkBounds();
+    final var lines = firstLines(bounds);
+    final var scans = new ArrayList<ForkJoinTask<Chunk>>(bounds.length - 1);
+    for (var i = 0; i + 1 < bounds.length; i++) {
+      final var from = bounds[i];
+      final var to = bounds[i + 1];
+      final var line = lines[i];
+      scans.add(pool.submit(() -> scan(from, to, line)));
+    }
+
+    final var tokens = new ArrayList<Token>();
+    var open = -1;
+    var openLine = 0;
+    for (var i = 0; i < scans.size(); i++) {
+      var chunk = scans.get(i).join();
+      if (open >= 0) {
+        final var close = source.indexOf('"', bounds[i]);
+        if (close < 0 || close >= bounds[i + 1]) {
+          continue;
+        }
+        final var closeLine = lines[i] + newlines(bounds[i], close);
+        final var lexeme = source.substring(open, close + 1);
+        final var value = new StringValue(lexeme.substring(1, lexeme.length() - 1));
+        tokens.add(new Token(TokenType.STRING, lexeme, value, openLine, closeLine));
+        if (Metrics.ENABLED) {
+          Metrics.count(Metrics.Counter.TOKENS);
+        }
+        chunk = scan(close + 1, bounds[i + 1], closeLine);
+      }
+      tokens.addAll(chunk.tokens());
+      if (chunk.failure() != null) {
+        throw chunk.failure();
+      }
+      open = chunk.open();
+      openLine = chunk.openLine();
+    }
+
+    final var lastLine = lines[lines.length - 1];
+    if (open >= 0) {
+      throw new ScannerException("Unterminated string", lastLine);
+    }
+    tokens.add(new Token(TokenType.EOF, "", null, lastLine, lastLine));
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.TOKENS);
+      Metrics.phase(Metrics.Phase.SCAN, start);
+    }
+    return tokens;
+  }
+
+  // Chunk i runs from bounds[i] to bounds[i + 1]; every chunk but the last ends after a newline.
+  private int[] chunkBounds() {
+    final var bounds = new ArrayList<Integer>();
+    bounds.add(0);
+    var position = 0;
+    while (position + chunkSize < source.length()) {
+      final var newline = source.indexOf('\n', position + chunkSize - 1);
+      if (newline < 0 || newline + 1 == source.length()) {
+        break;
+      }
+      position = newline + 1;
+      bounds.add(position);
+    }
+    bounds.add(source.length());
+    return bounds.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  // The line each chunk starts on, followed by the line the source ends on.
+  private int[] firstLines(int[] bounds) {
+    final var counts = new ArrayList<ForkJoinTask<Integer>>(bounds.length - 1);
+    for (var i = 0; i + 1 < bounds.length; i++) {
+      final var from = bounds[i];
+      final var to = bounds[i + 1];
+      counts.add(pool.submit(() -> newlines(from, to)));
+    }
+    final var lines = new int[bounds.length];
+    lines[0] = 1;
+    for (var i = 0; i < counts.size(); i++) {
+      lines[i + 1] = lines[i] + counts.get(i).join();
+    }
+    return lines;
+  }
+
+  private int newlines(int from, int to) {
+    var count = 0;
+    for (var i = from; i < to; i++) {
+      if (source.charAt(i) == '\n') {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private Chunk scan(int from, int to, int line) {
+    final var scanner = new Scanner(new StringSourceReader(source, from, to), line);
+    final var tokens = new ArrayList<Token>();
+    try {
+      for (var token = scanner.nextToken();
+          token.type() != TokenType.EOF;
+          token = scanner.nextToken()) {
+        tokens.add(token);
+      }
+      return new Chunk(tokens, null, -1, 0);
+    } catch (ScannerException e) {
+      final var unterminated = source.charAt(scanner.tokenStart()) == '"';
+      if (unterminated && to < source.length()) {
+        return new Chunk(tokens, null, scanner.tokenStart(), scanner.tokenLine());
+      }
+      return new Chunk(tokens, e, -1, 0);
+    }
+  }
+}
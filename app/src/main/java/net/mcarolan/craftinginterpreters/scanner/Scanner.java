@@ -1,175 +1,325 @@
 package net.mcarolan.craftinginterpreters.scanner;
 
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import net.mcarolan.craftinginterpreters.lox.ScannerException;
 import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
 import net.mcarolan.craftinginterpreters.lox.value.StringValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
 
 public class Scanner {
 
-  private static final Map<String, TokenType> KEYWORDS =
-      Map.ofEntries(
-          Map.entry("and", TokenType.AND),
-          Map.entry("class", TokenType.CLASS),
-          Map.entry("else", TokenType.ELSE),
-          Map.entry("false", TokenType.FALSE),
-          Map.entry("for", TokenType.FOR),
-          Map.entry("fun", TokenType.FUN),
-          Map.entry("if", TokenType.IF),
-          Map.entry("nil", TokenType.NIL),
-          Map.entry("or", TokenType.OR),
-          Map.entry("print", TokenType.PRINT),
-          Map.entry("return", TokenType.RETURN),
-          Map.entry("super", TokenType.SUPER),
-          Map.entry("this", TokenType.THIS),
-          Map.entry("true", TokenType.TRUE),
-          Map.entry("var", TokenType.VAR),
-          Map.entry("while", TokenType.WHILE));
-
-  private int current = 0;
-  private int line = 1;
-  private final String source;
-  private final List<Token> tokens;
+  private static final int LONGEST_KEYWORD = 7;
+  private static final int EXACT_DIGITS = 15;
+  private static final double[] POWERS_OF_TEN = new double[EXACT_DIGITS + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (var i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private int line;
+  private int tokenLine;
+  private int tokenStart = 0;
+  private double number;
+  private final char[] word = new char[LONGEST_KEYWORD];
+  private final SourceReader source;
 
   public Scanner(String source) {
+    this(new StringSourceReader(source));
+  }
+
+  public Scanner(Reader reader) {
+    this(new StreamingSourceReader(reader));
+  }
+
+  public Scanner(SourceReader source) {
+    this(source, 1);
+  }
+
+  /** Scans from wherever the source is positioned, which must be between tokens, on line. */
+  public Scanner(SourceReader source, int line) {
     this.source = source;
-    this.tokens = new ArrayList<>();
+    this.line = line;
+    this.tokenLine = line;
   }
 
   public List<Token> scanTokens() {
-    while (current < source.length()) {
-      final var ch = charAt(current);
+    final var start = Metrics.ENABLED ? System.nanoTime() : 0;
+    final var tokens = new ArrayList<Token>();
+    Token token;
+    do {
+      token = nextToken();
+      tokens.add(token);
+    } while (token.type() != TokenType.EOF);
+    if (Metrics.ENABLED) {
+      Metrics.phase(Metrics.Phase.SCAN, start);
+    }
+    return tokens;
+  }
+
+  public TokenBuffer scanBuffer() {
+    final var start = Metrics.ENABLED ? System.nanoTime() : 0;
+    final var buffer = new TokenBuffer(source);
+    TokenType type;
+    do {
+      type = scan();
+      buffer.add(type, tokenStart, source.position(), tokenLine, line, number);
+    } while (type != TokenType.EOF);
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.TOKENS, buffer.size());
+      Metrics.phase(Metrics.Phase.SCAN, start);
+    }
+    return buffer;
+  }
+
+  public Token nextToken() {
+    final var type = scan();
+    if (Metrics.ENABLED) {
+      Metrics.count(Metrics.Counter.TOKENS);
+    }
+    return switch (type) {
+      case EOF -> new Token(type, "", null, line, line);
+      case NUMBER -> new Token(type, source.sinceMark(), NumberValue.of(number), line, line);
+      case STRING -> {
+        final var lexeme = source.sinceMark();
+        final var value = new StringValue(lexeme.substring(1, lexeme.length() - 1));
+        yield new Token(type, lexeme, value, tokenLine, line);
+      }
+      case IDENTIFIER -> new Token(type, source.sinceMark(), null, line, line);
+      default -> {
+        final var lexeme = fixedLexeme(type);
+        yield new Token(type, lexeme != null ? lexeme : source.sinceMark(), null, line, line);
+      }
+    };
+  }
+
+  /** Where the token last returned by {@link #nextToken()}, or the one that failed, starts. */
+  public int tokenStart() {
+    return tokenStart;
+  }
+
+  /** The line the token last returned by {@link #nextToken()}, or the one that failed, is on. */
+  public int tokenLine() {
+    return tokenLine;
+  }
+
+  /** Where the token last returned by {@link #nextToken()} ends in the source. */
+  public int tokenEnd() {
+    return source.position();
+  }
+
+  // Scans the next token, leaving the source marked at its start and positioned after its end.
+  private TokenType scan() {
+    while (!source.isAtEnd()) {
+      source.mark();
+      tokenStart = source.position();
+      tokenLine = line;
+      final var ch = source.peek(0);
 
       if (ch == '\n') {
         line++;
-        current++;
+        source.advance();
         continue;
       }
 
-      if (Character.isWhitespace(ch)) {
-        current++;
+      if (isWhitespace(ch)) {
+        source.advance();
         continue;
       }
 
-      if (ch == '/' && charAt(current + 1) == '/') {
+      if (ch == '/' && source.peek(1) == '/') {
         skipLineComment();
         continue;
       }
 
-      final var token = scanToken();
-      tokens.add(token);
+      return scanToken();
     }
 
-    tokens.add(new Token(TokenType.EOF, "", null, line, line));
-    return tokens;
+    source.mark();
+    tokenStart = source.position();
+    tokenLine = line;
+    return TokenType.EOF;
   }
 
   private void skipLineComment() {
-    while (current < source.length() && source.charAt(current) != '\n') {
-      current++;
+    while (!source.isAtEnd() && source.peek(0) != '\n') {
+      source.advance();
     }
   }
 
-  private Token string() {
-    final var start = current;
-    final var lineStart = line;
-
-    current++;
-    while (current < source.length() && source.charAt(current) != '"') {
-      if (source.charAt(current) == '\n') {
+  private TokenType string() {
+    source.advance();
+    while (!source.isAtEnd() && source.peek(0) != '"') {
+      if (source.peek(0) == '\n') {
         line++;
       }
-      current++;
+      source.advance();
     }
 
-    if (current >= source.length()) {
+    if (source.isAtEnd()) {
       throw new ScannerException("Unterminated string", line);
     }
 
-    current++;
-    final var value = source.substring(start + 1, current - 1);
-    final var lexeme = source.substring(start, current);
-    return new Token(TokenType.STRING, lexeme, new StringValue(value), lineStart, line);
+    source.advance();
+    return TokenType.STRING;
   }
 
-  private Token number() {
-    final var start = current;
-    while (Character.isDigit(charAt(current))) {
-      current++;
+  // Up to 15 ASCII digits fit a long exactly and a single division by an exact power of ten then
+  // rounds correctly, so only longer literals need the general parser.
+  private TokenType number() {
+    var mantissa = 0L;
+    var digits = 0;
+    var fractionDigits = 0;
+    var exact = true;
+
+    char c;
+    while (isDigit(c = source.peek(0))) {
+      exact &= c < 128;
+      mantissa = mantissa * 10 + (c - '0');
+      digits++;
+      source.advance();
     }
 
-    if (charAt(current) == '.' && Character.isDigit(charAt(current + 1))) {
-      do {
-        current++;
-      } while (Character.isDigit(charAt(current)));
+    if (source.peek(0) == '.' && isDigit(source.peek(1))) {
+      source.advance();
+      while (isDigit(c = source.peek(0))) {
+        exact &= c < 128;
+        mantissa = mantissa * 10 + (c - '0');
+        digits++;
+        fractionDigits++;
+        source.advance();
+      }
     }
 
-    final var lexeme = source.substring(start, current);
-    final var value = Double.parseDouble(lexeme);
-    return new Token(TokenType.NUMBER, lexeme, new NumberValue(value), line, line);
+    number =
+        exact && digits <= EXACT_DIGITS
+            ? mantissa / POWERS_OF_TEN[fractionDigits]
+            : Double.parseDouble(source.sinceMark());
+    return TokenType.NUMBER;
   }
 
-  private Token identifierOrKeyword() {
-    final var start = current;
+  private TokenType identifierOrKeyword() {
+    var length = 0;
+    var ascii = true;
 
     do {
-      ++current;
-    } while (Character.isLetterOrDigit(charAt(current)));
+      final var c = source.peek(0);
+      ascii &= c < 128;
+      if (length < LONGEST_KEYWORD) {
+        word[length] = (char) (c | 0x20);
+      }
+      length++;
+      source.advance();
+    } while (isLetterOrDigit(source.peek(0)));
 
-    final var lexeme = source.substring(start, current);
-    final var tokenType = KEYWORDS.getOrDefault(lexeme.toLowerCase(), TokenType.IDENTIFIER);
-    return new Token(tokenType, lexeme, null, line, line);
+    return ascii && length <= LONGEST_KEYWORD ? keyword(length) : TokenType.IDENTIFIER;
   }
 
-  private Token operatorToken(String lexeme, TokenType type) {
-    current += lexeme.length();
-    return new Token(type, lexeme, null, line, line);
+  // Keywords are matched case-insensitively on the lowered ASCII characters in word.
+  private TokenType keyword(int length) {
+    return switch (word[0]) {
+      case 'a' ->
+          length == 3
+              ? keyword(length, "and", TokenType.AND)
+              : keyword(length, "await", TokenType.AWAIT);
+      case 'c' ->
+          length == 5
+              ? keyword(length, "class", TokenType.CLASS)
+              : keyword(length, "channel", TokenType.CHANNEL);
+      case 'e' -> keyword(length, "else", TokenType.ELSE);
+      case 'f' ->
+          switch (length) {
+            case 3 ->
+                word[1] == 'o'
+                    ? keyword(length, "for", TokenType.FOR)
+                    : keyword(length, "fun", TokenType.FUN);
+            default -> keyword(length, "false", TokenType.FALSE);
+          };
+      case 'i' -> keyword(length, "if", TokenType.IF);
+      case 'n' -> keyword(length, "nil", TokenType.NIL);
+      case 'o' -> keyword(length, "or", TokenType.OR);
+      case 'p' -> keyword(length, "print", TokenType.PRINT);
+      case 'r' ->
+          length == 6
+              ? keyword(length, "return", TokenType.RETURN)
+              : keyword(length, "receive", TokenType.RECEIVE);
+      case 's' ->
+          switch (word[1]) {
+            case 'e' -> keyword(length, "send", TokenType.SEND);
+            case 'p' -> keyword(length, "spawn", TokenType.SPAWN);
+            default -> keyword(length, "super", TokenType.SUPER);
+          };
+      case 't' ->
+          word[1] == 'h'
+              ? keyword(length, "this", TokenType.THIS)
+              : keyword(length, "true", TokenType.TRUE);
+      case 'v' -> keyword(length, "var", TokenType.VAR);
+      case 'w' -> keyword(length, "while", TokenType.WHILE);
+      default -> TokenType.IDENTIFIER;
+    };
   }
 
-  private Token scanToken() {
-    final var c = charAt(current);
+  private TokenType keyword(int length, String keyword, TokenType type) {
+    if (length != keyword.length()) {
+      return TokenType.IDENTIFIER;
+    }
+    for (var i = 1; i < length; i++) {
+      if (word[i] != keyword.charAt(i)) {
+        return TokenType.IDENTIFIER;
+      }
+    }
+    return type;
+  }
+
+  private TokenType operator(TokenType type, int length) {
+    for (var i = 0; i < length; i++) {
+      source.advance();
+    }
+    return type;
+  }
+
+  private TokenType scanToken() {
+    final var c = source.peek(0);
 
     return switch (c) {
-      case '(' -> operatorToken(String.valueOf(c), TokenType.LEFT_PAREN);
-      case ')' -> operatorToken(String.valueOf(c), TokenType.RIGHT_PAREN);
-      case '{' -> operatorToken(String.valueOf(c), TokenType.LEFT_BRACE);
-      case '}' -> operatorToken(String.valueOf(c), TokenType.RIGHT_BRACE);
-      case ',' -> operatorToken(String.valueOf(c), TokenType.COMMA);
-      case '.' -> operatorToken(String.valueOf(c), TokenType.DOT);
-      case '-' -> operatorToken(String.valueOf(c), TokenType.MINUS);
-      case '+' -> operatorToken(String.valueOf(c), TokenType.PLUS);
-      case ';' -> operatorToken(String.valueOf(c), TokenType.SEMICOLON);
-      case '*' -> operatorToken(String.valueOf(c), TokenType.STAR);
-      case '/' -> operatorToken(String.valueOf(c), TokenType.SLASH);
+      case '(' -> operator(TokenType.LEFT_PAREN, 1);
+      case ')' -> operator(TokenType.RIGHT_PAREN, 1);
+      case '{' -> operator(TokenType.LEFT_BRACE, 1);
+      case '}' -> operator(TokenType.RIGHT_BRACE, 1);
+      case ',' -> operator(TokenType.COMMA, 1);
+      case '.' -> operator(TokenType.DOT, 1);
+      case '-' -> operator(TokenType.MINUS, 1);
+      case '+' -> operator(TokenType.PLUS, 1);
+      case ';' -> operator(TokenType.SEMICOLON, 1);
+      case '*' -> operator(TokenType.STAR, 1);
+      case '/' -> operator(TokenType.SLASH, 1);
 
       case '!' ->
-          (charAt(current + 1) == '=')
-              ? operatorToken("!=", TokenType.BANG_EQUAL)
-              : operatorToken(String.valueOf(c), TokenType.BANG);
+          (source.peek(1) == '=') ? operator(TokenType.BANG_EQUAL, 2) : operator(TokenType.BANG, 1);
 
       case '=' ->
-          (charAt(current + 1) == '=')
-              ? operatorToken("==", TokenType.EQUAL_EQUAL)
-              : operatorToken(String.valueOf(c), TokenType.EQUAL);
+          (source.peek(1) == '=')
+              ? operator(TokenType.EQUAL_EQUAL, 2)
+              : operator(TokenType.EQUAL, 1);
 
       case '<' ->
-          (charAt(current + 1) == '=')
-              ? operatorToken("<=", TokenType.LESS_EQUAL)
-              : operatorToken(String.valueOf(c), TokenType.LESS);
+          (source.peek(1) == '=') ? operator(TokenType.LESS_EQUAL, 2) : operator(TokenType.LESS, 1);
 
       case '>' ->
-          (charAt(current + 1) == '=')
-              ? operatorToken(">=", TokenType.GREATER_EQUAL)
-              : operatorToken(String.valueOf(c), TokenType.GREATER);
+          (source.peek(1) == '=')
+              ? operator(TokenType.GREATER_EQUAL, 2)
+              : operator(TokenType.GREATER, 1);
 
       case '"' -> string();
 
       default -> {
-        if (Character.isDigit(c)) {
+        if (isDigit(c)) {
           yield number();
-        } else if (Character.isLetter(c)) {
+        } else if (isLetter(c)) {
           yield identifierOrKeyword();
         } else {
           throw new ScannerException(String.format("%s (%d) is not supported", c, (int) c), line);
@@ -178,7 +328,51 @@ public class Scanner {
     };
   }
 
-  private char charAt(int index) {
-    return index < source.length() ? source.charAt(index) : '\0';
+  // The lexeme every token of this type has, or null if it depends on the source.
+  static String fixedLexeme(TokenType type) {
+    return switch (type) {
+      case LEFT_PAREN -> "(";
+      case RIGHT_PAREN -> ")";
+      case LEFT_BRACE -> "{";
+      case RIGHT_BRACE -> "}";
+      case COMMA -> ",";
+      case DOT -> ".";
+      case MINUS -> "-";
+      case PLUS -> "+";
+      case SEMICOLON -> ";";
+      case SLASH -> "/";
+      case STAR -> "*";
+      case BANG -> "!";
+      case BANG_EQUAL -> "!=";
+      case EQUAL -> "=";
+      case EQUAL_EQUAL -> "==";
+      case GREATER -> ">";
+      case GREATER_EQUAL -> ">=";
+      case LESS -> "<";
+      case LESS_EQUAL -> "<=";
+      case EOF -> "";
+      default -> null;
+    };
+  }
+
+  // ASCII fast paths; everything else falls back to the full Unicode classification.
+
+  private static boolean isWhitespace(char c) {
+    if (c >= 128) {
+      return Character.isWhitespace(c);
+    }
+    return c == ' ' || (c >= '\t' && c <= '\r') || (c >= 0x1C && c <= 0x1F);
+  }
+
+  private static boolean isDigit(char c) {
+    return c < 128 ? c >= '0' && c <= '9' : Character.isDigit(c);
+  }
+
+  private static boolean isLetter(char c) {
+    return c < 128 ? (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') : Character.isLetter(c);
+  }
+
+  private static boolean isLetterOrDigit(char c) {
+    return c < 128 ? isLetter(c) || isDigit(c) : Character.isLetterOrDigit(c);
   }
 }
@@ -0,0 +1,25 @@
+package net.mcarolan.craftinginterpreters.scanner;
+
+/**
+ * The characters a {@link Scanner} reads from. Only the current lexeme, from the last {@link
+ * #mark()} onwards, has to stay available, so implementations are free to discard what came before
+ * it.
+ */
+public interface SourceReader {
+
+  /** The character {@code offset} places ahead of the current one, or {@code '\0'} past the end. */
+  char peek(int offset);
+
+  void advance();
+
+  boolean isAtEnd();
+
+  void mark();
+
+  String sinceMark();
+
+  int position();
+
+  /** The source between two positions, for readers that keep all of it. */
+  String text(int start, int end);
+}
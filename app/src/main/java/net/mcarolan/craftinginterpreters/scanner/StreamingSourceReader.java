@@ -0,0 +1,104 @@
+package net.mcarolan.craftinginterpreters.scanner;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Reads source incrementally from a {@link Reader}. The buffer only holds the current lexeme plus
+ * lookahead, and grows only when a single lexeme does not fit, so memory does not depend on the
+ * length of the source.
+ */
+public class StreamingSourceReader implements SourceReader {
+
+  private static final int INITIAL_CAPACITY = 8192;
+
+  private final Reader reader;
+  private char[] buffer = new char[INITIAL_CAPACITY];
+  private int start = 0;
+  private int current = 0;
+  private int limit = 0;
+  private boolean exhausted = false;
+  private int discarded = 0;
+
+  public StreamingSourceReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  @Override
+  public char peek(int offset) {
+    final var index = current + offset;
+    if (index >= limit && !fill(index - current + 1)) {
+      return '\0';
+    }
+    return buffer[current + offset];
+  }
+
+  @Override
+  public void advance() {
+    current++;
+  }
+
+  @Override
+  public boolean isAtEnd() {
+    return current >= limit && !fill(1);
+  }
+
+  @Override
+  public void mark() {
+    start = current;
+  }
+
+  @Override
+  public String sinceMark() {
+    return new String(buffer, start, current - start);
+  }
+
+  @Override
+  public int position() {
+    return discarded + current;
+  }
+
+  @Override
+  public String text(int start, int end) {
+    if (start < discarded) {
+      throw new UnsupportedOperationException("Streamed source before the current lexeme is gone");
+    }
+    return new String(buffer, start - discarded, end - start);
+  }
+
+  private boolean fill(int needed) {
+    while (limit - current < needed) {
+      if (exhausted) {
+        return false;
+      }
+      if (limit == buffer.length) {
+        makeRoom();
+      }
+      try {
+        final var read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+          exhausted = true;
+        } else {
+          limit += read;
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return true;
+  }
+
+  private void makeRoom() {
+    if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, limit - start);
+      limit -= start;
+      current -= start;
+      discarded += start;
+      start = 0;
+    } else {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package net.mcarolan.craftinginterpreters.scanner;
+
+public class StringSourceReader implements SourceReader {
+
+  private final String source;
+  private final int end;
+  private int current;
+  private int start;
+
+  public StringSourceReader(String source) {
+    this(source, 0);
+  }
+
+  public StringSourceReader(String source, int start) {
+    this(source, start, source.length());
+  }
+
+  /** Reads {@code source} from {@code start}, treating {@code end} as the end of the source. */
+  public StringSourceReader(String source, int start, int end) {
+    this.source = source;
+    this.end = end;
+    this.current = start;
+    this.start = start;
+  }
+
+  @Override
+  public char peek(int offset) {
+    final var index = current + offset;
+    return index < end ? source.charAt(index) : '\0';
+  }
+
+  @Override
+  public void advance() {
+    current++;
+  }
+
+  @Override
+  public boolean isAtEnd() {
+    return current >= end;
+  }
+
+  @Override
+  public void mark() {
+    start = current;
+  }
+
+  @Override
+  public String sinceMark() {
+    return source.substring(start, current);
+  }
+
+  @Override
+  public int position() {
+    return current;
+  }
+
+  @Override
+  public String text(int start, int end) {
+    return source.substring(start, end);
+  }
+}
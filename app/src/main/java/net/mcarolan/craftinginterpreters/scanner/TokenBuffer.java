@@ -0,0 +1,87 @@
+package net.mcarolan.craftinginterpreters.scanner;
+
+import java.util.Arrays;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.lox.value.StringValue;
+
+/**
+ * Scanned tokens stored as parallel primitive arrays rather than {@link Token} objects. A token is
+ * its type, its start and end position in the source, its lines and, for numbers, its value;
+ * lexemes and literals are only built from the source when someone asks for them.
+ */
+public final class TokenBuffer {
+
+  private static final TokenType[] TYPES = TokenType.values();
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final SourceReader source;
+  private byte[] types = new byte[INITIAL_CAPACITY];
+  private int[] starts = new int[INITIAL_CAPACITY];
+  private int[] ends = new int[INITIAL_CAPACITY];
+  private int[] lineStarts = new int[INITIAL_CAPACITY];
+  private int[] lineEnds = new int[INITIAL_CAPACITY];
+  private double[] numbers = new double[INITIAL_CAPACITY];
+  private int size = 0;
+
+  TokenBuffer(SourceReader source) {
+    this.source = source;
+  }
+
+  void add(TokenType type, int start, int end, int lineStart, int lineEnd, double number) {
+    if (size == types.length) {
+      final var capacity = size * 2;
+      types = Arrays.copyOf(types, capacity);
+      starts = Arrays.copyOf(starts, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      lineStarts = Arrays.copyOf(lineStarts, capacity);
+      lineEnds = Arrays.copyOf(lineEnds, capacity);
+      numbers = Arrays.copyOf(numbers, capacity);
+    }
+    types[size] = (byte) type.ordinal();
+    starts[size] = start;
+    ends[size] = end;
+    lineStarts[size] = lineStart;
+    lineEnds[size] = lineEnd;
+    numbers[size] = number;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public TokenType type(int index) {
+    return TYPES[types[index]];
+  }
+
+  public int lineStart(int index) {
+    return lineStarts[index];
+  }
+
+  public int lineEnd(int index) {
+    return lineEnds[index];
+  }
+
+  public double number(int index) {
+    return numbers[index];
+  }
+
+  public String lexeme(int index) {
+    final var lexeme = Scanner.fixedLexeme(type(index));
+    return lexeme != null ? lexeme : source.text(starts[index], ends[index]);
+  }
+
+  public LoxValue literal(int index) {
+    return switch (type(index)) {
+      case NUMBER -> NumberValue.of(numbers[index]);
+      case STRING -> new StringValue(source.text(starts[index] + 1, ends[index] - 1));
+      default -> null;
+    };
+  }
+
+  public Token token(int index) {
+    final var type = type(index);
+    return new Token(type, lexeme(index), literal(index), lineStarts[index], lineEnds[index]);
+  }
+}
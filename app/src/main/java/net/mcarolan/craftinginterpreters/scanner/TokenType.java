@@ -43,5 +43,11 @@ public enum TokenType {
   VAR,
   WHILE,
 
+  AWAIT,
+  CHANNEL,
+  RECEIVE,
+  SEND,
+  SPAWN,
+
   EOF
 }
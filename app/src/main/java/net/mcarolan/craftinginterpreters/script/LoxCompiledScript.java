@@ -0,0 +1,148 @@
+package net.mcarolan.craftinginterpreters.script;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.LoxException;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.ChannelValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NullValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.lox.value.StringValue;
+import net.mcarolan.craftinginterpreters.lox.value.TaskValue;
+
+/**
+ * A resolved program that can be evaluated any number of times, concurrently if need be. The
+ * program itself is never modified; every evaluation gets its own globals over the program's symbol
+ * table and its own backend, with globals seeded from the context's bindings and written back to
+ * its engine scope afterwards, and its own output port over the context's writer.
+ *
+ * <p>Only bindings the program refers to are seeded, as its symbol table is shared by every
+ * evaluation and kept by the {@link ProgramCache}, so interning every name a host passed would grow
+ * it without bound. Only globals the program defined or assigned are written back.
+ */
+public class LoxCompiledScript extends CompiledScript {
+
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private final LoxScriptEngine engine;
+  private final ProgramCache.Program program;
+
+  LoxCompiledScript(LoxScriptEngine engine, ProgramCache.Program program) {
+    this.engine = engine;
+    this.program = program;
+  }
+
+  @Override
+  public Object eval(ScriptContext context) throws ScriptException {
+    final var globals = new GlobalEnvironmentAdapter(program.symbols());
+    final var imported = new HashMap<String, LoxValue>();
+    importBindings(context.getBindings(ScriptContext.GLOBAL_SCOPE), globals, imported);
+    importBindings(context.getBindings(ScriptContext.ENGINE_SCOPE), globals, imported);
+
+    final var writer = context.getWriter();
+    final IOPort io =
+        string -> {
+          try {
+            writer.write(string);
+            writer.write(LINE_SEPARATOR);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        };
+
+    try {
+      final var backend = engine.backendType().create(globals, io);
+      backend.interpret(program.statements());
+      backend.awaitTasks();
+    } catch (LoxException e) {
+      throw LoxScriptEngine.scriptException(e, context);
+    } catch (UncheckedIOException e) {
+      throw new ScriptException(e.getCause());
+    } finally {
+      exportBindings(globals, imported, context.getBindings(ScriptContext.ENGINE_SCOPE));
+      flush(writer);
+    }
+    return null;
+  }
+
+  @Override
+  public ScriptEngine getEngine() {
+    return engine;
+  }
+
+  // The resolver has interned every global the program refers to, so a binding whose name is not
+  // in the table is one the program can never read.
+  private static void importBindings(
+      Bindings bindings, GlobalEnvironmentAdapter globals, Map<String, LoxValue> imported) {
+    if (bindings == null) {
+      return;
+    }
+    for (final var binding : bindings.entrySet()) {
+      final var symbol = globals.symbols().find(binding.getKey());
+      final var value = toLox(binding.getValue());
+      if (symbol >= 0 && value != null) {
+        globals.defineGlobal(symbol, binding.getKey(), value);
+        imported.put(binding.getKey(), value);
+      }
+    }
+  }
+
+  // A global still holding the value it was seeded with was neither defined nor assigned by the
+  // program, so writing it back would only copy it between scopes or change its Java type.
+  private static void exportBindings(
+      GlobalEnvironmentAdapter globals, Map<String, LoxValue> imported, Bindings bindings) {
+    if (bindings == null) {
+      return;
+    }
+    globals
+        .values()
+        .forEach(
+            (name, value) -> {
+              if (imported.get(name) != value) {
+                bindings.put(name, toJava(value));
+              }
+            });
+  }
+
+  // Values Lox has no counterpart for are left out of the script's globals.
+  private static LoxValue toLox(Object value) {
+    return switch (value) {
+      case null -> NullValue.VALUE;
+      case LoxValue loxValue -> loxValue;
+      case Boolean bool -> BooleanValue.of(bool);
+      case Number number -> NumberValue.of(number.doubleValue());
+      case CharSequence chars -> new StringValue(chars.toString());
+      default -> null;
+    };
+  }
+
+  private static Object toJava(LoxValue value) {
+    return switch (value) {
+      case NullValue nil -> null;
+      case BooleanValue bool -> bool.value();
+      case NumberValue number -> number.value();
+      case StringValue string -> string.value();
+      case ChannelValue channel -> channel;
+      case TaskValue task -> task;
+    };
+  }
+
+  private static void flush(Writer writer) throws ScriptException {
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new ScriptException(e);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package net.mcarolan.craftinginterpreters.script;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.lox.LoxException;
+
+public class LoxScriptEngine extends AbstractScriptEngine implements Compilable {
+
+  private final LoxScriptEngineFactory factory;
+  private final BackendType backendType;
+  private final ProgramCache cache;
+
+  LoxScriptEngine(LoxScriptEngineFactory factory, BackendType backendType, ProgramCache cache) {
+    this.factory = factory;
+    this.backendType = backendType;
+    this.cache = cache;
+  }
+
+  @Override
+  public Object eval(String script, ScriptContext context) throws ScriptException {
+    return compile(script, context).eval(context);
+  }
+
+  @Override
+  public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+    return compile(read(reader), context).eval(context);
+  }
+
+  @Override
+  public CompiledScript compile(String script) throws ScriptException {
+    return compile(script, context);
+  }
+
+  @Override
+  public CompiledScript compile(Reader script) throws ScriptException {
+    return compile(read(script), context);
+  }
+
+  @Override
+  public Bindings createBindings() {
+    return new SimpleBindings();
+  }
+
+  @Override
+  public ScriptEngineFactory getFactory() {
+    return factory;
+  }
+
+  BackendType backendType() {
+    return backendType;
+  }
+
+  private CompiledScript compile(String script, ScriptContext context) throws ScriptException {
+    try {
+      return new LoxCompiledScript(this, cache.compile(script));
+    } catch (LoxException e) {
+      throw scriptException(e, context);
+    }
+  }
+
+  static ScriptException scriptException(Exception cause, ScriptContext context) {
+    final var fileName = context.getAttribute(ScriptEngine.FILENAME);
+    final var exception =
+        new ScriptException(cause.getMessage(), fileName == null ? null : fileName.toString(), -1);
+    exception.initCause(cause);
+    return exception;
+  }
+
+  private static String read(Reader reader) throws ScriptException {
+    final var source = new StringWriter();
+    try {
+      reader.transferTo(source);
+    } catch (IOException e) {
+      throw new ScriptException(e);
+    }
+    return source.toString();
+  }
+}
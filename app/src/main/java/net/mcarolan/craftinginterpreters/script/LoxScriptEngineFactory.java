@@ -0,0 +1,97 @@
+package net.mcarolan.craftinginterpreters.script;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import net.mcarolan.craftinginterpreters.BackendType;
+
+/**
+ * Creates Lox engines for {@code javax.script}. Engines from one factory share its program cache,
+ * so a script compiled through any of them is not scanned or parsed again by the others.
+ */
+public class LoxScriptEngineFactory implements ScriptEngineFactory {
+
+  private static final String VERSION = "1.0";
+
+  private final BackendType backendType;
+  private final ProgramCache cache;
+
+  public LoxScriptEngineFactory() {
+    this(BackendType.CLOSURE, new ProgramCache());
+  }
+
+  public LoxScriptEngineFactory(BackendType backendType, ProgramCache cache) {
+    this.backendType = backendType;
+    this.cache = cache;
+  }
+
+  @Override
+  public String getEngineName() {
+    return "jlox";
+  }
+
+  @Override
+  public String getEngineVersion() {
+    return VERSION;
+  }
+
+  @Override
+  public List<String> getExtensions() {
+    return List.of("lox");
+  }
+
+  @Override
+  public List<String> getMimeTypes() {
+    return List.of("application/x-lox");
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("lox", "Lox", "jlox");
+  }
+
+  @Override
+  public String getLanguageName() {
+    return "Lox";
+  }
+
+  @Override
+  public String getLanguageVersion() {
+    return VERSION;
+  }
+
+  @Override
+  public Object getParameter(String key) {
+    return switch (key) {
+      case ScriptEngine.ENGINE -> getEngineName();
+      case ScriptEngine.ENGINE_VERSION -> getEngineVersion();
+      case ScriptEngine.LANGUAGE -> getLanguageName();
+      case ScriptEngine.LANGUAGE_VERSION -> getLanguageVersion();
+      case ScriptEngine.NAME -> getNames().get(0);
+      case "THREADING" -> "MULTITHREADED";
+      default -> null;
+    };
+  }
+
+  @Override
+  public String getMethodCallSyntax(String obj, String m, String... args) {
+    return String.format("%s.%s(%s)", obj, m, String.join(", ", args));
+  }
+
+  @Override
+  public String getOutputStatement(String toDisplay) {
+    return "print \"" + toDisplay + "\";";
+  }
+
+  @Override
+  public String getProgram(String... statements) {
+    return Arrays.stream(statements).collect(Collectors.joining(System.lineSeparator()));
+  }
+
+  @Override
+  public ScriptEngine getScriptEngine() {
+    return new LoxScriptEngine(this, backendType, cache);
+  }
+}
@@ -0,0 +1,87 @@
+package net.mcarolan.craftinginterpreters.script;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.optimizer.Optimizer;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+
+/**
+ * Compiled programs keyed by the SHA-256 of their source, evicting the least recently used once
+ * full. Compilation runs outside the lock, so two threads compiling the same new source may both do
+ * the work; the programs are equal and either one is kept. Each program is resolved against a
+ * symbol table of its own, which every environment that runs it is built over.
+ */
+public class ProgramCache {
+
+  public static final int DEFAULT_CAPACITY = 256;
+
+  /** A resolved program and the symbol table its globals were resolved against. */
+  public record Program(List<Statement> statements, SymbolTable symbols) {}
+
+  private final Map<String, Program> programs;
+
+  public ProgramCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ProgramCache(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1");
+    }
+    this.programs =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Program> eldest) {
+            return size() > capacity;
+          }
+        };
+  }
+
+  public Program compile(String source) {
+    final var key = hash(source);
+    synchronized (programs) {
+      final var cached = programs.get(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    final var program = compileUncached(source);
+    synchronized (programs) {
+      programs.put(key, program);
+    }
+    return program;
+  }
+
+  public int size() {
+    synchronized (programs) {
+      return programs.size();
+    }
+  }
+
+  // The resolver rebuilds every list it returns as an unmodifiable one, so the program can be
+  // shared between threads as it is.
+  static Program compileUncached(String source) {
+    final var statements = new Parser(new Scanner(source).scanBuffer()).parse();
+    final var symbols = new SymbolTable();
+    return new Program(
+        new Resolver(symbols).resolve(new Optimizer().optimize(statements)), symbols);
+  }
+
+  private static String hash(String source) {
+    try {
+      final var digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
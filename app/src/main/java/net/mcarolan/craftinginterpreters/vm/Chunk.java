@@ -0,0 +1,54 @@
+package net.mcarolan.craftinginterpreters.vm;
+
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+
+/**
+ * Compiled code together with its constant pool, global name pool and line table. The line table
+ * holds the source line of every word of code, so the operators that need a line for their error
+ * message, such as string concatenation, can look it up without searching.
+ */
+public final class Chunk {
+
+  private final int[] code;
+  private final LoxValue[] constants;
+  private final String[] names;
+  private final int[] lines;
+  private final int maxStackDepth;
+
+  Chunk(int[] code, LoxValue[] constants, String[] names, int[] lines, int maxStackDepth) {
+    this.code = code;
+    this.constants = constants;
+    this.names = names;
+    this.lines = lines;
+    this.maxStackDepth = maxStackDepth;
+  }
+
+  int[] code() {
+    return code;
+  }
+
+  LoxValue[] constants() {
+    return constants;
+  }
+
+  String[] names() {
+    return names;
+  }
+
+  int[] lines() {
+    return lines;
+  }
+
+  int maxStackDepth() {
+    return maxStackDepth;
+  }
+
+  /** The number of words of code. */
+  public int size() {
+    return code.length;
+  }
+
+  public int lineAt(int offset) {
+    return lines[offset];
+  }
+}
@@ -0,0 +1,349 @@
+package net.mcarolan.craftinginterpreters.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.lox.CompilerException;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NullValue;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+
+/**
+ * Lowers a syntax tree into a {@link Chunk}. The tree is resolved first, so block-local variables
+ * are addressed by stack slot: each declaring block reserves its slots on entry and pops them on
+ * exit, and a (depth, slot) address becomes the base of that scope plus the slot. Conditions of
+ * {@code if} and {@code while} that compare two numbers compile to a single compare-and-jump, and
+ * assignments whose value is discarded compile to a store that pops it.
+ */
+public class Compiler {
+
+  private static final String CONCURRENT =
+      "Tasks and channels are only supported by the tree-walking backends";
+
+  private int[] code = new int[256];
+  private int[] codeLines = new int[256];
+  private int codeSize = 0;
+  private final List<LoxValue> constants = new ArrayList<>();
+  private final Map<LoxValue, Integer> constantIndices = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+  private final Map<String, Integer> nameIndices = new HashMap<>();
+  private final List<Integer> scopeBases = new ArrayList<>();
+  private int localCount = 0;
+  private int blockDepth = 0;
+  private int stackDepth = 0;
+  private int maxStackDepth = 0;
+  private int currentLine = 1;
+
+  // Chunks bind globals by name, so the symbols the resolver hands out are never read.
+  public Chunk compile(List<Statement> statements) {
+    new Resolver(new SymbolTable()).resolve(statements).forEach(this::compileStatement);
+    emit(OpCode.NIL, 1);
+    emit(OpCode.RETURN, -1);
+    return build();
+  }
+
+  public Chunk compileExpression(Expression expression) {
+    final var resolved =
+        new Resolver(new SymbolTable())
+            .resolve(List.of(new ExpressionStatement(expression)))
+            .get(0);
+    compile(((ExpressionStatement) resolved).expression());
+    emit(OpCode.RETURN, -1);
+    return build();
+  }
+
+  private Chunk build() {
+    return new Chunk(
+        Arrays.copyOf(code, codeSize),
+        constants.toArray(LoxValue[]::new),
+        names.toArray(String[]::new),
+        Arrays.copyOf(codeLines, codeSize),
+        maxStackDepth);
+  }
+
+  private void compileStatement(Statement statement) {
+    switch (statement) {
+      case ExpressionStatement expression -> compileDiscarded(expression.expression());
+      case Print print -> {
+        compile(print.expression());
+        emit(OpCode.PRINT, -1);
+      }
+      case Var var -> {
+        compile(var.initialiser());
+        emitWithOperand(OpCode.DEFINE_GLOBAL, nameIndex(var.name().lexeme()), -1);
+      }
+      case GlobalVar var -> {
+        compile(var.initialiser());
+        emitWithOperand(OpCode.DEFINE_GLOBAL, nameIndex(var.name().lexeme()), -1);
+      }
+      case LocalVar var -> {
+        compile(var.initialiser());
+        emitWithOperand(OpCode.STORE_LOCAL, localIndex(0, var.slot()), -1);
+      }
+      case ScopedBlock scoped -> compileScopedBlock(scoped);
+      case Block ignored ->
+          throw new IllegalStateException("Blocks must be resolved before compilation");
+      case If anIf -> {
+        final var elseJump = compileCondition(anIf.condition());
+        compileStatement(anIf.thenBranch());
+        if (anIf.elseBranch().isPresent()) {
+          final var endJump = emitJump(OpCode.JUMP, 0);
+          patchJump(elseJump);
+          compileStatement(anIf.elseBranch().get());
+          patchJump(endJump);
+        } else {
+          patchJump(elseJump);
+        }
+      }
+      case While aWhile -> {
+        final var loopStart = codeSize;
+        final var exitJump = compileCondition(aWhile.condition());
+        compileStatement(aWhile.body());
+        emit(OpCode.LOOP, 0);
+        write(loopStart);
+        patchJump(exitJump);
+      }
+      case Send send -> throw new CompilerException(CONCURRENT, send.keyword().lineStart());
+    }
+  }
+
+  // The value of an expression statement is never used, so an assignment stores without pushing.
+  private void compileDiscarded(Expression expression) {
+    switch (expression) {
+      case LocalAssign assign -> {
+        compile(assign.value());
+        currentLine = assign.line();
+        emitWithOperand(OpCode.STORE_LOCAL, localIndex(assign.depth(), assign.slot()), -1);
+      }
+      case GlobalAssign assign -> {
+        compile(assign.value());
+        currentLine = assign.line();
+        emitWithOperand(OpCode.STORE_GLOBAL, nameIndex(assign.name().lexeme()), -1);
+      }
+      case Assign assign -> {
+        compile(assign.value());
+        currentLine = assign.line();
+        emitWithOperand(OpCode.STORE_GLOBAL, nameIndex(assign.name().lexeme()), -1);
+      }
+      default -> {
+        compile(expression);
+        emit(OpCode.POP, -1);
+      }
+    }
+  }
+
+  /**
+   * Compiles a condition followed by a jump taken when it is false, which pops the condition, and
+   * returns the jump to patch. A comparison jumps on its operands directly.
+   */
+  private int compileCondition(Expression condition) {
+    if (condition instanceof Grouping grouping) {
+      return compileCondition(grouping.expression());
+    }
+    if (condition instanceof Binary binary) {
+      final var jump =
+          switch (binary.operator().type()) {
+            case GREATER -> OpCode.JUMP_IF_NOT_GREATER;
+            case GREATER_EQUAL -> OpCode.JUMP_IF_NOT_GREATER_EQUAL;
+            case LESS -> OpCode.JUMP_IF_NOT_LESS;
+            case LESS_EQUAL -> OpCode.JUMP_IF_NOT_LESS_EQUAL;
+            default -> -1;
+          };
+      if (jump != -1) {
+        compile(binary.left());
+        compile(binary.right());
+        currentLine = binary.operator().lineStart();
+        return emitJump(jump, -2);
+      }
+    }
+    compile(condition);
+    return emitJump(OpCode.POP_JUMP_IF_FALSE, -1);
+  }
+
+  // Reserving a block's slots only moves the stack pointer. Every slot is written by its
+  // declaration before the resolver lets anything read it, so what was left there is never seen.
+  private void compileScopedBlock(ScopedBlock scoped) {
+    final var slotCount = scoped.slotCount();
+    emit(OpCode.ENTER_BLOCK, slotCount);
+    write(++blockDepth);
+    write(slotCount);
+    try {
+      compileScopedBlockBody(scoped);
+    } finally {
+      blockDepth--;
+    }
+  }
+
+  private void compileScopedBlockBody(ScopedBlock scoped) {
+    final var slotCount = scoped.slotCount();
+    if (slotCount == 0) {
+      scoped.statementList().forEach(this::compileStatement);
+      return;
+    }
+
+    scopeBases.add(localCount);
+    localCount += slotCount;
+
+    scoped.statementList().forEach(this::compileStatement);
+
+    localCount -= slotCount;
+    scopeBases.remove(scopeBases.size() - 1);
+    emitWithOperand(OpCode.POP_N, slotCount, -slotCount);
+  }
+
+  private void compile(Expression expression) {
+    currentLine = expression.line();
+    switch (expression) {
+      case Literal literal -> compileLiteral(literal.value());
+      case Grouping grouping -> compile(grouping.expression());
+      case Unary unary -> {
+        compile(unary.right());
+        currentLine = unary.operator().lineStart();
+        switch (unary.operator().type()) {
+          case MINUS -> emit(OpCode.NEGATE, 0);
+          case BANG -> emit(OpCode.NOT, 0);
+          case CHANNEL, RECEIVE, AWAIT ->
+              throw new CompilerException(CONCURRENT, unary.operator().lineStart());
+          default ->
+              throw new CompilerException(
+                  String.format("Unexpected unary with %s operator", unary.operator().type()),
+                  unary.operator().lineStart());
+        }
+      }
+      case Binary binary -> {
+        compile(binary.left());
+        compile(binary.right());
+        currentLine = binary.operator().lineStart();
+        final var opCode =
+            switch (binary.operator().type()) {
+              case PLUS -> OpCode.ADD;
+              case MINUS -> OpCode.SUBTRACT;
+              case STAR -> OpCode.MULTIPLY;
+              case SLASH -> OpCode.DIVIDE;
+              case GREATER -> OpCode.GREATER;
+              case GREATER_EQUAL -> OpCode.GREATER_EQUAL;
+              case LESS -> OpCode.LESS;
+              case LESS_EQUAL -> OpCode.LESS_EQUAL;
+              case EQUAL_EQUAL -> OpCode.EQUAL;
+              case BANG_EQUAL -> OpCode.NOT_EQUAL;
+              default ->
+                  throw new CompilerException(
+                      String.format(
+                          "Unsupported binary with %s operator", binary.operator().type()),
+                      binary.operator().lineStart());
+            };
+        emit(opCode, -1);
+      }
+      case Logical logical -> {
+        compile(logical.left());
+        switch (logical.operator().type()) {
+          case OR -> {
+            final var elseJump = emitJump(OpCode.JUMP_IF_FALSE, 0);
+            final var endJump = emitJump(OpCode.JUMP, 0);
+            patchJump(elseJump);
+            emit(OpCode.POP, -1);
+            compile(logical.right());
+            patchJump(endJump);
+          }
+          default -> {
+            final var endJump = emitJump(OpCode.JUMP_IF_FALSE, 0);
+            emit(OpCode.POP, -1);
+            compile(logical.right());
+            patchJump(endJump);
+          }
+        }
+      }
+      case Variable variable ->
+          emitWithOperand(OpCode.GET_GLOBAL, nameIndex(variable.name().lexeme()), 1);
+      case Assign assign -> {
+        compile(assign.value());
+        currentLine = assign.line();
+        emitWithOperand(OpCode.SET_GLOBAL, nameIndex(assign.name().lexeme()), 0);
+      }
+        // The chunk's names are bound to cells once per run, so the symbols are not needed here.
+      case GlobalVariable global ->
+          emitWithOperand(OpCode.GET_GLOBAL, nameIndex(global.name().lexeme()), 1);
+      case GlobalAssign assign -> {
+        compile(assign.value());
+        currentLine = assign.line();
+        emitWithOperand(OpCode.SET_GLOBAL, nameIndex(assign.name().lexeme()), 0);
+      }
+      case LocalVariable local ->
+          emitWithOperand(OpCode.GET_LOCAL, localIndex(local.depth(), local.slot()), 1);
+      case LocalAssign assign -> {
+        compile(assign.value());
+        currentLine = assign.line();
+        emitWithOperand(OpCode.SET_LOCAL, localIndex(assign.depth(), assign.slot()), 0);
+      }
+      case Spawn spawn -> throw new CompilerException(CONCURRENT, spawn.line());
+    }
+  }
+
+  private void compileLiteral(LoxValue value) {
+    if (value instanceof NullValue) {
+      emit(OpCode.NIL, 1);
+    } else if (value instanceof BooleanValue booleanValue) {
+      emit(booleanValue.value() ? OpCode.TRUE : OpCode.FALSE, 1);
+    } else {
+      emitWithOperand(OpCode.CONSTANT, constantIndex(value), 1);
+    }
+  }
+
+  private int localIndex(int depth, int slot) {
+    return scopeBases.get(scopeBases.size() - 1 - depth) + slot;
+  }
+
+  private int constantIndex(LoxValue value) {
+    return constantIndices.computeIfAbsent(
+        value,
+        ignored -> {
+          constants.add(value);
+          return constants.size() - 1;
+        });
+  }
+
+  private int nameIndex(String name) {
+    return nameIndices.computeIfAbsent(
+        name,
+        ignored -> {
+          names.add(name);
+          return names.size() - 1;
+        });
+  }
+
+  private void emit(int opCode, int stackEffect) {
+    write(opCode);
+    stackDepth += stackEffect;
+    maxStackDepth = Math.max(maxStackDepth, stackDepth);
+  }
+
+  private void emitWithOperand(int opCode, int operand, int stackEffect) {
+    emit(opCode, stackEffect);
+    write(operand);
+  }
+
+  private int emitJump(int opCode, int stackEffect) {
+    emit(opCode, stackEffect);
+    write(0);
+    return codeSize - 1;
+  }
+
+  private void patchJump(int operandOffset) {
+    code[operandOffset] = codeSize;
+  }
+
+  private void write(int word) {
+    if (codeSize == code.length) {
+      code = Arrays.copyOf(code, code.length * 2);
+      codeLines = Arrays.copyOf(codeLines, codeLines.length * 2);
+    }
+    codeLines[codeSize] = currentLine;
+    code[codeSize++] = word;
+  }
+}
@@ -0,0 +1,51 @@
+package net.mcarolan.craftinginterpreters.vm;
+
+/**
+ * Instruction set of the {@link VirtualMachine}. Code is an int array so that operands follow their
+ * opcode as whole words and are read with a single load. Jump operands are absolute offsets.
+ *
+ * <p>Several instructions fuse sequences the compiler would otherwise emit back to back: a store
+ * that also pops the stored value, a conditional jump that pops its condition, and a comparison
+ * that jumps on its result without ever pushing a boolean. Each saves a trip round the dispatch
+ * loop on the paths loops spend their time in.
+ */
+final class OpCode {
+  static final int CONSTANT = 0;
+  static final int NIL = 1;
+  static final int TRUE = 2;
+  static final int FALSE = 3;
+  static final int POP = 4;
+  static final int POP_N = 5;
+  static final int GET_LOCAL = 6;
+  static final int SET_LOCAL = 7;
+  static final int STORE_LOCAL = 8;
+  static final int DEFINE_GLOBAL = 9;
+  static final int GET_GLOBAL = 10;
+  static final int SET_GLOBAL = 11;
+  static final int STORE_GLOBAL = 12;
+  static final int EQUAL = 13;
+  static final int NOT_EQUAL = 14;
+  static final int GREATER = 15;
+  static final int GREATER_EQUAL = 16;
+  static final int LESS = 17;
+  static final int LESS_EQUAL = 18;
+  static final int ADD = 19;
+  static final int SUBTRACT = 20;
+  static final int MULTIPLY = 21;
+  static final int DIVIDE = 22;
+  static final int NOT = 23;
+  static final int NEGATE = 24;
+  static final int PRINT = 25;
+  static final int JUMP = 26;
+  static final int JUMP_IF_FALSE = 27;
+  static final int POP_JUMP_IF_FALSE = 28;
+  static final int JUMP_IF_NOT_GREATER = 29;
+  static final int JUMP_IF_NOT_GREATER_EQUAL = 30;
+  static final int JUMP_IF_NOT_LESS = 31;
+  static final int JUMP_IF_NOT_LESS_EQUAL = 32;
+  static final int LOOP = 33;
+  static final int ENTER_BLOCK = 34;
+  static final int RETURN = 35;
+
+  private OpCode() {}
+}
@@ -0,0 +1,251 @@
+package net.mcarolan.craftinginterpreters.vm;
+
+import static net.mcarolan.craftinginterpreters.lox.Operators.*;
+
+import java.util.List;
+import net.mcarolan.craftinginterpreters.ast.expression.Expression;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.Backend;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.GlobalCell;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.InterpreterException;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.LoxValue;
+import net.mcarolan.craftinginterpreters.lox.value.NullValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.metrics.Metrics;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+
+public class VirtualMachine implements Backend {
+
+  private final GlobalEnvironmentAdapter globals;
+  private final IOPort io;
+  private final ExecutionBudget budget;
+
+  public VirtualMachine(GlobalEnvironmentAdapter globals, IOPort io) {
+    this(globals, io, ExecutionBudget.unlimited());
+  }
+
+  public VirtualMachine(GlobalEnvironmentAdapter globals, IOPort io, ExecutionBudget budget) {
+    this.globals = globals;
+    this.io = io;
+    this.budget = budget;
+  }
+
+  @Override
+  public void interpret(List<Statement> statements) {
+    run(new Compiler().compile(statements));
+  }
+
+  public LoxValue evaluateExpression(Expression expression) {
+    return run(new Compiler().compileExpression(expression));
+  }
+
+  // Popped slots are not cleared: the stack is sized to the chunk and dropped when the run ends,
+  // so a stale reference lives no longer than the run would have kept it anyway.
+  public LoxValue run(Chunk chunk) {
+    final var code = chunk.code();
+    final var lines = chunk.lines();
+    final var constants = chunk.constants();
+    final var cells = bind(chunk.names());
+    final var stack = new LoxValue[chunk.maxStackDepth()];
+    var sp = 0;
+    var ip = 0;
+
+    while (true) {
+      switch (code[ip++]) {
+        case OpCode.CONSTANT -> stack[sp++] = constants[code[ip++]];
+        case OpCode.NIL -> stack[sp++] = NullValue.VALUE;
+        case OpCode.TRUE -> stack[sp++] = BooleanValue.TRUE;
+        case OpCode.FALSE -> stack[sp++] = BooleanValue.FALSE;
+        case OpCode.POP -> sp--;
+        case OpCode.POP_N -> sp -= code[ip++];
+        case OpCode.GET_LOCAL -> {
+          if (Metrics.ENABLED) {
+            Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+          }
+          stack[sp++] = stack[code[ip++]];
+        }
+        case OpCode.SET_LOCAL -> stack[code[ip++]] = stack[sp - 1];
+        case OpCode.STORE_LOCAL -> stack[code[ip++]] = stack[--sp];
+        case OpCode.DEFINE_GLOBAL -> cells[code[ip++]].define(stack[--sp]);
+        case OpCode.GET_GLOBAL -> {
+          if (Metrics.ENABLED) {
+            Metrics.count(Metrics.Counter.ENVIRONMENT_LOOKUPS);
+          }
+          try {
+            stack[sp++] = cells[code[ip]].get();
+          } catch (IllegalArgumentException e) {
+            throw new InterpreterException("Failed to evaluate variable", lines[ip], e);
+          }
+          ip++;
+        }
+        case OpCode.SET_GLOBAL -> {
+          assign(cells[code[ip]], stack[sp - 1], lines[ip]);
+          ip++;
+        }
+        case OpCode.STORE_GLOBAL -> {
+          assign(cells[code[ip]], stack[--sp], lines[ip]);
+          ip++;
+        }
+        case OpCode.EQUAL -> {
+          final var right = stack[--sp];
+          stack[sp - 1] = interpretEquality(stack[sp - 1], right);
+        }
+        case OpCode.NOT_EQUAL -> {
+          final var right = stack[--sp];
+          stack[sp - 1] = interpretEquality(stack[sp - 1], right).not();
+        }
+        case OpCode.GREATER -> {
+          final var right = stack[--sp];
+          final var left = stack[sp - 1];
+          stack[sp - 1] =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? BooleanValue.of(a > b)
+                  : interpretNumberComparison(left, right, TokenType.GREATER, lines[ip - 1]);
+        }
+        case OpCode.GREATER_EQUAL -> {
+          final var right = stack[--sp];
+          final var left = stack[sp - 1];
+          stack[sp - 1] =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? BooleanValue.of(a >= b)
+                  : interpretNumberComparison(left, right, TokenType.GREATER_EQUAL, lines[ip - 1]);
+        }
+        case OpCode.LESS -> {
+          final var right = stack[--sp];
+          final var left = stack[sp - 1];
+          stack[sp - 1] =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? BooleanValue.of(a < b)
+                  : interpretNumberComparison(left, right, TokenType.LESS, lines[ip - 1]);
+        }
+        case OpCode.LESS_EQUAL -> {
+          final var right = stack[--sp];
+          final var left = stack[sp - 1];
+          stack[sp - 1] =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? BooleanValue.of(a <= b)
+                  : interpretNumberComparison(left, right, TokenType.LESS_EQUAL, lines[ip - 1]);
+        }
+        case OpCode.ADD -> {
+          final var right = stack[--sp];
+          final var left = stack[sp - 1];
+          stack[sp - 1] =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? NumberValue.of(a + b)
+                  : interpretAddition(left, right, lines[ip - 1]);
+        }
+        case OpCode.SUBTRACT -> {
+          final var right = stack[--sp];
+          final var left = stack[sp - 1];
+          stack[sp - 1] =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? NumberValue.of(a - b)
+                  : interpretNumberExpression(left, right, TokenType.MINUS, lines[ip - 1]);
+        }
+        case OpCode.MULTIPLY -> {
+          final var right = stack[--sp];
+          final var left = stack[sp - 1];
+          stack[sp - 1] =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? NumberValue.of(a * b)
+                  : interpretNumberExpression(left, right, TokenType.STAR, lines[ip - 1]);
+        }
+        case OpCode.DIVIDE -> {
+          final var right = stack[--sp];
+          final var left = stack[sp - 1];
+          stack[sp - 1] =
+              left instanceof NumberValue(final var a)
+                      && right instanceof NumberValue(final var b)
+                      && b != 0.0
+                  ? NumberValue.of(a / b)
+                  : interpretNumberExpression(left, right, TokenType.SLASH, lines[ip - 1]);
+        }
+        case OpCode.NOT -> stack[sp - 1] = BooleanValue.of(!isTruthy(stack[sp - 1]));
+        case OpCode.NEGATE -> stack[sp - 1] = interpretMinus(stack[sp - 1], lines[ip - 1]);
+        case OpCode.PRINT -> io.print(stack[--sp].stringify());
+        case OpCode.JUMP -> ip = code[ip];
+        case OpCode.JUMP_IF_FALSE -> ip = isTruthy(stack[sp - 1]) ? ip + 1 : code[ip];
+        case OpCode.POP_JUMP_IF_FALSE -> ip = isTruthy(stack[--sp]) ? ip + 1 : code[ip];
+        case OpCode.JUMP_IF_NOT_GREATER -> {
+          sp -= 2;
+          final var left = stack[sp];
+          final var right = stack[sp + 1];
+          final var holds =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? a > b
+                  : compare(left, right, TokenType.GREATER, lines[ip]);
+          ip = holds ? ip + 1 : code[ip];
+        }
+        case OpCode.JUMP_IF_NOT_GREATER_EQUAL -> {
+          sp -= 2;
+          final var left = stack[sp];
+          final var right = stack[sp + 1];
+          final var holds =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? a >= b
+                  : compare(left, right, TokenType.GREATER_EQUAL, lines[ip]);
+          ip = holds ? ip + 1 : code[ip];
+        }
+        case OpCode.JUMP_IF_NOT_LESS -> {
+          sp -= 2;
+          final var left = stack[sp];
+          final var right = stack[sp + 1];
+          final var holds =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? a < b
+                  : compare(left, right, TokenType.LESS, lines[ip]);
+          ip = holds ? ip + 1 : code[ip];
+        }
+        case OpCode.JUMP_IF_NOT_LESS_EQUAL -> {
+          sp -= 2;
+          final var left = stack[sp];
+          final var right = stack[sp + 1];
+          final var holds =
+              left instanceof NumberValue(final var a) && right instanceof NumberValue(final var b)
+                  ? a <= b
+                  : compare(left, right, TokenType.LESS_EQUAL, lines[ip]);
+          ip = holds ? ip + 1 : code[ip];
+        }
+        case OpCode.LOOP -> {
+          budget.backEdge();
+          ip = code[ip];
+        }
+        case OpCode.ENTER_BLOCK -> {
+          budget.enterBlock(code[ip]);
+          sp += code[ip + 1];
+          ip += 2;
+        }
+        case OpCode.RETURN -> {
+          return stack[--sp];
+        }
+        default ->
+            throw new IllegalStateException(String.format("Unknown opcode %d", code[ip - 1]));
+      }
+    }
+  }
+
+  private static void assign(GlobalCell cell, LoxValue value, int line) {
+    try {
+      cell.assign(value);
+    } catch (IllegalArgumentException e) {
+      throw new InterpreterException("Failed to assign variable", line, e);
+    }
+  }
+
+  // Only reached when an operand is not a number, where the comparison fails with its usual error.
+  private static boolean compare(LoxValue left, LoxValue right, TokenType operator, int line) {
+    return isTruthy(interpretNumberComparison(left, right, operator, line));
+  }
+
+  private GlobalCell[] bind(String[] names) {
+    final var cells = new GlobalCell[names.length];
+    for (var i = 0; i < names.length; i++) {
+      cells[i] = globals.cell(names[i]);
+    }
+    return cells;
+  }
+}
@@ -0,0 +1,88 @@
+package net.mcarolan.craftinginterpreters;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class BatchRunnerTest {
+
+  private Path write(Path directory, String name, String source) throws IOException {
+    final var file = directory.resolve(name);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, source, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void runsEveryScriptInIsolationAndReportsInOrder(BackendType backendType) throws IOException {
+    final var directory = Files.createTempDirectory("batch");
+    final var scripts = new ArrayList<Path>();
+    for (var i = 0; i < 50; i++) {
+      scripts.add(
+          write(
+              directory,
+              "script" + i + ".lox",
+              "var n = "
+                  + i
+                  + "; var total = 0; while (n > 0) { total = total + n; n = n - 1; }"
+                  + " print total;"));
+    }
+
+    final var summary = new BatchRunner(backendType).run(scripts);
+
+    assertEquals(50, summary.results().size());
+    for (var i = 0; i < 50; i++) {
+      final var result = summary.results().get(i);
+      assertEquals(scripts.get(i), result.script());
+      assertEquals(ExitCode.SUCCESS, result.exitCode());
+      assertEquals(List.of(Integer.toString(i * (i + 1) / 2)), result.output());
+    }
+    assertEquals(0, summary.failures());
+    assertEquals(ExitCode.SUCCESS, summary.exitCode());
+  }
+
+  @Test
+  void failingScriptsGetTheirOwnExitCodes() throws IOException {
+    final var directory = Files.createTempDirectory("batch");
+    final var scripts =
+        List.of(
+            write(directory, "fails.lox", "print 1; print missing;"),
+            directory.resolve("absent.lox"),
+            write(directory, "passes.lox", "print 2;"));
+
+    final var summary = new BatchRunner(BackendType.TREE_WALKER).run(scripts);
+
+    final var failing = summary.results().get(0);
+    assertEquals(ExitCode.RUNTIME_ERROR, failing.exitCode());
+    assertEquals(List.of("1"), failing.output());
+    assertTrue(failing.error().isPresent());
+    assertEquals(ExitCode.IO_ERROR, summary.results().get(1).exitCode());
+    assertEquals(ExitCode.SUCCESS, summary.results().get(2).exitCode());
+    assertEquals(List.of("2"), summary.results().get(2).output());
+    assertEquals(2, summary.failures());
+    assertEquals(ExitCode.RUNTIME_ERROR, summary.exitCode());
+  }
+
+  @Test
+  void findsScriptsInADirectoryOrAListFile() throws IOException {
+    final var directory = Files.createTempDirectory("batch");
+    final var b = write(directory, "b.lox", "");
+    final var a = write(directory, "nested/a.lox", "");
+    write(directory, "notes.txt", "");
+
+    assertEquals(List.of(b, a), BatchRunner.scripts(directory));
+
+    final var list = write(directory, "scripts.txt", "# comment\nnested/a.lox\n\n  b.lox  \n");
+
+    assertEquals(List.of(a.toAbsolutePath(), b.toAbsolutePath()), BatchRunner.scripts(list));
+  }
+}
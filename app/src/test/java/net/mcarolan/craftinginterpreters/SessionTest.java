@@ -0,0 +1,92 @@
+package net.mcarolan.craftinginterpreters;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import net.mcarolan.craftinginterpreters.lox.InterpreterException;
+import net.mcarolan.craftinginterpreters.lox.ParserException;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class SessionTest {
+
+  private final List<String> output = new ArrayList<>();
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void globalsSurviveFromOneInputToTheNext(BackendType backendType) {
+    final var session = new Session(backendType, output::add);
+
+    session.execute("var total = 0;");
+    session.execute("total = total + 40;");
+    session.execute("{ var step = 2; total = total + step; }");
+    session.execute("print total;");
+
+    assertEquals(List.of("42"), output);
+    assertEquals(Map.of("total", new NumberValue(42)), session.globals().values());
+  }
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void failuresInsideBlocksLeaveTheSessionUsable(BackendType backendType) {
+    final var session = new Session(backendType, output::add);
+
+    assertThrows(
+        InterpreterException.class, () -> session.execute("{ var a = 1; print missing; }"));
+    session.execute("var b = 2; print b;");
+
+    assertEquals(List.of("2"), output);
+  }
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void declarationsBeforeAnErrorKeepTheirEffects(BackendType backendType) {
+    final var session = new Session(backendType, output::add);
+
+    assertThrows(ParserException.class, () -> session.execute("var a = 1; print a +;"));
+    assertThrows(InterpreterException.class, () -> session.execute("undefined = 1;"));
+    session.execute("print a;");
+
+    assertEquals(List.of("1"), output);
+  }
+
+  @Test
+  void streamsManyDeclarationsThroughTheClosureBackend() {
+    final var session = new Session(BackendType.CLOSURE, output::add);
+    final var declarations = 100_000;
+    final var line = "n = n * 1 + 1;\n";
+    // The source is generated as it is read, so only the session can hold on to it.
+    final var source =
+        new Reader() {
+          private int read = 0;
+
+          @Override
+          public int read(char[] buffer, int offset, int length) {
+            final var count = Math.min(length, declarations * line.length() - read);
+            if (count == 0) {
+              return -1;
+            }
+            for (var i = 0; i < count; i++) {
+              buffer[offset + i] = line.charAt((read + i) % line.length());
+            }
+            read += count;
+            return count;
+          }
+
+          @Override
+          public void close() {}
+        };
+
+    session.execute("var n = 0;");
+    session.execute(new Scanner(source));
+    session.execute("print n;");
+
+    assertEquals(List.of(String.valueOf(declarations)), output);
+  }
+}
@@ -0,0 +1,93 @@
+package net.mcarolan.craftinginterpreters;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.Test;
+
+class SidecarCacheTest {
+
+  private Path script(String source) throws IOException {
+    final var script = Files.createTempDirectory("sidecar").resolve("script.lox");
+    Files.writeString(script, source);
+    return script;
+  }
+
+  @Test
+  void writesTheProgramBesideTheScriptAndReadsItBack() throws IOException {
+    final var script = script("var a = 1; { var b = a + 1; print b; }");
+    final var expected =
+        SidecarCache.compile(new Scanner(Files.readString(script)), new SymbolTable());
+
+    assertEquals(expected, SidecarCache.program(script, new SymbolTable()).orElseThrow());
+    final var sidecar = SidecarCache.sidecar(script);
+    assertTrue(Files.isRegularFile(sidecar));
+    final var written = Files.getLastModifiedTime(sidecar);
+
+    assertEquals(expected, SidecarCache.program(script, new SymbolTable()).orElseThrow());
+    assertEquals(written, Files.getLastModifiedTime(sidecar));
+  }
+
+  @Test
+  void rebuildsWhenTheSourceChanges() throws IOException {
+    final var script = script("print 1;");
+    SidecarCache.program(script, new SymbolTable());
+
+    Files.writeString(script, "print 2;");
+
+    assertEquals(
+        SidecarCache.compile(new Scanner("print 2;"), new SymbolTable()),
+        SidecarCache.program(script, new SymbolTable()).orElseThrow());
+  }
+
+  @Test
+  void rebuildsACorruptSidecar() throws IOException {
+    final var script = script("print 1;");
+    final var expected = SidecarCache.program(script, new SymbolTable()).orElseThrow();
+    final var sidecar = SidecarCache.sidecar(script);
+    final var bytes = Files.readAllBytes(sidecar);
+    Files.write(sidecar, Arrays.copyOf(bytes, bytes.length - 3));
+
+    assertEquals(expected, SidecarCache.program(script, new SymbolTable()).orElseThrow());
+    assertArrayEquals(bytes, Files.readAllBytes(sidecar));
+  }
+
+  @Test
+  void leavesScriptsThatDoNotCompileUncached() throws IOException {
+    final var script = script("print 1; print +;");
+
+    assertTrue(SidecarCache.program(script, new SymbolTable()).isEmpty());
+    assertFalse(Files.exists(SidecarCache.sidecar(script)));
+  }
+
+  @Test
+  void givesTheSidecarTheScriptsPermissions() throws IOException {
+    final var script = script("print 1;");
+    assumeTrue(Files.getFileAttributeView(script, PosixFileAttributeView.class) != null);
+    final var permissions = PosixFilePermissions.fromString("rw-r--r--");
+    Files.setPosixFilePermissions(script, permissions);
+
+    SidecarCache.program(script, new SymbolTable());
+
+    assertEquals(permissions, Files.getPosixFilePermissions(SidecarCache.sidecar(script)));
+  }
+
+  @Test
+  void compilesAroundASidecarItCannotRead() throws IOException {
+    final var script = script("print 1;");
+    final var expected = SidecarCache.program(script, new SymbolTable()).orElseThrow();
+    final var sidecar = SidecarCache.sidecar(script);
+    assumeTrue(Files.getFileAttributeView(sidecar, PosixFileAttributeView.class) != null);
+    Files.setPosixFilePermissions(sidecar, PosixFilePermissions.fromString("---------"));
+
+    assertEquals(expected, SidecarCache.program(script, new SymbolTable()).orElseThrow());
+  }
+}
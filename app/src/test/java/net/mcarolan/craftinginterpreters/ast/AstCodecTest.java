@@ -0,0 +1,55 @@
+package net.mcarolan.craftinginterpreters.ast;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class AstCodecTest {
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "print 1 + 2 * -3.25;",
+        "var s = \"multi\nline ü\"; print s + s; print nil; print !true == false;",
+        "var a; a = 1; if (a > 0 and a < 2) print a; else { print \"no\"; }",
+        "var i = 0; while (i < 3) { var j = i; { var k = j; k = k + 1; print k; } i = i + 1; }",
+        "{ var x = (1); if (x or nil) x = 2; print x; }",
+        "var c = channel(2); { var n = 1; await spawn { send c, n + receive c; }; }",
+      })
+  void decodesWhatItEncoded(String source) {
+    final var statements = new Parser(new Scanner(source).scanTokens()).parse();
+    final var program = new Resolver(new SymbolTable()).resolve(statements);
+
+    final var decoded =
+        AstCodec.decode(ByteBuffer.wrap(AstCodec.encode(program)), new SymbolTable());
+
+    assertEquals(program, decoded);
+  }
+
+  @Test
+  void storesEachStringOnce() {
+    final var same = new Parser(new Scanner("print variable; print variable;").scanTokens());
+    final var distinct = new Parser(new Scanner("print variable; print different;").scanTokens());
+
+    final var sameLength = AstCodec.encode(same.parse()).length;
+    final var distinctLength = AstCodec.encode(distinct.parse()).length;
+
+    assertTrue(sameLength + "different".length() <= distinctLength);
+  }
+
+  @Test
+  void rejectsTruncatedInput() {
+    final var encoded =
+        AstCodec.encode(new Parser(new Scanner("print 1 + 2;").scanTokens()).parse());
+    final var truncated = ByteBuffer.wrap(encoded, 0, encoded.length - 1);
+
+    assertThrows(RuntimeException.class, () -> AstCodec.decode(truncated, new SymbolTable()));
+  }
+}
@@ -0,0 +1,79 @@
+package net.mcarolan.craftinginterpreters.closure;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import net.mcarolan.craftinginterpreters.scanner.TokenType;
+import org.junit.jupiter.api.Test;
+
+class SpecializingBinaryNodeTest {
+
+  private final List<String> output = new ArrayList<>();
+
+  private List<SiteStatistics> run(String source) {
+    final var parser = new Parser(new Scanner(source).scanTokens());
+    final var interpreter = new ClosureInterpreter(new GlobalEnvironmentAdapter(), output::add);
+    interpreter.interpret(parser.parse());
+    return interpreter.siteStatistics();
+  }
+
+  @Test
+  void numberSitesStaySpecialized() {
+    final var sites = run("var i = 0; while (i < 5) i = i + 1;");
+
+    assertEquals(
+        List.of(
+            new SiteStatistics(1, TokenType.LESS, Specialization.NUMBER, 6, 0),
+            new SiteStatistics(1, TokenType.PLUS, Specialization.NUMBER, 5, 0)),
+        sites);
+  }
+
+  @Test
+  void stringSitesSpecializeAddition() {
+    final var sites = run("var s = \"a\"; s = s + \"b\"; print s;");
+
+    assertEquals(Specialization.STRING, sites.get(0).specialization());
+    assertEquals(1, sites.get(0).hits());
+    assertEquals(List.of("ab"), output);
+  }
+
+  @Test
+  void failedGuardDeoptimizesToGeneric() {
+    final var sites =
+        run(
+            """
+            var a = 1;
+            var b = 2;
+            var i = 0;
+            while (i < 2) {
+              print a + b;
+              a = "x";
+              b = "y";
+              i = i + 1;
+            }
+            """);
+
+    final var addition = sites.get(1);
+    assertEquals(5, addition.line());
+    assertEquals(Specialization.GENERIC, addition.specialization());
+    assertEquals(1, addition.hits());
+    assertEquals(1, addition.misses());
+    assertEquals(List.of("3", "xy"), output);
+  }
+
+  @Test
+  void onlyTheLatestProgramsSitesAreKept() {
+    final var interpreter = new ClosureInterpreter(new GlobalEnvironmentAdapter(), output::add);
+    interpreter.interpret(new Parser(new Scanner("var a = 1; print a < 2;").scanTokens()).parse());
+    interpreter.interpret(new Parser(new Scanner("print \"a\" + \"b\";").scanTokens()).parse());
+
+    final var sites = interpreter.siteStatistics();
+    assertEquals(1, sites.size());
+    assertEquals(TokenType.PLUS, sites.get(0).operator());
+    assertEquals(List.of("true", "ab"), output);
+  }
+}
@@ -0,0 +1,108 @@
+package net.mcarolan.craftinginterpreters.flat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.Session;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.LoxException;
+import net.mcarolan.craftinginterpreters.lox.ParserException;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class FlatInterpreterTest {
+
+  private static List<String> runFlat(String source) {
+    final var output = new ArrayList<String>();
+    final var ast = new FlatParser(new Scanner(source).scanBuffer()).parse();
+    new FlatInterpreter(new GlobalEnvironmentAdapter(), output::add).interpret(ast);
+    return output;
+  }
+
+  private static List<String> runTree(String source) {
+    final var output = new ArrayList<String>();
+    new Session(BackendType.TREE_WALKER, output::add).execute(source);
+    return output;
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "var a = 1; { var a = a + 1; { print a; a = a * 10; } print a; } print a;",
+        "var i = 0; var s = \"\"; while (i < 5) { s = s + \"ab\"; i = i + 1; } print s;",
+        "{ { var x = 3; } { var y = 4; { print y - 1; } } }",
+        "var t = nil; if (t or false) print 1; else if (!t and true) print 2; else print 3;",
+        "{ var a = 1; { { print a; } var b = 2; { print a + b; } } }",
+        "print (1 + 2) * -(3 - 4) / 2 >= 1.5 == !false;",
+        "var a; var b; a = b = \"x\"; print a; print b != \"y\";",
+      })
+  void runsLikeTheTreeWalker(String source) {
+    assertEquals(runTree(source), runFlat(source));
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "var a = 1;\nprint a +\n missing;",
+        "var a = 1;\n\nundefined = a;",
+        "print 1 +\n\n \"two\";",
+        "print -\n\"x\";",
+        "var z = 0;\nprint 1\n / z;",
+        "{\n var a = 1;\n print a < \"b\";\n}",
+        "(a) = 1;",
+        "var = 2;",
+        "print 1",
+        "{ print 1;",
+      })
+  void failsLikeTheTreeWalker(String source) {
+    final var expected = assertThrows(LoxException.class, () -> runTree(source));
+    final var actual = assertThrows(LoxException.class, () -> runFlat(source));
+
+    assertEquals(expected.getClass(), actual.getClass());
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "var t =\n spawn { print 1; };",
+        "var c = 1;\nsend c, 2;",
+        "print 1 +\n receive c;",
+        "var c = channel(0);",
+        "{ await t; }",
+      })
+  void rejectsTasksAndChannels(String source) {
+    final var error = assertThrows(ParserException.class, () -> runFlat(source));
+
+    assertEquals(
+        "Line %d: Tasks and channels are not supported by the flat AST"
+            .formatted(source.lines().count()),
+        error.getMessage());
+  }
+
+  @Test
+  void dropsGroupingsAndSharesConstants() {
+    final var ast = new FlatParser(new Scanner("print ((1)); print 1;").scanBuffer()).parse();
+
+    assertEquals(4, ast.nodeCount());
+    assertEquals(1, ast.constants().length);
+  }
+
+  @Test
+  void givesSlotsOnlyToBlocksThatDeclare() {
+    final var ast =
+        new FlatParser(new Scanner("{ var a = 1; { print a; } var b = 2; }").scanBuffer()).parse();
+    final var nodes = ast.nodes();
+    final var outer = ast.lists()[ast.programStart()] * FlatAst.STRIDE;
+    final var inner = ast.lists()[nodes[outer + 1] + 1] * FlatAst.STRIDE;
+
+    assertEquals(NodeKind.BLOCK, nodes[outer]);
+    assertEquals(2, nodes[outer + 3]);
+    assertEquals(NodeKind.BLOCK, nodes[inner]);
+    assertEquals(0, nodes[inner + 3]);
+  }
+}
@@ -0,0 +1,124 @@
+package net.mcarolan.craftinginterpreters.incremental;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import net.mcarolan.craftinginterpreters.lox.LoxException;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.parser.ScannerTokenStream;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.Test;
+
+class IncrementalParserTest {
+
+  private static final String PROGRAM =
+      """
+      var a = 1;
+      {
+        var b = a + 2;
+        print b;
+        {
+          print "inner";
+          b = b * 3;
+        }
+        print b;
+      }
+      if (a > 0) print a; else { print -a; }
+      while (a < 3) { a = a + 1; }
+      print a == 3 and !false;
+      """;
+
+  private static final List<String> SNIPPETS =
+      List.of(
+          "print 1;", "\n", "{", "}", "var x = 2;", ";", "(", "a", " + ", "\"s\"", "\"", "@", "x");
+
+  private static String parseOrError(String source) {
+    try {
+      return new Parser(new ScannerTokenStream(new Scanner(source))).parse().toString();
+    } catch (LoxException e) {
+      return e.getMessage();
+    }
+  }
+
+  private static String parseOrError(IncrementalParser parser) {
+    try {
+      return parser.statements().toString();
+    } catch (LoxException e) {
+      return e.getMessage();
+    }
+  }
+
+  @Test
+  void matchesAFullParse() {
+    final var parser = new IncrementalParser(PROGRAM);
+
+    assertEquals(parseOrError(PROGRAM), parseOrError(parser));
+  }
+
+  @Test
+  void matchesAFullParseAfterEveryEdit() {
+    final var random = new Random(22);
+    final var parser = new IncrementalParser(PROGRAM);
+    for (var i = 0; i < 2000; i++) {
+      final var source = parser.source();
+      final var offset = random.nextInt(source.length() + 1);
+      final var edit =
+          random.nextBoolean()
+              ? SourceEdit.insert(offset, SNIPPETS.get(random.nextInt(SNIPPETS.size())))
+              : SourceEdit.delete(offset, Math.min(random.nextInt(4), source.length() - offset));
+      parser.apply(edit);
+
+      assertEquals(parseOrError(parser.source()), parseOrError(parser), parser.source());
+      if (parser.source().length() > 2 * PROGRAM.length()) {
+        parser.apply(new SourceEdit(0, parser.source().length(), PROGRAM));
+      }
+    }
+  }
+
+  @Test
+  void anEditInALargeProgramOnlyReparsesItsDeclaration() {
+    final var source =
+        IntStream.range(0, 2000).mapToObj(i -> "print " + i + ";\n").collect(Collectors.joining());
+    final var parser = new IncrementalParser(source);
+    final var offset = source.indexOf("print 1000;") + "print ".length();
+
+    final var reparse = parser.apply(new SourceEdit(offset, 4, "1 + 1"));
+
+    assertEquals(1, reparse.parsedDeclarations());
+    assertTrue(reparse.scannedTokens() <= 6, reparse.toString());
+    assertEquals(parseOrError(parser.source()), parseOrError(parser));
+  }
+
+  @Test
+  void anEditInsideABlockOnlyReparsesWithinIt() {
+    final var statements =
+        IntStream.range(0, 1000)
+            .mapToObj(i -> "  print " + i + ";\n")
+            .collect(Collectors.joining());
+    final var source = "print 0;\n{\n" + statements + "}\n" + statements.replace("  ", "");
+    final var parser = new IncrementalParser(source);
+
+    final var reparse = parser.apply(SourceEdit.insert(source.indexOf("print 500;"), "\n\n"));
+
+    assertEquals(1, reparse.parsedDeclarations());
+    assertEquals(parseOrError(parser.source()), parseOrError(parser));
+  }
+
+  @Test
+  void reportsEveryBrokenDeclaration() {
+    final var parser = new IncrementalParser("print 1;\nprint ;\nprint 2;\nvar = 3;\n");
+
+    assertEquals(
+        List.of("Line 2: Expect expression.", "Line 4: Expect variable name"),
+        parser.errors().stream().map(LoxException::getMessage).toList());
+
+    parser.apply(SourceEdit.insert(0, "\n"));
+
+    assertEquals(
+        List.of("Line 3: Expect expression.", "Line 5: Expect variable name"),
+        parser.errors().stream().map(LoxException::getMessage).toList());
+  }
+}
@@ -0,0 +1,184 @@
+package net.mcarolan.craftinginterpreters.jit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.Session;
+import net.mcarolan.craftinginterpreters.ast.statement.Statement;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.ExecutionLimitException;
+import net.mcarolan.craftinginterpreters.lox.ExecutionLimits;
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.Interpreter;
+import net.mcarolan.craftinginterpreters.lox.LoxException;
+import net.mcarolan.craftinginterpreters.lox.StatementObserver;
+import net.mcarolan.craftinginterpreters.optimizer.Optimizer;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class TieredCompilerTest {
+
+  private static List<Statement> resolve(String source, GlobalEnvironmentAdapter globals) {
+    return new Resolver(globals.symbols())
+        .resolve(new Optimizer().optimize(new Parser(new Scanner(source).scanTokens()).parse()));
+  }
+
+  private static List<String> runCompiled(String source, JitPolicy policy) {
+    final var output = new ArrayList<String>();
+    final var globals = new GlobalEnvironmentAdapter();
+    final var budget = ExecutionBudget.unlimited();
+    final var tier = new TieredCompiler(globals, output::add, budget, policy);
+    new Interpreter(globals, output::add, budget, StatementObserver.NONE, tier)
+        .interpret(resolve(source, globals));
+    return output;
+  }
+
+  private static List<String> runTree(String source) {
+    final var output = new ArrayList<String>();
+    new Session(BackendType.TREE_WALKER, output::add).execute(source);
+    return output;
+  }
+
+  private static final List<JitPolicy> POLICIES =
+      List.of(
+          JitPolicy.eager(),
+          new JitPolicy(Integer.MAX_VALUE, 3, Runnable::run),
+          new JitPolicy(Integer.MAX_VALUE, 1, Runnable::run));
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "var a = 1; { var a = a + 1; { print a; a = a * 10; } print a; } print a;",
+        "var i = 0; var s = \"\"; while (i < 5) { s = s + \"ab\"; i = i + 1; } print s;",
+        "{ { var x = 3; } { var y = 4; { print y - 1; } } }",
+        "var t = nil; if (t or false) print 1; else if (!t and true) print 2; else print 3;",
+        "{ var a = 1; { { print a; } var b = 2; { print a + b; } } }",
+        "print (1 + 2) * -(3 - 4) / 2 >= 1.5 == !false;",
+        "var a; var b; a = b = \"x\"; print a; print b != \"y\";",
+        "{ var n = 0; var i = 0; while (i < 10) {"
+            + " var j = i; while (j > 0) { n = n + j; j = j - 1; } i = i + 1; }"
+            + " print n; print i; }",
+        "var i = 0; while (i < 6) { if (i <= 2 or i == 5) print i; else print -i; i = i + 1; }",
+        "var x = 1; while (x < 100 and x != 64) x = x * 2; print x; print x / 3;",
+        "var u; print u; print !u; print u == nil; print \"a\" == \"a\";",
+      })
+  void runsLikeTheTreeWalker(String source) {
+    for (final var policy : POLICIES) {
+      assertEquals(runTree(source), runCompiled(source, policy), source);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "var a = 1;\nprint a +\n missing;",
+        "var a = 1;\n\nundefined = a;",
+        "var i = 0;\nwhile (i < 5) {\n i = i + 1;\n print 1 +\n\n \"two\"; }",
+        "var s = \"x\";\nwhile (true)\n print -\ns;",
+        "var z = 0;\nwhile (z < 3) { z = z + 1; print 1\n / (z - 2); }",
+        "{\n var a = 1;\n while (a < 3) { a = a + 1; print a < \"b\"; }\n}",
+      })
+  void failsLikeTheTreeWalker(String source) {
+    final var expected = assertThrows(LoxException.class, () -> runTree(source));
+    for (final var policy : POLICIES) {
+      final var actual = assertThrows(LoxException.class, () -> runCompiled(source, policy));
+
+      assertEquals(expected.getClass(), actual.getClass());
+      assertEquals(expected.getMessage(), actual.getMessage());
+    }
+  }
+
+  @Test
+  void compilesALoopOnceItIsHot() {
+    final var globals = new GlobalEnvironmentAdapter();
+    final var output = new ArrayList<String>();
+    final var budget = ExecutionBudget.unlimited();
+    final var tier =
+        new TieredCompiler(globals, output::add, budget, new JitPolicy(100, 50, Runnable::run));
+    final var interpreter =
+        new Interpreter(globals, output::add, budget, StatementObserver.NONE, tier);
+    final var program = resolve("var i = 0; while (i < 100) i = i + 1; print i;", globals);
+
+    interpreter.interpret(program);
+
+    assertFalse(tier.isCompiled(program.get(0)));
+    assertTrue(tier.isCompiled(program.get(1)));
+    assertEquals(List.of("100"), output);
+  }
+
+  @Test
+  void letsGoOfStatementsThatHaveBeenDropped() throws InterruptedException {
+    final var globals = new GlobalEnvironmentAdapter();
+    final var budget = ExecutionBudget.unlimited();
+    final var tier = new TieredCompiler(globals, ignored -> {}, budget, JitPolicy.background());
+    final var interpreter =
+        new Interpreter(globals, ignored -> {}, budget, StatementObserver.NONE, tier);
+    var program = resolve("var a = 1;", globals);
+    final var declaration = new WeakReference<>(program.get(0));
+
+    interpreter.interpret(program);
+    program = null;
+    final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (declaration.get() != null && System.nanoTime() < deadline) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull(declaration.get());
+  }
+
+  @Test
+  void keepsToTheBudgetInCompiledCode() {
+    final var globals = new GlobalEnvironmentAdapter();
+    final var budget = new ExecutionBudget(ExecutionLimits.none().withMaxIterations(1000));
+    final var tier = new TieredCompiler(globals, ignored -> {}, budget, JitPolicy.eager());
+    final var interpreter =
+        new Interpreter(globals, ignored -> {}, budget, StatementObserver.NONE, tier);
+
+    assertThrows(
+        ExecutionLimitException.class,
+        () -> interpreter.interpret(resolve("while (true) {}", globals)));
+    assertEquals(1000, budget.iterations());
+  }
+
+  @Test
+  void keepsToTheScopeDepthInCompiledCode() {
+    final var globals = new GlobalEnvironmentAdapter();
+    final var budget = new ExecutionBudget(ExecutionLimits.none().withMaxScopeDepth(2));
+    final var tier = new TieredCompiler(globals, ignored -> {}, budget, JitPolicy.eager());
+    final var interpreter =
+        new Interpreter(globals, ignored -> {}, budget, StatementObserver.NONE, tier);
+
+    assertThrows(
+        ExecutionLimitException.class,
+        () ->
+            interpreter.interpret(
+                resolve("{ var a = 1; { var b = 2; { var c = 3; } } }", globals)));
+  }
+
+  @Test
+  void rejectsObservers() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            BackendType.JIT.create(
+                new GlobalEnvironmentAdapter(),
+                ignored -> {},
+                ExecutionBudget.unlimited(),
+                new StatementObserver() {
+                  @Override
+                  public void enter(Statement statement) {}
+
+                  @Override
+                  public void exit(Statement statement) {}
+                }));
+  }
+}
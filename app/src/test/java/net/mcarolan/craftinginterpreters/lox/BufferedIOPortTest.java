@@ -0,0 +1,135 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class BufferedIOPortTest {
+
+  private static final String NEWLINE = System.lineSeparator();
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  private String written() {
+    return output.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void holdsOutputUntilFlushed() {
+    final var io = new BufferedIOPort(Channels.newChannel(output));
+
+    io.print("hello");
+    io.print("wörld");
+    assertEquals("", written());
+
+    io.flush();
+    assertEquals("hello" + NEWLINE + "wörld" + NEWLINE, written());
+  }
+
+  @Test
+  void writesWhenTheBufferFills() {
+    final var io = new BufferedIOPort(Channels.newChannel(output), 16, Duration.ofHours(1), false);
+
+    io.print("0123456789");
+    io.print("0123456789");
+    assertFalse(written().isEmpty());
+
+    io.close();
+    assertEquals("0123456789" + NEWLINE + "0123456789" + NEWLINE, written());
+  }
+
+  @Test
+  void writesWhenTheFlushIntervalHasPassed() {
+    final var io = new BufferedIOPort(Channels.newChannel(output), 1024, Duration.ZERO, false);
+
+    io.print("a");
+    io.print("b");
+
+    assertEquals("a" + NEWLINE + "b" + NEWLINE, written());
+  }
+
+  @Test
+  void asynchronousWriterDeliversEverythingInOrderOnClose() {
+    final var io = new BufferedIOPort(Channels.newChannel(output), 64, Duration.ofHours(1), true);
+    final var expected = new StringBuilder();
+
+    for (var i = 0; i < 5000; i++) {
+      io.print(Integer.toString(i));
+      expected.append(i).append(NEWLINE);
+    }
+    io.close();
+
+    assertEquals(expected.toString(), written());
+  }
+
+  @Test
+  void asynchronousWriterFlushesOnItsOwnAfterTheInterval() throws InterruptedException {
+    final var io =
+        new BufferedIOPort(Channels.newChannel(output), 1024, Duration.ofMillis(10), true);
+
+    io.print("tick");
+    final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (written().isEmpty() && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+
+    assertEquals("tick" + NEWLINE, written());
+    io.close();
+  }
+
+  @Test
+  void printingFailsOnceTheAsynchronousWriterIsInterrupted() throws InterruptedException {
+    final var io = new BufferedIOPort(Channels.newChannel(output), 64, Duration.ofHours(1), true);
+    final var writer =
+        Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals("lox-output"))
+            .findFirst()
+            .orElseThrow();
+
+    writer.interrupt();
+    writer.join();
+
+    assertThrows(UncheckedIOException.class, () -> io.print("lost"));
+  }
+
+  @Test
+  void printingFailsOnceTheAsynchronousWriterThrows() {
+    final var broken =
+        new WritableByteChannel() {
+          @Override
+          public int write(ByteBuffer source) {
+            throw new IllegalStateException("broken");
+          }
+
+          @Override
+          public boolean isOpen() {
+            return true;
+          }
+
+          @Override
+          public void close() {}
+        };
+    final var io = new BufferedIOPort(broken, 64, Duration.ofHours(1), true);
+    io.print("first");
+    io.flush();
+
+    // More lines than the queue holds, so a writer that died silently would block this forever.
+    final var failure =
+        assertThrows(
+            UncheckedIOException.class,
+            () -> {
+              for (var i = 0; i < 4096; i++) {
+                io.print("lost");
+              }
+            });
+    assertInstanceOf(IllegalStateException.class, failure.getCause().getCause());
+    assertThrows(UncheckedIOException.class, io::close);
+  }
+}
@@ -0,0 +1,77 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.Session;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class ExecutionBudgetTest {
+
+  private final List<String> output = new ArrayList<>();
+
+  private ExecutionLimitException.Limit exceeded(Session session, String source) {
+    return assertThrows(ExecutionLimitException.class, () -> session.execute(source)).limit();
+  }
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void countsLoopIterationsExactly(BackendType backendType) {
+    final var budget = new ExecutionBudget(ExecutionLimits.none().withMaxIterations(10));
+    final var session = new Session(backendType, output::add, budget);
+
+    session.execute("var i = 0; while (i < 10) i = i + 1; print i;");
+    assertEquals(10, budget.iterations());
+
+    // The budget is spent, so the next loop's body runs once and its first back-edge fails.
+    assertEquals(
+        ExecutionLimitException.Limit.ITERATIONS, exceeded(session, "while (true) { print 1; }"));
+    assertEquals(List.of("10", "1"), output);
+  }
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void stopsLoopsThatRunPastTheTimeLimit(BackendType backendType) {
+    final var limits = ExecutionLimits.none().withTimeout(Duration.ofMillis(50));
+    final var session = new Session(backendType, output::add, new ExecutionBudget(limits));
+
+    assertEquals(ExecutionLimitException.Limit.TIME, exceeded(session, "while (true) {}"));
+  }
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void canBeCancelledFromAnotherThread(BackendType backendType)
+      throws InterruptedException, ExecutionException {
+    final var budget = ExecutionBudget.unlimited();
+    final var session = new Session(backendType, output::add, budget);
+
+    final var source = "var a = 0; while (true) a = a + 1;";
+    final var run = CompletableFuture.supplyAsync(() -> exceeded(session, source));
+    Thread.sleep(20);
+    budget.cancel();
+
+    assertEquals(ExecutionLimitException.Limit.CANCELLED, run.get());
+    assertTrue(budget.isCancelled());
+  }
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void limitsHowDeeplyBlocksNest(BackendType backendType) {
+    final var limits = ExecutionLimits.none().withMaxScopeDepth(2);
+    final var session = new Session(backendType, output::add, new ExecutionBudget(limits));
+
+    session.execute("{ var a = 1; { print a; } }");
+
+    assertEquals(
+        ExecutionLimitException.Limit.SCOPE_DEPTH,
+        exceeded(session, "{ { print 2; { print 3; } } }"));
+    session.execute("{ { print 4; } }");
+    assertEquals(List.of("1", "2", "4"), output);
+  }
+}
@@ -0,0 +1,108 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import net.mcarolan.craftinginterpreters.lox.value.NullValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import org.junit.jupiter.api.Test;
+
+class GlobalEnvironmentAdapterTest {
+
+  private final GlobalEnvironmentAdapter globals = new GlobalEnvironmentAdapter();
+
+  @Test
+  void symbolsAreDenseAndStable() {
+    final var symbols = new SymbolTable();
+
+    assertEquals(0, symbols.intern("a"));
+    assertEquals(1, symbols.intern("b"));
+    assertEquals(0, symbols.intern("a"));
+    assertEquals("b", symbols.name(1));
+    assertEquals(2, symbols.size());
+  }
+
+  @Test
+  void cellsAreSharedByNameAndSymbol() {
+    final var cell = globals.cell("a");
+
+    assertSame(cell, globals.cell("a"));
+    assertSame(cell, globals.cell(globals.symbols().intern("a")));
+
+    globals.define("a", new NumberValue(1));
+    assertEquals(new NumberValue(1), cell.get());
+    cell.assign(new NumberValue(2));
+    assertEquals(new NumberValue(2), globals.get("a"));
+  }
+
+  @Test
+  void environmentsOverOneTableShareItsSymbols() {
+    final var symbols = new SymbolTable();
+    final var symbol = symbols.intern("a");
+    final var first = new GlobalEnvironmentAdapter(symbols);
+    final var second = new GlobalEnvironmentAdapter(symbols);
+
+    first.defineGlobal(symbol, "a", new NumberValue(1));
+    second.define("a", new NumberValue(2));
+
+    assertEquals(new NumberValue(1), first.getGlobal(symbol, "a"));
+    assertEquals(new NumberValue(2), second.getGlobal(symbol, "a"));
+  }
+
+  @Test
+  void cellsOnlyCoverTheNamesOfTheirOwnTable() {
+    for (var i = 0; i < 1000; i++) {
+      new GlobalEnvironmentAdapter().define("v" + i, NullValue.VALUE);
+    }
+    final var symbols = new SymbolTable();
+    symbols.intern("a");
+    symbols.intern("b");
+
+    final var environment = new GlobalEnvironmentAdapter(symbols);
+    environment.define("b", NullValue.VALUE);
+
+    assertEquals(2, environment.capacity());
+    assertEquals(2, symbols.size());
+  }
+
+  @Test
+  void lookingUpAnUnknownNameCreatesNothing() {
+    final var onGet =
+        assertThrows(IllegalArgumentException.class, () -> globals.get("neverInterned"));
+    assertThrows(
+        IllegalArgumentException.class, () -> globals.assign("neverInterned", NullValue.VALUE));
+
+    assertEquals("Variable neverInterned not defined", onGet.getMessage());
+    assertEquals(-1, globals.symbols().find("neverInterned"));
+  }
+
+  @Test
+  void undefinedVariablesKeepTheirError() {
+    final var cell = globals.cell("missing");
+
+    final var onGet = assertThrows(IllegalArgumentException.class, cell::get);
+    assertEquals("Variable missing not defined", onGet.getMessage());
+    final var onAssign =
+        assertThrows(
+            IllegalArgumentException.class, () -> globals.assign("missing", new NumberValue(1)));
+    assertEquals("Variable missing not defined", onAssign.getMessage());
+  }
+
+  @Test
+  void valuesOnlyListsDefinedVariables() {
+    globals.cell("declaredLater");
+    globals.define("a", new NumberValue(1));
+
+    assertEquals(Map.of("a", new NumberValue(1)), globals.values());
+  }
+
+  @Test
+  void cellTableGrowsPastItsInitialSize() {
+    for (var i = 0; i < 1000; i++) {
+      globals.define("v" + i, new NumberValue(i));
+    }
+
+    assertEquals(new NumberValue(999), globals.get("v999"));
+    assertEquals(1000, globals.values().size());
+  }
+}
@@ -5,9 +5,15 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
+import net.mcarolan.craftinginterpreters.closure.ClosureInterpreter;
+import net.mcarolan.craftinginterpreters.flat.FlatInterpreter;
+import net.mcarolan.craftinginterpreters.flat.FlatParser;
 import net.mcarolan.craftinginterpreters.lox.value.*;
+import net.mcarolan.craftinginterpreters.optimizer.Optimizer;
 import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.resolver.Resolver;
 import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import net.mcarolan.craftinginterpreters.vm.VirtualMachine;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -72,6 +78,31 @@ class InterpreterTest {
     assertEquals(testCase.expectedValue, result);
   }
 
+  @ParameterizedTest
+  @MethodSource("provideExpressionTestCases")
+  void virtualMachineExpressionTestCases(ExpressionTestCase testCase) {
+    final var scanner = new Scanner(testCase.input);
+    final var parser = new Parser(scanner.scanTokens());
+    final var expression = parser.parseExpression();
+    final var virtualMachine = new VirtualMachine(new GlobalEnvironmentAdapter(), new StubIOPort());
+    final var result = virtualMachine.evaluateExpression(expression);
+
+    assertEquals(testCase.expectedValue, result);
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideExpressionTestCases")
+  void closureExpressionTestCases(ExpressionTestCase testCase) {
+    final var scanner = new Scanner(testCase.input);
+    final var parser = new Parser(scanner.scanTokens());
+    final var expression = parser.parseExpression();
+    final var interpreter =
+        new ClosureInterpreter(new GlobalEnvironmentAdapter(), new StubIOPort());
+    final var result = interpreter.evaluateExpression(expression);
+
+    assertEquals(testCase.expectedValue, result);
+  }
+
   private static Stream<ProgramTestCase> provideProgramTestCases() {
     return Stream.of(
         new ProgramTestCase("print \"one\";", List.of("one"), Map.of()),
@@ -169,6 +200,22 @@ class InterpreterTest {
                         """,
             List.of("0", "1", "2"),
             Map.of("i", new NumberValue(3))),
+        new ProgramTestCase(
+            """
+                        var a = 1;
+                        {
+                          var b = a + 1;
+                          {
+                            print a + b;
+                            b = b + 10;
+                            var a = a + 100;
+                            print a;
+                          }
+                          print b;
+                        }
+                        """,
+            List.of("3", "101", "12"),
+            Map.of("a", new NumberValue(1))),
         new ProgramTestCase(
             """
                         for (var i = 0; i < 3; i = i + 1) {
@@ -192,4 +239,74 @@ class InterpreterTest {
     assertEquals(testCase.expectedStandardOutput(), io.getStdout());
     assertEquals(testCase.expectedVariables, environment.values);
   }
+
+  @ParameterizedTest
+  @MethodSource("provideProgramTestCases")
+  void resolvedProgramTestCases(ProgramTestCase testCase) {
+    final var scanner = new Scanner(testCase.input);
+    final var parser = new Parser(scanner.scanTokens());
+    final var statements = new Resolver(new SymbolTable()).resolve(parser.parse());
+    final var environment = new DefaultEnvironmentAdapter();
+    final var io = new StubIOPort();
+    final var interpreter = new Interpreter(environment, io);
+    interpreter.interpret(statements);
+    assertEquals(testCase.expectedStandardOutput(), io.getStdout());
+    assertEquals(testCase.expectedVariables, environment.values);
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideProgramTestCases")
+  void optimizedProgramTestCases(ProgramTestCase testCase) {
+    final var scanner = new Scanner(testCase.input);
+    final var parser = new Parser(scanner.scanTokens());
+    final var environment = new GlobalEnvironmentAdapter();
+    final var statements =
+        new Resolver(environment.symbols()).resolve(new Optimizer().optimize(parser.parse()));
+    final var io = new StubIOPort();
+    final var interpreter = new Interpreter(environment, io);
+    interpreter.interpret(statements);
+    assertEquals(testCase.expectedStandardOutput(), io.getStdout());
+    assertEquals(testCase.expectedVariables, environment.values());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideProgramTestCases")
+  void virtualMachineProgramTestCases(ProgramTestCase testCase) {
+    final var scanner = new Scanner(testCase.input);
+    final var parser = new Parser(scanner.scanTokens());
+    final var statements = parser.parse();
+    final var environment = new GlobalEnvironmentAdapter();
+    final var io = new StubIOPort();
+    final var virtualMachine = new VirtualMachine(environment, io);
+    virtualMachine.interpret(statements);
+    assertEquals(testCase.expectedStandardOutput(), io.getStdout());
+    assertEquals(testCase.expectedVariables, environment.values());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideProgramTestCases")
+  void closureProgramTestCases(ProgramTestCase testCase) {
+    final var scanner = new Scanner(testCase.input);
+    final var parser = new Parser(scanner.scanTokens());
+    final var statements = parser.parse();
+    final var environment = new GlobalEnvironmentAdapter();
+    final var io = new StubIOPort();
+    final var interpreter = new ClosureInterpreter(environment, io);
+    interpreter.interpret(statements);
+    assertEquals(testCase.expectedStandardOutput(), io.getStdout());
+    assertEquals(testCase.expectedVariables, environment.values());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideProgramTestCases")
+  void flatProgramTestCases(ProgramTestCase testCase) {
+    final var scanner = new Scanner(testCase.input);
+    final var ast = new FlatParser(scanner.scanBuffer()).parse();
+    final var environment = new GlobalEnvironmentAdapter();
+    final var io = new StubIOPort();
+    final var interpreter = new FlatInterpreter(environment, io);
+    interpreter.interpret(ast);
+    assertEquals(testCase.expectedStandardOutput(), io.getStdout());
+    assertEquals(testCase.expectedVariables, environment.values());
+  }
 }
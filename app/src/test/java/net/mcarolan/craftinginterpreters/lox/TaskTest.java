@@ -0,0 +1,225 @@
+package net.mcarolan.craftinginterpreters.lox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class TaskTest {
+
+  private static List<String> run(BackendType backendType, String source) {
+    final var output = new CopyOnWriteArrayList<String>();
+    final var session = new Session(backendType, output::add);
+    session.execute(source);
+    session.awaitTasks();
+    return output;
+  }
+
+  @ParameterizedTest
+  @EnumSource(names = {"TREE_WALKER", "JIT"})
+  void fansOutAndIn(BackendType backendType) {
+    final var source =
+        """
+        var results = channel(2);
+        var i = 0;
+        while (i < 8) {
+          spawn {
+            var sum = 0;
+            var j = 0;
+            while (j < 100) { sum = sum + i; j = j + 1; }
+            send results, sum;
+          };
+          i = i + 1;
+        }
+        var total = 0;
+        while (i > 0) { total = total + receive results; i = i - 1; }
+        print total;
+        """;
+
+    assertEquals(List.of("2800"), run(backendType, source));
+  }
+
+  @ParameterizedTest
+  @EnumSource(names = {"TREE_WALKER", "JIT"})
+  void capturesCopiesWhenSpawned(BackendType backendType) {
+    final var source =
+        """
+        var go = channel(0);
+        var a = "before";
+        { var b = 1; var t = spawn { receive go; var b = b + 1; print a; print b; };
+          a = "after"; b = 10; send go, nil; await t; print a; print b; }
+        """;
+
+    assertEquals(List.of("before", "2", "after", "10"), run(backendType, source));
+  }
+
+  @Test
+  void capturesThroughNestedTasks() {
+    final var source = "{ var a = 1; await spawn { var b = 2; await spawn { print a + b; }; }; }";
+
+    assertEquals(List.of("3"), run(BackendType.TREE_WALKER, source));
+  }
+
+  @Test
+  void handsOverOnAnUnbufferedChannel() {
+    final var source =
+        """
+        var ping = channel(0);
+        var pong = channel(0);
+        var t = spawn {
+          var n = receive ping;
+          while (n < 5) { send pong, n + 1; n = receive ping; }
+        };
+        var n = 0;
+        while (n < 5) { send ping, n; n = receive pong; print n; }
+        send ping, n;
+        print await t;
+        """;
+
+    assertEquals(List.of("1", "2", "3", "4", "5", "nil"), run(BackendType.TREE_WALKER, source));
+  }
+
+  @Test
+  void awaitingAFailedTaskRaisesItsError() {
+    final var error =
+        assertThrows(
+            InterpreterException.class,
+            () -> run(BackendType.TREE_WALKER, "var t = spawn {\n print -\"x\"; };\nawait t;"));
+
+    assertEquals("Line 2: Minus only supported for number values", error.getMessage());
+  }
+
+  @Test
+  void waitsForTasksNobodyAwaited() {
+    final var source =
+        """
+        spawn {
+          spawn {
+            var i = 0;
+            while (i < 10000) { i = i + 1; }
+            print i;
+          };
+        };
+        """;
+
+    assertEquals(List.of("10000"), run(BackendType.TREE_WALKER, source));
+  }
+
+  @Test
+  void aFailedTaskNobodyAwaitedFailsTheRun() {
+    final var error =
+        assertThrows(
+            InterpreterException.class,
+            () -> run(BackendType.TREE_WALKER, "spawn {\n print -\"x\"; };"));
+
+    assertEquals("Line 2: Minus only supported for number values", error.getMessage());
+  }
+
+  @Test
+  void aFailureIsRaisedOnlyOnce() {
+    final var session = new Session(BackendType.TREE_WALKER, ignored -> {});
+    session.execute("var t = spawn { print -\"x\"; };");
+    assertThrows(InterpreterException.class, () -> session.execute("await t;"));
+
+    session.awaitTasks();
+  }
+
+  @Test
+  void rejectsTheWrongValues() {
+    assertEquals(
+        "Line 1: Send only supported for channel values",
+        assertThrows(InterpreterException.class, () -> run(BackendType.TREE_WALKER, "send 1, 2;"))
+            .getMessage());
+    assertEquals(
+        "Line 1: Receive only supported for channel values",
+        assertThrows(InterpreterException.class, () -> run(BackendType.TREE_WALKER, "receive nil;"))
+            .getMessage());
+    assertEquals(
+        "Line 1: Await only supported for task values",
+        assertThrows(
+                InterpreterException.class, () -> run(BackendType.TREE_WALKER, "await channel(1);"))
+            .getMessage());
+    assertEquals(
+        "Line 1: Channel capacity must be a whole number from 0",
+        assertThrows(
+                InterpreterException.class, () -> run(BackendType.TREE_WALKER, "channel(1.5);"))
+            .getMessage());
+  }
+
+  @Test
+  void capturingAnUndefinedGlobalFailsWhenSpawning() {
+    final var error =
+        assertThrows(
+            InterpreterException.class,
+            () -> run(BackendType.TREE_WALKER, "var t = spawn { print missing; };"));
+
+    assertEquals("Line 1: Failed to evaluate variable", error.getMessage());
+  }
+
+  @Test
+  void cancellingTheRunStopsItsTasks() {
+    final var budget = ExecutionBudget.unlimited();
+    final var session = new Session(BackendType.TREE_WALKER, ignored -> {}, budget);
+    session.execute("var t = spawn { while (true) {} };");
+    budget.cancel();
+
+    final var error =
+        assertThrows(ExecutionLimitException.class, () -> session.execute("await t;"));
+
+    assertEquals(ExecutionLimitException.Limit.CANCELLED, error.limit());
+  }
+
+  @Test
+  void aBlockedReceiveStopsAtTheTimeLimit() {
+    final var limits = ExecutionLimits.none().withTimeout(Duration.ofMillis(100));
+    final var session =
+        new Session(BackendType.TREE_WALKER, ignored -> {}, new ExecutionBudget(limits));
+
+    final var error =
+        assertThrows(ExecutionLimitException.class, () -> session.execute("receive channel(0);"));
+
+    assertEquals(ExecutionLimitException.Limit.TIME, error.limit());
+  }
+
+  @Test
+  void cancellingTheRunStopsABlockedSend() throws InterruptedException {
+    final var budget = ExecutionBudget.unlimited();
+    final var session = new Session(BackendType.TREE_WALKER, ignored -> {}, budget);
+    final var failure = new AtomicReference<RuntimeException>();
+    final var sender =
+        Thread.ofVirtual()
+            .start(
+                () -> {
+                  try {
+                    session.execute("send channel(0), 1;");
+                  } catch (RuntimeException e) {
+                    failure.set(e);
+                  }
+                });
+
+    Thread.sleep(50);
+    budget.cancel();
+    sender.join();
+
+    final var error = assertInstanceOf(ExecutionLimitException.class, failure.get());
+    assertEquals(ExecutionLimitException.Limit.CANCELLED, error.limit());
+  }
+
+  @ParameterizedTest
+  @EnumSource(names = {"CLOSURE", "VM"})
+  void otherBackendsRejectTasks(BackendType backendType) {
+    final var error =
+        assertThrows(CompilerException.class, () -> run(backendType, "var c = channel(1);"));
+
+    assertEquals(
+        "Line 1: Tasks and channels are only supported by the tree-walking backends",
+        error.getMessage());
+  }
+}
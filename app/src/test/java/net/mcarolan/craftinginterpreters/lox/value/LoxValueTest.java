@@ -35,4 +35,55 @@ class LoxValueTest {
   void stringifyNumberDecimal() {
     assertEquals("1.1", new NumberValue(1.1).stringify());
   }
+
+  @Test
+  void numberOfReusesSmallIntegers() {
+    assertSame(NumberValue.of(42), NumberValue.of(42.0));
+    assertSame(NumberValue.of(-128), NumberValue.of(-128));
+  }
+
+  @Test
+  void numberOfAllocatesOutsideTheCache() {
+    assertEquals(new NumberValue(1.5), NumberValue.of(1.5));
+    assertEquals(new NumberValue(1_000_000), NumberValue.of(1_000_000));
+  }
+
+  @Test
+  void numberOfKeepsNegativeZero() {
+    assertEquals(new NumberValue(-0.0), NumberValue.of(-0.0));
+    assertNotEquals(NumberValue.of(0.0), NumberValue.of(-0.0));
+  }
+
+  @Test
+  void concatenatedStringsFlattenWhenObserved() {
+    var value = new StringValue("");
+    final var expected = new StringBuilder();
+    for (var i = 0; i < 1000; i++) {
+      value = value.concat(new StringValue(Integer.toString(i)));
+      expected.append(i);
+    }
+
+    assertEquals(expected.length(), value.length());
+    assertEquals(expected.toString(), value.stringify());
+  }
+
+  @Test
+  void concatenatedStringsCompareByContents() {
+    final var longString = "x".repeat(100);
+    final var rope = new StringValue(longString).concat(new StringValue("y"));
+
+    assertEquals(new StringValue(longString + "y"), rope);
+    assertEquals(new StringValue(longString + "y").hashCode(), rope.hashCode());
+    assertNotEquals(new StringValue(longString), rope);
+  }
+
+  @Test
+  void flatteningDeepRopesDoesNotOverflowTheStack() {
+    var value = new StringValue("x".repeat(100));
+    for (var i = 0; i < 200_000; i++) {
+      value = new StringValue("y").concat(value);
+    }
+
+    assertEquals(200_100, value.stringify().length());
+  }
 }
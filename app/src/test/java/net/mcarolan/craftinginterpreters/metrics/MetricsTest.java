@@ -0,0 +1,121 @@
+package net.mcarolan.craftinginterpreters.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.Session;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.scanner.MappedSourceReader;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+// Metrics are switched on or off once per JVM, so the build runs this tag in a JVM of its own with
+// the lox.metrics system property set, and everything else with metrics off.
+@Tag("metrics")
+class MetricsTest {
+
+  private final List<String> output = new ArrayList<>();
+
+  @BeforeEach
+  void enabledAndReset() {
+    assertTrue(Metrics.ENABLED);
+    Metrics.reset();
+  }
+
+  private static long count(Metrics.Counter counter) {
+    return Metrics.snapshot().counters().get(counter);
+  }
+
+  @Test
+  void countsTokensAndNodes() {
+    new Parser(new Scanner("var a = 1; print -a;").scanTokens()).parse();
+
+    assertEquals(10, count(Metrics.Counter.TOKENS));
+    // Var and its literal, then Print, Unary and Variable.
+    assertEquals(5, count(Metrics.Counter.AST_NODES));
+    assertTrue(Metrics.snapshot().phases().get(Metrics.Phase.SCAN).toNanos() > 0);
+  }
+
+  @Test
+  void countsValuesAllocatedOutsideTheSharedConstants() {
+    final var session = new Session(BackendType.TREE_WALKER, output::add);
+    Metrics.reset();
+
+    session.execute("var n = 1; var s = \"a\"; n = n + 2000; s = s + \"b\"; print n; print s;");
+
+    assertEquals(List.of("2001", "ab"), output);
+    // 2000 when scanned and 2001 when computed, while 1 comes from the small number cache.
+    assertEquals(2, count(Metrics.Counter.NUMBER_VALUES));
+    // Both literals and their concatenation.
+    assertEquals(3, count(Metrics.Counter.STRING_VALUES));
+  }
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void countsLookupsAndScopeDepth(BackendType backendType) {
+    new Session(backendType, output::add)
+        .execute("var g = 1; { var a = 2; { var b = 3; { print a + b + g; } } }");
+
+    assertEquals(List.of("6"), output);
+    assertEquals(3, count(Metrics.Counter.ENVIRONMENT_LOOKUPS));
+    assertEquals(3, Metrics.snapshot().maxScopeDepth());
+  }
+
+  @Test
+  void countsHopsUpToTheScopeThatDefinesAVariable() {
+    new Session(BackendType.TREE_WALKER, output::add)
+        .execute("{ var a = 1; { var b = 2; { var c = 3; print a + b + c; } } }");
+
+    assertEquals(List.of("6"), output);
+    assertEquals(3, count(Metrics.Counter.SCOPE_HOPS));
+  }
+
+  @Test
+  void tellsListenersAboutEachPhaseOnce() {
+    final var phases = new ArrayList<Metrics.Phase>();
+    final MetricsListener listener = (phase, elapsed) -> phases.add(phase);
+    Metrics.addListener(listener);
+    try {
+      new Session(BackendType.CLOSURE, output::add).execute("print 1; print 2;");
+    } finally {
+      Metrics.removeListener(listener);
+    }
+
+    assertEquals(
+        EnumSet.of(
+            Metrics.Phase.SCAN,
+            Metrics.Phase.PARSE,
+            Metrics.Phase.OPTIMIZE,
+            Metrics.Phase.RESOLVE,
+            Metrics.Phase.INTERPRET),
+        EnumSet.copyOf(phases));
+    assertEquals(5, phases.size());
+    assertTrue(
+        Metrics.snapshot().phases().values().stream()
+            .allMatch(elapsed -> elapsed.compareTo(Duration.ZERO) >= 0));
+  }
+
+  @Test
+  void chargesScanningAndParsingOfAFileToTheirOwnPhases() throws IOException {
+    final var script = Files.createTempDirectory("metrics").resolve("script.lox");
+    Files.writeString(script, "var a = 1;\nwhile (a < 100) { a = a + 1; }\nprint a;\n");
+
+    new Session(BackendType.TREE_WALKER, output::add)
+        .execute(new Scanner(MappedSourceReader.open(script)));
+
+    assertEquals(List.of("100"), output);
+    final var phases = Metrics.snapshot().phases();
+    assertTrue(phases.get(Metrics.Phase.SCAN).toNanos() > 0);
+    assertTrue(phases.get(Metrics.Phase.PARSE).toNanos() > 0);
+  }
+}
@@ -0,0 +1,95 @@
+package net.mcarolan.craftinginterpreters.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import net.mcarolan.craftinginterpreters.ast.expression.*;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.lox.value.BooleanValue;
+import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.lox.value.StringValue;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.Test;
+
+class OptimizerTest {
+
+  private static List<Statement> optimize(String source) {
+    final var parser = new Parser(new Scanner(source).scanTokens());
+    return new Optimizer().optimize(parser.parse());
+  }
+
+  private static Expression printed(String source) {
+    final var statements = optimize(source);
+    assertEquals(1, statements.size());
+    return assertInstanceOf(Print.class, statements.get(0)).expression();
+  }
+
+  @Test
+  void foldsArithmetic() {
+    assertEquals(
+        List.of(new Print(new Literal(new NumberValue(86400), 1))),
+        optimize("print 60 * 60 * 24;"));
+  }
+
+  @Test
+  void foldsThroughGroupingsAndUnaries() {
+    assertEquals(new Literal(new NumberValue(-9), 1), printed("print -(1 + 2) * (4 - 1);"));
+    assertEquals(new Literal(BooleanValue.TRUE, 1), printed("print !nil;"));
+  }
+
+  @Test
+  void foldsComparisonsEqualityAndConcatenation() {
+    assertEquals(new Literal(BooleanValue.TRUE, 1), printed("print 1 < 2;"));
+    assertEquals(new Literal(BooleanValue.FALSE, 1), printed("print \"a\" == 1;"));
+    assertEquals(new Literal(new StringValue("ab"), 1), printed("print \"a\" + \"b\";"));
+  }
+
+  @Test
+  void leavesFailingOperationsForRunTime() {
+    assertInstanceOf(Binary.class, printed("print 1 / 0;"));
+    assertInstanceOf(Binary.class, printed("print \"a\" + 1;"));
+    assertInstanceOf(Binary.class, printed("print 1 < \"b\";"));
+    assertInstanceOf(Unary.class, printed("print -\"a\";"));
+  }
+
+  @Test
+  void simplifiesNumericIdentities() {
+    assertInstanceOf(Unary.class, printed("print -a * 1;"));
+    assertInstanceOf(Unary.class, printed("print 1 * -a;"));
+    assertInstanceOf(Unary.class, printed("print -a - 0;"));
+    assertInstanceOf(Unary.class, printed("print -a / 1;"));
+  }
+
+  @Test
+  void keepsIdentitiesThatChangeSemantics() {
+    assertInstanceOf(Binary.class, printed("print a * 1;"));
+    assertInstanceOf(Binary.class, printed("print -a + 0;"));
+    assertInstanceOf(Binary.class, printed("print -a - -0;"));
+  }
+
+  @Test
+  void foldsLogicalOperatorsWithLiteralLeftOperand() {
+    assertEquals(new Literal(new NumberValue(1), 1), printed("print 1 or a;"));
+    assertInstanceOf(Variable.class, printed("print nil or a;"));
+    assertInstanceOf(Variable.class, printed("print true and a;"));
+    assertEquals(new Literal(BooleanValue.FALSE, 1), printed("print false and a;"));
+  }
+
+  @Test
+  void removesUnreachableCode() {
+    assertEquals(List.of(), optimize("if (false) { print 1; } while (nil) print 2; 3;"));
+    assertEquals(
+        List.of(new Block(List.of(new Print(new Literal(new NumberValue(2), 1))))),
+        optimize("if (1 > 2) { print 1; } else { print 2; }"));
+  }
+
+  @Test
+  void keepsEmptyBranchesThatAreStillNeeded() {
+    final var statements = optimize("if (a) { if (false) print 1; } else print 2;");
+
+    final var anIf = assertInstanceOf(If.class, statements.get(0));
+    assertEquals(new Block(List.of()), anIf.thenBranch());
+    assertTrue(anIf.elseBranch().isPresent());
+  }
+}
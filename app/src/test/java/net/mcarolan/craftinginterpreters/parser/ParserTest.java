@@ -5,7 +5,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.List;
 import net.mcarolan.craftinginterpreters.ast.expression.Binary;
 import net.mcarolan.craftinginterpreters.ast.expression.Literal;
+import net.mcarolan.craftinginterpreters.ast.statement.Print;
+import net.mcarolan.craftinginterpreters.lox.ScannerException;
 import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
 import net.mcarolan.craftinginterpreters.scanner.ScannerFixtures;
 import net.mcarolan.craftinginterpreters.scanner.Token;
 import net.mcarolan.craftinginterpreters.scanner.TokenType;
@@ -36,4 +39,35 @@ class ParserTest extends ScannerFixtures {
     final var parser = new Parser(tokens);
     assertEquals(expected, parser.parseExpression());
   }
+
+  @Test
+  void nextParsesOneDeclarationWithoutScanningAhead() {
+    final var parser = new Parser(new ScannerTokenStream(new Scanner("print 1; print 2; @")));
+
+    assertEquals(new Print(new Literal(new NumberValue(1.0), 1)), parser.next().orElseThrow());
+    assertEquals(new Print(new Literal(new NumberValue(2.0), 1)), parser.next().orElseThrow());
+    assertThrows(ScannerException.class, parser::next);
+  }
+
+  @Test
+  void nextIsEmptyAtTheEnd() {
+    final var parser = new Parser(new ScannerTokenStream(new Scanner("print 1;")));
+
+    assertTrue(parser.next().isPresent());
+    assertTrue(parser.next().isEmpty());
+  }
+
+  @Test
+  void parsingFromATokenBufferMatchesParsingTokens() {
+    final var source =
+        """
+        var a = 1.5;
+        while (a < 10) { a = a * 2; print "a is " + a; }
+        if (!(a >= 3) or nil) print false; else print -a;
+        """;
+
+    assertEquals(
+        new Parser(new Scanner(source).scanTokens()).parse(),
+        new Parser(new Scanner(source).scanBuffer()).parse());
+  }
 }
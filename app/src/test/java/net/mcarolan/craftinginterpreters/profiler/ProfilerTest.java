@@ -0,0 +1,107 @@
+package net.mcarolan.craftinginterpreters.profiler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import net.mcarolan.craftinginterpreters.BackendType;
+import net.mcarolan.craftinginterpreters.Session;
+import net.mcarolan.craftinginterpreters.lox.ExecutionBudget;
+import net.mcarolan.craftinginterpreters.lox.InterpreterException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ProfilerTest {
+
+  private static final String LOOP =
+      """
+      var i = 0;
+      while (i < 5) {
+        print i;
+        i = i + 1;
+      }
+      """;
+
+  private Profiler profile(BackendType backendType, Profiler.Mode mode, String source) {
+    final var profiler = new Profiler(mode, Duration.ofMillis(1)).start();
+    try (profiler) {
+      new Session(backendType, ignored -> {}, ExecutionBudget.unlimited(), profiler)
+          .execute(source);
+    }
+    return profiler;
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"TREE_WALKER", "CLOSURE"})
+  void countsHitsAlongEachPath(String backend) {
+    final var profiler = profile(BackendType.valueOf(backend), Profiler.Mode.EXACT, LOOP);
+
+    assertEquals(
+        List.of(
+            "var:1",
+            "while:2",
+            "while:2;block:3",
+            "while:2;block:3;expression:4",
+            "while:2;block:3;print:3"),
+        allPaths(profiler));
+    final var prints =
+        profiler.frames().stream()
+            .filter(frame -> Profiler.name(frame.statement()).equals("print:3"))
+            .toList();
+    assertEquals(1, prints.size());
+    assertEquals(5, prints.get(0).hits());
+  }
+
+  private static List<String> allPaths(Profiler profiler) {
+    return profiler.frames().stream()
+        .map(
+            frame ->
+                String.join(
+                    ";",
+                    Profiler.path(frame).stream()
+                        .map(at -> Profiler.name(at.statement()))
+                        .toList()))
+        .sorted()
+        .toList();
+  }
+
+  @Test
+  void exactTotalsIncludeEverythingBelow() {
+    final var profiler = profile(BackendType.TREE_WALKER, Profiler.Mode.EXACT, LOOP);
+
+    for (final var frame : profiler.frames()) {
+      final var children = frame.children().stream().mapToLong(Profiler.Frame::totalNanos).sum();
+      assertTrue(frame.totalNanos() >= frame.selfNanos());
+      assertEquals(frame.totalNanos(), frame.selfNanos() + children);
+    }
+  }
+
+  @Test
+  void samplingChargesTheRunningStatements() {
+    final var profiler =
+        profile(
+            BackendType.CLOSURE,
+            Profiler.Mode.SAMPLING,
+            "var i = 0; while (i < 2000000) { i = i + 1; }");
+
+    final var samples = profiler.frames().stream().mapToLong(Profiler.Frame::samples).sum();
+    assertTrue(samples > 0);
+    assertTrue(new ProfileReport(profiler).top(5).get(0).startsWith("Profile (sampling)"));
+  }
+
+  @Test
+  void failingStatementsStillExit() {
+    final var profiler = new Profiler(Profiler.Mode.EXACT).start();
+    final var session =
+        new Session(BackendType.TREE_WALKER, ignored -> {}, ExecutionBudget.unlimited(), profiler);
+
+    assertThrows(InterpreterException.class, () -> session.execute("{ { print missing; } }"));
+    session.execute("print 1;");
+    profiler.close();
+
+    assertEquals(
+        List.of("block:1", "block:1;block:1", "block:1;block:1;print:1", "print:1"),
+        allPaths(profiler));
+  }
+}
@@ -0,0 +1,134 @@
+package net.mcarolan.craftinginterpreters.resolver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import net.mcarolan.craftinginterpreters.ast.expression.GlobalAssign;
+import net.mcarolan.craftinginterpreters.ast.expression.GlobalVariable;
+import net.mcarolan.craftinginterpreters.ast.expression.LocalVariable;
+import net.mcarolan.craftinginterpreters.ast.expression.Spawn;
+import net.mcarolan.craftinginterpreters.ast.statement.*;
+import net.mcarolan.craftinginterpreters.lox.ResolverException;
+import net.mcarolan.craftinginterpreters.lox.SymbolTable;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.Test;
+
+class ResolverTest {
+
+  private final SymbolTable symbols = new SymbolTable();
+
+  private List<Statement> resolve(String source) {
+    final var parser = new Parser(new Scanner(source).scanTokens());
+    return new Resolver(symbols).resolve(parser.parse());
+  }
+
+  @Test
+  void globalsCarryTheirSymbolInTheGivenTable() {
+    final var statements = resolve("var a = 1; print a; a = 2;");
+    final var symbol = symbols.find("a");
+
+    assertEquals(symbol, assertInstanceOf(GlobalVar.class, statements.get(0)).symbol());
+    final var print = assertInstanceOf(Print.class, statements.get(1));
+    assertEquals(symbol, assertInstanceOf(GlobalVariable.class, print.expression()).symbol());
+    final var assign = assertInstanceOf(ExpressionStatement.class, statements.get(2));
+    assertEquals(symbol, assertInstanceOf(GlobalAssign.class, assign.expression()).symbol());
+  }
+
+  @Test
+  void localsAreAddressedByDepthAndSlot() {
+    final var statements = resolve("{ var a = 1; var b = 2; { var c = 3; print a; print c; } }");
+
+    final var outer = assertInstanceOf(ScopedBlock.class, statements.get(0));
+    assertEquals(2, outer.slotCount());
+    assertEquals(1, assertInstanceOf(LocalVar.class, outer.statementList().get(1)).slot());
+
+    final var inner = assertInstanceOf(ScopedBlock.class, outer.statementList().get(2));
+    assertEquals(1, inner.slotCount());
+    final var printA = assertInstanceOf(Print.class, inner.statementList().get(1));
+    final var a = assertInstanceOf(LocalVariable.class, printA.expression());
+    assertEquals(1, a.depth());
+    assertEquals(0, a.slot());
+    final var printC = assertInstanceOf(Print.class, inner.statementList().get(2));
+    final var c = assertInstanceOf(LocalVariable.class, printC.expression());
+    assertEquals(0, c.depth());
+    assertEquals(0, c.slot());
+  }
+
+  @Test
+  void blocksWithoutDeclarationsDoNotCountTowardsDepth() {
+    final var statements = resolve("{ var a = 1; { { print a; } } }");
+
+    final var outer = assertInstanceOf(ScopedBlock.class, statements.get(0));
+    final var middle = assertInstanceOf(ScopedBlock.class, outer.statementList().get(1));
+    assertEquals(0, middle.slotCount());
+    final var inner = assertInstanceOf(ScopedBlock.class, middle.statementList().get(0));
+    assertEquals(0, inner.slotCount());
+    final var print = assertInstanceOf(Print.class, inner.statementList().get(0));
+    assertEquals(0, assertInstanceOf(LocalVariable.class, print.expression()).depth());
+  }
+
+  @Test
+  void initialiserSeesTheEnclosingDeclaration() {
+    final var statements = resolve("{ var a = 1; { var a = a; } }");
+
+    final var outer = assertInstanceOf(ScopedBlock.class, statements.get(0));
+    final var inner = assertInstanceOf(ScopedBlock.class, outer.statementList().get(1));
+    final var var = assertInstanceOf(LocalVar.class, inner.statementList().get(0));
+    assertEquals(1, assertInstanceOf(LocalVariable.class, var.initialiser()).depth());
+  }
+
+  @Test
+  void redeclarationReusesTheSlot() {
+    final var statements = resolve("{ var a = 1; var a = 2; }");
+
+    final var block = assertInstanceOf(ScopedBlock.class, statements.get(0));
+    assertEquals(1, block.slotCount());
+  }
+
+  private static Spawn spawnIn(Statement statement) {
+    final var expression = assertInstanceOf(ExpressionStatement.class, statement);
+    return assertInstanceOf(Spawn.class, expression.expression());
+  }
+
+  @Test
+  void spawnedBlocksCaptureWhatTheyReadFromOutside() {
+    final var statements = resolve("var g = 1; { var a = 2; spawn { var b = a; print g + a; }; }");
+
+    final var outer = assertInstanceOf(ScopedBlock.class, statements.get(1));
+    final var spawn = spawnIn(outer.statementList().get(1));
+    assertEquals(2, spawn.captures().size());
+    final var a = assertInstanceOf(LocalVariable.class, spawn.captures().get(0));
+    assertEquals(0, a.depth());
+    assertInstanceOf(GlobalVariable.class, spawn.captures().get(1));
+
+    final var body = assertInstanceOf(ScopedBlock.class, spawn.body());
+    final var b = assertInstanceOf(LocalVar.class, body.statementList().get(0));
+    final var copy = assertInstanceOf(LocalVariable.class, b.initialiser());
+    assertEquals(1, copy.depth());
+    assertEquals(0, copy.slot());
+  }
+
+  @Test
+  void nestedSpawnsCaptureThroughEachTask() {
+    final var statements = resolve("{ var a = 1; spawn { spawn { print a; }; }; }");
+
+    final var outer = assertInstanceOf(ScopedBlock.class, statements.get(0));
+    final var first = spawnIn(outer.statementList().get(1));
+    assertInstanceOf(LocalVariable.class, first.captures().get(0));
+    final var body = assertInstanceOf(ScopedBlock.class, first.body());
+    final var second = spawnIn(body.statementList().get(0));
+    final var copy = assertInstanceOf(LocalVariable.class, second.captures().get(0));
+    assertEquals(0, copy.depth());
+  }
+
+  @Test
+  void capturedVariablesCannotBeAssigned() {
+    final var error =
+        assertThrows(ResolverException.class, () -> resolve("var a = 1;\nspawn { a = 2; };"));
+
+    assertEquals(
+        "Line 2: Variable a is captured by a spawned task and cannot be assigned",
+        error.getMessage());
+  }
+}
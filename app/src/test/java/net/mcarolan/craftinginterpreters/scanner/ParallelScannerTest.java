@@ -0,0 +1,84 @@
+package net.mcarolan.craftinginterpreters.scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import net.mcarolan.craftinginterpreters.lox.ScannerException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ParallelScannerTest extends ScannerFixtures {
+
+  private static final List<String> FRAGMENTS =
+      List.of(
+          "var x = 1.5;",
+          "print x + 2;",
+          " ",
+          "\n",
+          "\n\n",
+          "\"",
+          "\"text\"",
+          "\"two\nlines\"",
+          "// a comment \" with a quote",
+          "//",
+          "{ if (x >= 2) print \"y\"; }",
+          "and or while",
+          "12345678901234567890",
+          "ünïcödé",
+          "/",
+          "!=");
+
+  // Its worker threads are daemons, so the pool needs no shutting down.
+  private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+  private static Object scan(String source) {
+    try {
+      return new Scanner(source).scanTokens();
+    } catch (ScannerException e) {
+      return e.getMessage();
+    }
+  }
+
+  private static Object scanInParallel(String source, int chunkSize) {
+    try {
+      return new ParallelScanner(source, POOL, chunkSize).scanTokens();
+    } catch (ScannerException e) {
+      return e.getMessage();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 5, 32, 1024})
+  void matchesTheSequentialScanner(int chunkSize) {
+    final var random = new Random(chunkSize);
+    for (var i = 0; i < 500; i++) {
+      final var source = new StringBuilder();
+      final var length = random.nextInt(40);
+      for (var j = 0; j < length; j++) {
+        source.append(FRAGMENTS.get(random.nextInt(FRAGMENTS.size())));
+      }
+
+      final var text = source.toString();
+      assertEquals(scan(text), scanInParallel(text, chunkSize), text);
+    }
+  }
+
+  @Test
+  void joinsAStringThatSpansManyChunks() {
+    final var source = "print \"" + "line\n".repeat(100) + "\";\nprint 1;";
+
+    final var tokens = new ParallelScanner(source, POOL, 8).scanTokens();
+
+    assertEquals(new Scanner(source).scanTokens(), tokens);
+    assertEquals(1, tokens.get(1).lineStart());
+    assertEquals(101, tokens.get(1).lineEnd());
+  }
+
+  @Test
+  void scansAnEmptySource() {
+    assertEquals(List.of(eof(1)), new ParallelScanner("", POOL, 4).scanTokens());
+  }
+}
@@ -2,12 +2,21 @@ package net.mcarolan.craftinginterpreters.scanner;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import net.mcarolan.craftinginterpreters.lox.value.NumberValue;
 import net.mcarolan.craftinginterpreters.lox.value.StringValue;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class ScannerTest extends ScannerFixtures {
 
@@ -128,7 +137,18 @@ class ScannerTest extends ScannerFixtures {
         new TokenTestCase("TRUE", List.of(new Token(TokenType.TRUE, "TRUE", null, 1, 1), eof(1))),
         new TokenTestCase("VAR", List.of(new Token(TokenType.VAR, "VAR", null, 1, 1), eof(1))),
         new TokenTestCase(
-            "WHILE", List.of(new Token(TokenType.WHILE, "WHILE", null, 1, 1), eof(1))));
+            "WHILE", List.of(new Token(TokenType.WHILE, "WHILE", null, 1, 1), eof(1))),
+        new TokenTestCase(
+            "AWAIT", List.of(new Token(TokenType.AWAIT, "AWAIT", null, 1, 1), eof(1))),
+        new TokenTestCase(
+            "CHANNEL", List.of(new Token(TokenType.CHANNEL, "CHANNEL", null, 1, 1), eof(1))),
+        new TokenTestCase(
+            "RECEIVE", List.of(new Token(TokenType.RECEIVE, "RECEIVE", null, 1, 1), eof(1))),
+        new TokenTestCase("SEND", List.of(new Token(TokenType.SEND, "SEND", null, 1, 1), eof(1))),
+        new TokenTestCase(
+            "SPAWN", List.of(new Token(TokenType.SPAWN, "SPAWN", null, 1, 1), eof(1))),
+        new TokenTestCase(
+            "channels", List.of(new Token(TokenType.IDENTIFIER, "channels", null, 1, 1), eof(1))));
   }
 
   @ParameterizedTest
@@ -137,4 +157,128 @@ class ScannerTest extends ScannerFixtures {
     final var scanner = new Scanner(testCase.source);
     assertEquals(testCase.expectedTokens, scanner.scanTokens());
   }
+
+  @ParameterizedTest
+  @MethodSource("provideTokenTestCases")
+  void streamingTokenTestCases(TokenTestCase testCase) {
+    final var scanner = new Scanner(new TrickleReader(testCase.source));
+    assertEquals(testCase.expectedTokens, scanner.scanTokens());
+  }
+
+  @Test
+  void streamingLexemesMayOutgrowTheBuffer() {
+    final var contents = "x".repeat(100_000);
+    final var source = "\"" + contents + "\" ;";
+    final var scanner = new Scanner(new StringReader(source));
+
+    assertEquals(
+        new Token(TokenType.STRING, "\"" + contents + "\"", new StringValue(contents), 1, 1),
+        scanner.nextToken());
+    assertEquals(TokenType.SEMICOLON, scanner.nextToken().type());
+    assertEquals(eof(1), scanner.nextToken());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTokenTestCases")
+  void mappedTokenTestCases(TokenTestCase testCase) {
+    final var scanner = new Scanner(mapped(testCase.source));
+    assertEquals(testCase.expectedTokens, scanner.scanTokens());
+  }
+
+  @Test
+  void mappedScanningDecodesUtf8LikeAString() {
+    final var source = "var café = \"naïve ☃ \uD83D\uDE00\";\nprint über; // ẞ";
+
+    assertEquals(new Scanner(source).scanTokens(), new Scanner(mapped(source)).scanTokens());
+  }
+
+  @Test
+  void mappedScanningReplacesMalformedBytes() {
+    final var bytes = new byte[] {'"', (byte) 0xC3, '"'};
+    final var token = new Scanner(new MappedSourceReader(ByteBuffer.wrap(bytes))).nextToken();
+
+    assertEquals(new StringValue("\uFFFD"), token.literal());
+  }
+
+  @Test
+  void mappedScanningReadsFiles() throws IOException {
+    final var file = Files.createTempFile("scanner", ".lox");
+    try {
+      Files.writeString(file, "print \"é\";");
+      final var tokens = new Scanner(MappedSourceReader.open(file)).scanTokens();
+
+      assertEquals(new Scanner("print \"é\";").scanTokens(), tokens);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static MappedSourceReader mapped(String source) {
+    return new MappedSourceReader(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideTokenTestCases")
+  void bufferedTokenTestCases(TokenTestCase testCase) {
+    final var buffer = new Scanner(testCase.source).scanBuffer();
+    final var tokens = IntStream.range(0, buffer.size()).mapToObj(buffer::token).toList();
+    assertEquals(testCase.expectedTokens, tokens);
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "0",
+        "007",
+        "0.1",
+        "2.5",
+        "123456789012345",
+        "1234567890123456789",
+        "3.14159265358979",
+        "0.000000000000001",
+        "9007199254740993",
+        "1.7976931348623157"
+      })
+  void numbersMatchTheGeneralParser(String literal) {
+    final var buffer = new Scanner(literal).scanBuffer();
+
+    assertEquals(Double.parseDouble(literal), buffer.number(0));
+    assertEquals(literal, buffer.lexeme(0));
+  }
+
+  @Test
+  void keywordsAreCaseInsensitive() {
+    final var buffer = new Scanner("VAR Print wHiLe variable fo forr th").scanBuffer();
+
+    assertEquals(TokenType.VAR, buffer.type(0));
+    assertEquals("VAR", buffer.lexeme(0));
+    assertEquals(TokenType.PRINT, buffer.type(1));
+    assertEquals(TokenType.WHILE, buffer.type(2));
+    for (var i = 3; i < 7; i++) {
+      assertEquals(TokenType.IDENTIFIER, buffer.type(i));
+    }
+    assertEquals(TokenType.EOF, buffer.type(7));
+  }
+
+  // Hands out one character per read, so every lookahead crosses a refill.
+  private static final class TrickleReader extends Reader {
+    private final String source;
+    private int position = 0;
+
+    TrickleReader(String source) {
+      this.source = source;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+      if (position >= source.length()) {
+        return -1;
+      }
+      buffer[offset] = source.charAt(position++);
+      return 1;
+    }
+
+    @Override
+    public void close() {}
+  }
 }
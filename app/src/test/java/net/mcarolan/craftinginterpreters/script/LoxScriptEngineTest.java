@@ -0,0 +1,140 @@
+package net.mcarolan.craftinginterpreters.script;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.script.Compilable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
+import net.mcarolan.craftinginterpreters.BackendType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class LoxScriptEngineTest {
+
+  private static final String NEWLINE = System.lineSeparator();
+
+  @Test
+  void isDiscoverableByName() {
+    final var engine = new ScriptEngineManager().getEngineByName("lox");
+
+    assertInstanceOf(LoxScriptEngine.class, engine);
+  }
+
+  @ParameterizedTest
+  @EnumSource(BackendType.class)
+  void bindingsFlowInAndOutOfTheScript(BackendType backendType) throws ScriptException {
+    final var engine =
+        new LoxScriptEngineFactory(backendType, new ProgramCache()).getScriptEngine();
+    final var output = new StringWriter();
+    engine.getContext().setWriter(output);
+    engine.put("base", 40);
+    engine.put("name", "lox");
+
+    engine.eval("var answer = base + 2; print name + \" says\"; print answer;");
+
+    assertEquals("lox says" + NEWLINE + "42" + NEWLINE, output.toString());
+    assertEquals(42.0, engine.get("answer"));
+  }
+
+  @Test
+  void bindingsTheScriptNeverReadsStayOutOfItsSymbols() throws ScriptException {
+    final var cache = new ProgramCache();
+    final var engine = new LoxScriptEngineFactory(BackendType.TREE_WALKER, cache).getScriptEngine();
+    final var script = ((Compilable) engine).compile("print seen;");
+
+    for (var i = 0; i < 100; i++) {
+      final var context = new SimpleScriptContext();
+      context.setWriter(new StringWriter());
+      context.setAttribute("seen", i, ScriptContext.ENGINE_SCOPE);
+      context.setAttribute("request" + i, i, ScriptContext.ENGINE_SCOPE);
+      script.eval(context);
+    }
+
+    final var symbols = cache.compile("print seen;").symbols();
+    assertEquals(1, symbols.size());
+    assertEquals(-1, symbols.find("request0"));
+  }
+
+  @Test
+  void onlyGlobalsTheScriptWritesAreWrittenBack() throws ScriptException {
+    final var engine = new LoxScriptEngineFactory().getScriptEngine();
+    final var context = new SimpleScriptContext();
+    context.setBindings(new SimpleBindings(), ScriptContext.GLOBAL_SCOPE);
+    context.setAttribute("shared", 1, ScriptContext.GLOBAL_SCOPE);
+    context.setAttribute("count", 2, ScriptContext.ENGINE_SCOPE);
+    context.setAttribute("total", 0, ScriptContext.ENGINE_SCOPE);
+
+    engine.eval("total = count + shared;", context);
+
+    final var bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+    assertEquals(3.0, bindings.get("total"));
+    assertEquals(2, bindings.get("count"));
+    assertFalse(bindings.containsKey("shared"));
+  }
+
+  @Test
+  void compiledScriptsRunConcurrentlyWithTheirOwnContexts()
+      throws ScriptException, InterruptedException, ExecutionException {
+    final var engine = new LoxScriptEngineFactory().getScriptEngine();
+    final var source =
+        "var total = 0; var i = 0; while (i < n) { total = total + i; i = i + 1; } print total;";
+    final var script = ((Compilable) engine).compile(source);
+
+    final var results = new ArrayList<Future<String>>();
+    try (final var executor = Executors.newFixedThreadPool(4)) {
+      for (var n = 0; n < 32; n++) {
+        final var context = new SimpleScriptContext();
+        final var output = new StringWriter();
+        context.setWriter(output);
+        context.setAttribute("n", n, ScriptContext.ENGINE_SCOPE);
+        final Callable<String> run =
+            () -> {
+              script.eval(context);
+              return output.toString();
+            };
+        results.add(executor.submit(run));
+      }
+    }
+
+    for (var n = 0; n < 32; n++) {
+      assertEquals((n * (n - 1) / 2) + NEWLINE, results.get(n).get());
+    }
+  }
+
+  @Test
+  void identicalSourceIsOnlyCompiledOnce() throws ScriptException {
+    final var cache = new ProgramCache(2);
+    final var factory = new LoxScriptEngineFactory(BackendType.TREE_WALKER, cache);
+
+    ((Compilable) factory.getScriptEngine()).compile("print 1;");
+    ((Compilable) factory.getScriptEngine()).compile("print 1;");
+    assertEquals(1, cache.size());
+
+    ((Compilable) factory.getScriptEngine()).compile("print 2;");
+    ((Compilable) factory.getScriptEngine()).compile("print 3;");
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void loxErrorsBecomeScriptExceptions() {
+    final var engine = new LoxScriptEngineFactory().getScriptEngine();
+    engine.put(ScriptEngine.FILENAME, "broken.lox");
+
+    final var parseError = assertThrows(ScriptException.class, () -> engine.eval("print +;"));
+    assertEquals("broken.lox", parseError.getFileName());
+
+    final var runtimeError = assertThrows(ScriptException.class, () -> engine.eval("print x;"));
+    assertTrue(runtimeError.getMessage().contains("Line 1"));
+  }
+}
@@ -0,0 +1,49 @@
+package net.mcarolan.craftinginterpreters.vm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.mcarolan.craftinginterpreters.lox.GlobalEnvironmentAdapter;
+import net.mcarolan.craftinginterpreters.lox.IOPort;
+import net.mcarolan.craftinginterpreters.lox.InterpreterException;
+import net.mcarolan.craftinginterpreters.parser.Parser;
+import net.mcarolan.craftinginterpreters.scanner.Scanner;
+import org.junit.jupiter.api.Test;
+
+class VirtualMachineTest {
+
+  private static final IOPort NO_OUTPUT = string -> {};
+
+  private static void run(String source) {
+    final var parser = new Parser(new Scanner(source).scanTokens());
+    new VirtualMachine(new GlobalEnvironmentAdapter(), NO_OUTPUT).interpret(parser.parse());
+  }
+
+  @Test
+  void divisionByZeroReportsTheOperatorLine() {
+    final var exception =
+        assertThrows(InterpreterException.class, () -> run("var a = 1;\n\na / 0;"));
+    assertEquals("Line 3: Attempted to divide by 0", exception.getMessage());
+  }
+
+  @Test
+  void undefinedGlobalReportsTheVariableLine() {
+    final var exception = assertThrows(InterpreterException.class, () -> run("print 1;\nprint b;"));
+    assertEquals("Line 2: Failed to evaluate variable", exception.getMessage());
+  }
+
+  @Test
+  void typeErrorsMatchTheTreeWalker() {
+    final var exception = assertThrows(InterpreterException.class, () -> run("print 1 - \"a\";"));
+    assertEquals(
+        "Line 1: MINUS only supported if both operands are Number", exception.getMessage());
+  }
+
+  @Test
+  void lineTableMapsOffsetsToLines() {
+    final var parser = new Parser(new Scanner("print 1;\n\nprint 2;").scanTokens());
+    final var chunk = new Compiler().compile(parser.parse());
+
+    assertEquals(1, chunk.lineAt(0));
+    assertEquals(3, chunk.lineAt(chunk.size() - 1));
+  }
+}